@@ -11,7 +11,15 @@ public class MessageConstant {
     public static final String LOGIN_FAILED = "用户登录失败";
     public static final String ADDRESS_BOOK_IS_NULL = "地址为空";
     public static final String CART_IS_NULL = "购物车为空";
+    public static final String CART_ITEM_INVALID = "购物车商品不存在";
+    public static final String ITEM_OFF_SALE = "商品已停售";
     public static final String ORDER_NOT_FOUND = "订单不存在";
     public static final String ORDER_STATUS_ERROR = "订单状态错误";
+    public static final String PAGE_CURSOR_INVALID = "分页游标无效";
+    public static final String REPORT_DATE_RANGE_INVALID = "统计日期范围不正确";
+    public static final String REPORT_EXPORT_JOB_NOT_FOUND = "导出任务不存在或已过期";
+    public static final String REPORT_EXPORT_NOT_READY = "报表还未生成完成";
+    public static final String REPORT_EXPORT_BUSY = "导出任务过多，请稍后再试";
+    public static final String REPORT_CUBE_DIMENSION_INVALID = "分析维度不正确";
     public static final String UNKNOWN_ERROR = "未知错误";
 }
@@ -0,0 +1,12 @@
+package fun.cyhgraph.constant;
+
+/**
+ * 餐桌状态
+ */
+public class TableStatusConstant {
+
+    public static final Integer FREE = 1; // 空闲
+    public static final Integer OCCUPIED = 2; // 占用中
+    public static final Integer RESERVED = 3; // 已预订
+    public static final Integer DISABLED = 4; // 停用
+}
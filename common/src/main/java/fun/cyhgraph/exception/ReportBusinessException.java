@@ -0,0 +1,9 @@
+package fun.cyhgraph.exception;
+
+public class ReportBusinessException extends BaseException{
+
+    public ReportBusinessException(){}
+    public ReportBusinessException(String msg){
+        super(msg);
+    }
+}
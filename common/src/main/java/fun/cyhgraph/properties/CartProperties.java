@@ -0,0 +1,24 @@
+package fun.cyhgraph.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "hanye.cart")
+@Data
+public class CartProperties {
+
+    /**
+     * 购物车存储方式：redis（默认）或 mysql
+     */
+    private String store = "redis";
+
+    /**
+     * redis购物车的过期时间，每次修改购物车都会重新计时
+     */
+    private Duration ttl = Duration.ofDays(7);
+
+}
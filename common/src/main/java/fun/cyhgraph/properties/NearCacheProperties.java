@@ -0,0 +1,24 @@
+package fun.cyhgraph.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "hanye.near-cache")
+@Data
+public class NearCacheProperties {
+
+    /**
+     * 每个本地缓存最多保存的条数，超过后淘汰最久未使用的
+     */
+    private int maxSize = 1000;
+
+    /**
+     * 本地缓存过期时间，失效广播丢失时最多读到这么久的旧数据
+     */
+    private Duration ttl = Duration.ofSeconds(60);
+
+}
@@ -0,0 +1,22 @@
+package fun.cyhgraph.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "hanye.order-cube")
+@Data
+public class OrderCubeProperties {
+
+    /**
+     * 内存中保留最近多少天的订单，用于按时段、星期、就餐方式分析
+     */
+    private int days = 366;
+
+    /**
+     * 启动加载时每次查询的订单数
+     */
+    private int loadPageSize = 5000;
+
+}
@@ -0,0 +1,22 @@
+package fun.cyhgraph.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "hanye.order-number")
+@Data
+public class OrderNumberProperties {
+
+    /**
+     * 当前节点id，多节点部署时每个节点必须不同，取值范围 0~1023
+     */
+    private long nodeId = 0;
+
+    /**
+     * 起始时间戳（毫秒），默认 2024-01-01 00:00:00 UTC，上线后不能修改
+     */
+    private long epoch = 1704067200000L;
+
+}
@@ -0,0 +1,24 @@
+package fun.cyhgraph.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "hanye.order-task")
+@Data
+public class OrderTaskProperties {
+
+    /**
+     * 派送中订单自动完成时每次update的最大行数
+     */
+    private int deliveryChunkSize = 1000;
+
+    /**
+     * 两次update之间的停顿，给从库同步留出时间
+     */
+    private Duration deliveryChunkPause = Duration.ofMillis(200);
+
+}
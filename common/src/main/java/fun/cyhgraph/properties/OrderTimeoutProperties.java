@@ -0,0 +1,49 @@
+package fun.cyhgraph.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "hanye.order-timeout")
+@Data
+public class OrderTimeoutProperties {
+
+    /**
+     * 超时登记方式：local（默认，本地时间轮）或 redis（redis zset，多节点共享）
+     */
+    private String store = "local";
+
+    /**
+     * 下单后多久未支付自动取消
+     */
+    private Duration timeout = Duration.ofMinutes(15);
+
+    /**
+     * 时间轮每格的时长，也是redis方式的轮询间隔
+     */
+    private Duration tick = Duration.ofSeconds(1);
+
+    /**
+     * 时间轮每层的格数
+     */
+    private int wheelSize = 64;
+
+    /**
+     * 每批取消的订单数
+     */
+    private int batchSize = 200;
+
+    /**
+     * 启动对账每页查询的订单数
+     */
+    private int reconcilePageSize = 500;
+
+    /**
+     * 启动对账最多登记的订单数
+     */
+    private int reconcileMaxOrders = 10000;
+
+}
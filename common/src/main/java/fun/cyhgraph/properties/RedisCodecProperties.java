@@ -0,0 +1,25 @@
+package fun.cyhgraph.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Component
+@ConfigurationProperties(prefix = "hanye.redis-codec")
+@Data
+public class RedisCodecProperties {
+
+    /**
+     * redis缓存值的编码方式：jdk、json（默认）、smile、cbor
+     */
+    private String codec = "json";
+
+    /**
+     * 编码方式变化后启动时需要转换的key，支持通配符
+     */
+    private List<String> migratePatterns = new ArrayList<>(List.of("dish_*", "setmealCache::*", "SHOP_STATUS"));
+
+}
@@ -0,0 +1,42 @@
+package fun.cyhgraph.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "hanye.datasource.replica")
+@Data
+public class ReplicaDataSourceProperties {
+
+    /**
+     * 是否开启读写分离，关闭时所有查询都走主库
+     */
+    private boolean enabled = false;
+
+    private String driverClassName = "com.mysql.cj.jdbc.Driver";
+
+    private String url;
+
+    private String username;
+
+    private String password;
+
+    /**
+     * 从库连接池最大连接数
+     */
+    private int maxPoolSize = 10;
+
+    /**
+     * 从库允许的最大复制延迟，超过后只读查询回到主库
+     */
+    private Duration maxLag = Duration.ofSeconds(5);
+
+    /**
+     * 检查复制延迟的间隔
+     */
+    private Duration lagCheckInterval = Duration.ofSeconds(5);
+
+}
@@ -0,0 +1,34 @@
+package fun.cyhgraph.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "hanye.report-export")
+@Data
+public class ReportExportProperties {
+
+    /**
+     * 报表文件暂存目录，启动时清空
+     */
+    private String stagingDir = System.getProperty("java.io.tmpdir") + "/hanye-report-export";
+
+    /**
+     * 同时生成报表的线程数
+     */
+    private int workers = 2;
+
+    /**
+     * 排队等待的导出任务上限，超过后拒绝新任务
+     */
+    private int queueCapacity = 20;
+
+    /**
+     * 任务结束后文件保留时间，过期删除
+     */
+    private Duration fileTtl = Duration.ofHours(1);
+
+}
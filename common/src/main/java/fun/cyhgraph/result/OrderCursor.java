@@ -0,0 +1,45 @@
+package fun.cyhgraph.result;
+
+import fun.cyhgraph.constant.MessageConstant;
+import fun.cyhgraph.exception.OrderBusinessException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * 订单游标分页的游标：上一页最后一个订单的(下单时间, id)，对外编码为不透明的字符串
+ * @param orderTime
+ * @param id
+ */
+public record OrderCursor(LocalDateTime orderTime, Integer id) {
+
+    private static final String SEPARATOR = "|";
+
+    /**
+     * 编码为url安全的base64字符串
+     * @return
+     */
+    public String encode() {
+        String raw = orderTime + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解码客户端传来的游标，空字符串表示第一页，返回null
+     * @param cursor
+     * @return
+     */
+    public static OrderCursor decode(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int index = raw.lastIndexOf(SEPARATOR);
+            return new OrderCursor(LocalDateTime.parse(raw.substring(0, index)), Integer.valueOf(raw.substring(index + 1)));
+        } catch (RuntimeException e) {
+            throw new OrderBusinessException(MessageConstant.PAGE_CURSOR_INVALID);
+        }
+    }
+}
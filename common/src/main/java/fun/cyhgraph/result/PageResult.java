@@ -12,6 +12,12 @@ import java.util.List;
 @NoArgsConstructor
 public class PageResult implements Serializable {
 
-    private Long total;   // 总记录数
+    private Long total;   // 总记录数，游标分页不需要总数时为null
     private List records; // 当前页数据集合
+    private String nextCursor; // 游标分页下一页的游标，没有下一页时为null
+
+    public PageResult(Long total, List records) {
+        this.total = total;
+        this.records = records;
+    }
 }
@@ -0,0 +1,18 @@
+package fun.cyhgraph.dto;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * 批量修改购物车的单个操作，delta为数量变化，正数增加，负数减少
+ */
+@Data
+public class CartOperationDTO implements Serializable {
+
+    private Integer dishId;
+    private Integer setmealId;
+    private String dishFlavor;
+    private Integer delta;
+
+}
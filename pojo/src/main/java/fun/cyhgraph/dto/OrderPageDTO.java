@@ -5,6 +5,7 @@ import org.springframework.format.annotation.DateTimeFormat;
 
 import java.io.Serializable;
 import java.time.LocalDateTime;
+import java.util.List;
 
 @Data
 public class OrderPageDTO implements Serializable {
@@ -20,4 +21,15 @@ public class OrderPageDTO implements Serializable {
     private LocalDateTime endTime;
     private Integer userId;
 
+    // 订单号、手机号搜索索引命中的订单ID
+    private List<Integer> orderIds;
+
+    // 游标分页：传了cursor（第一页传空字符串）就按游标查询，不传则按页码查询
+    private String cursor;
+    // 游标分页是否查询总数
+    private boolean withTotal;
+    // 由cursor解码得到的上一页最后一个订单的下单时间和id
+    private LocalDateTime cursorOrderTime;
+    private Integer cursorId;
+
 }
\ No newline at end of file
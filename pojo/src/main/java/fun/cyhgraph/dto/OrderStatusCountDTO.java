@@ -0,0 +1,15 @@
+package fun.cyhgraph.dto;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * 按订单状态分组统计的订单数
+ */
+@Data
+public class OrderStatusCountDTO implements Serializable {
+
+    private Integer status;
+    private Long count;
+}
@@ -0,0 +1,53 @@
+package fun.cyhgraph.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * 菜品、套餐日销量汇总，只统计已完成订单
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DishSalesDaily {
+
+    public static final Integer DISH = 1;
+    public static final Integer SETMEAL = 2;
+
+    private LocalDate statDate;
+
+    /**
+     * 商品类型：1菜品 2套餐
+     */
+    private Integer itemType;
+
+    /**
+     * 菜品id或套餐id
+     */
+    private Integer itemId;
+
+    /**
+     * 就餐方式：1-外送，2-店内就餐
+     */
+    private Integer diningType;
+
+    private Integer categoryId;
+
+    private String name;
+
+    /**
+     * 销量
+     */
+    private Integer number;
+
+    /**
+     * 销售额
+     */
+    private BigDecimal amount;
+}
@@ -0,0 +1,36 @@
+package fun.cyhgraph.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * 订单日汇总，按下单日期统计
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderDailyStats {
+
+    private LocalDate statDate;
+
+    /**
+     * 订单总数
+     */
+    private Integer orderCount;
+
+    /**
+     * 有效订单数（已完成）
+     */
+    private Integer validOrderCount;
+
+    /**
+     * 营业额（已完成订单金额）
+     */
+    private BigDecimal turnover;
+}
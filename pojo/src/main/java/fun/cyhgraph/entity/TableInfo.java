@@ -32,6 +32,11 @@ public class TableInfo {
      */
     private Integer status;
 
+    /**
+     * 预订或占用该餐桌的订单id，空闲、停用时为空
+     */
+    private Integer orderId;
+
     /**
      * 排序
      */
@@ -0,0 +1,25 @@
+package fun.cyhgraph.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * 用户日汇总，按注册日期统计
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserDailyStats {
+
+    private LocalDate statDate;
+
+    /**
+     * 新增用户数
+     */
+    private Integer newUserCount;
+}
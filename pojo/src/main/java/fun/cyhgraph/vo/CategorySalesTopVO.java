@@ -0,0 +1,22 @@
+package fun.cyhgraph.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.io.Serializable;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CategorySalesTopVO implements Serializable {
+
+    private Integer categoryId; // 分类id
+    private String categoryName; // 分类名称
+    // 商品名称列表，以逗号分隔，例如：鱼香肉丝,宫保鸡丁,水煮鱼
+    private String nameList;
+    // 销量列表，以逗号分隔，例如：260,215,200
+    private String numberList;
+
+}
@@ -0,0 +1,21 @@
+package fun.cyhgraph.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderCubeCellVO implements Serializable {
+
+    // 各分组维度的取值，顺序与OrderCubeVO.dimensions一致，例如：["3","12"]表示星期三12点
+    private List<String> keys;
+    private Long orderCount; // 订单数
+    private BigDecimal amount; // 订单金额
+}
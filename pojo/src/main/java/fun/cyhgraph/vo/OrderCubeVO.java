@@ -0,0 +1,22 @@
+package fun.cyhgraph.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.io.Serializable;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderCubeVO implements Serializable {
+
+    // 分组维度：hour、weekday、day、diningType、status
+    private List<String> dimensions;
+    // 有订单的分组，没有订单的分组不返回
+    private List<OrderCubeCellVO> cells;
+    private Integer scannedRows; // 扫描的订单数
+    private Long costMillis; // 查询耗时（毫秒）
+}
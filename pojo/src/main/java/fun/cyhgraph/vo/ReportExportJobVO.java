@@ -0,0 +1,26 @@
+package fun.cyhgraph.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReportExportJobVO implements Serializable {
+
+    private String jobId; // 导出任务id
+    private LocalDate begin; // 统计开始日期
+    private LocalDate end; // 统计结束日期
+    private Integer status; // 任务状态 1排队中 2生成中 3已完成 4失败
+    private Long fileSize; // 文件大小（字节），完成后才有
+    private String errorMsg; // 失败原因
+    private LocalDateTime createTime; // 提交时间
+    private LocalDateTime finishTime; // 结束时间
+}
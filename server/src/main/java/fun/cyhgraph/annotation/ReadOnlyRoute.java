@@ -0,0 +1,15 @@
+package fun.cyhgraph.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 自定义注解，标识方法只读数据库，开启读写分离时查询走从库
+ * 加在类上表示类中所有方法都只读；已经在写事务中调用时仍使用主库
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ReadOnlyRoute {
+}
@@ -0,0 +1,41 @@
+package fun.cyhgraph.aspect;
+
+import fun.cyhgraph.datasource.DataSourceRoute;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Pointcut;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 只读方法执行期间把数据源路由设为从库
+ * 优先级高于事务切面，方法自身的只读事务也会在从库上开启；外层已有事务时连接已经绑定，不再切换
+ */
+@Component
+@Aspect
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@Slf4j
+public class ReadOnlyRouteAspect {
+
+    @Pointcut("@annotation(fun.cyhgraph.annotation.ReadOnlyRoute) || @within(fun.cyhgraph.annotation.ReadOnlyRoute)")
+    public void readOnlyRoutePointCut() {
+    }
+
+    @Around("readOnlyRoutePointCut()")
+    public Object route(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return joinPoint.proceed();
+        }
+        String previous = DataSourceRoute.get();
+        DataSourceRoute.set(DataSourceRoute.REPLICA);
+        try {
+            return joinPoint.proceed();
+        } finally {
+            DataSourceRoute.set(previous);
+        }
+    }
+}
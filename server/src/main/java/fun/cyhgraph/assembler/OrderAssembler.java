@@ -0,0 +1,96 @@
+package fun.cyhgraph.assembler;
+
+import fun.cyhgraph.entity.Order;
+import fun.cyhgraph.entity.OrderDetail;
+import fun.cyhgraph.mapper.OrderDetailMapper;
+import fun.cyhgraph.vo.OrderVO;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.util.CollectionUtils;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * 订单VO组装，订单详情、用户端历史订单、管理端订单搜索共用
+ * 一页订单的明细用一条 where order_id in (...) 查询后在内存中按订单分组，不再每个订单查询一次
+ */
+@Component
+public class OrderAssembler {
+
+    @Autowired
+    private OrderDetailMapper orderDetailMapper;
+
+    /**
+     * 单个订单，带订单明细
+     * @param order
+     * @return
+     */
+    public OrderVO toVO(Order order) {
+        if (order == null) {
+            return null;
+        }
+        OrderVO orderVO = new OrderVO();
+        BeanUtils.copyProperties(order, orderVO);
+        orderVO.setOrderDetailList(orderDetailMapper.getById(order.getId()));
+        return orderVO;
+    }
+
+    /**
+     * 一页订单，带订单明细（用户端历史订单）
+     * @param orders
+     * @return
+     */
+    public List<OrderVO> toVOListWithDetails(List<Order> orders) {
+        Map<Integer, List<OrderDetail>> detailMap = loadDetails(orders);
+        List<OrderVO> list = new ArrayList<>(orders.size());
+        for (Order order : orders) {
+            OrderVO orderVO = new OrderVO();
+            BeanUtils.copyProperties(order, orderVO);
+            orderVO.setOrderDetailList(detailMap.getOrDefault(order.getId(), Collections.emptyList()));
+            list.add(orderVO);
+        }
+        return list;
+    }
+
+    /**
+     * 一页订单，带菜品信息字符串 菜品名*数量;（管理端订单搜索）
+     * @param orders
+     * @return
+     */
+    public List<OrderVO> toVOListWithDishes(List<Order> orders) {
+        Map<Integer, List<OrderDetail>> detailMap = loadDetails(orders);
+        List<OrderVO> list = new ArrayList<>(orders.size());
+        for (Order order : orders) {
+            OrderVO orderVO = new OrderVO();
+            BeanUtils.copyProperties(order, orderVO);
+            orderVO.setOrderDishes(getOrderDishesStr(detailMap.getOrDefault(order.getId(), Collections.emptyList())));
+            list.add(orderVO);
+        }
+        return list;
+    }
+
+    /**
+     * 一次查询这页订单的所有明细，按订单ID分组
+     */
+    private Map<Integer, List<OrderDetail>> loadDetails(List<Order> orders) {
+        if (CollectionUtils.isEmpty(orders)) {
+            return Collections.emptyMap();
+        }
+        List<Integer> orderIds = orders.stream().map(Order::getId).collect(Collectors.toList());
+        return orderDetailMapper.getByOrderIds(orderIds).stream()
+                .collect(Collectors.groupingBy(OrderDetail::getOrderId));
+    }
+
+    /**
+     * 获取订单菜品信息字符串
+     */
+    private String getOrderDishesStr(List<OrderDetail> orderDetailList) {
+        StringBuilder sb = new StringBuilder();
+        for (OrderDetail detail : orderDetailList) {
+            sb.append(detail.getName()).append('*').append(detail.getNumber()).append(';');
+        }
+        return sb.toString();
+    }
+}
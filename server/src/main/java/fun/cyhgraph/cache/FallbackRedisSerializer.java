@@ -0,0 +1,38 @@
+package fun.cyhgraph.cache;
+
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+/**
+ * 按当前编码写入，读取失败时用旧编码再试一次
+ * 切换编码后、迁移完成前，或滚动发布期间旧节点写入的值，都不会导致读取报错
+ */
+public class FallbackRedisSerializer implements RedisSerializer<Object> {
+
+    private final RedisSerializer<Object> current;
+    private final RedisSerializer<Object> legacy;
+
+    public FallbackRedisSerializer(RedisSerializer<Object> current, RedisSerializer<Object> legacy) {
+        this.current = current;
+        this.legacy = legacy;
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        return current.serialize(value);
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        try {
+            return current.deserialize(bytes);
+        } catch (SerializationException e) {
+            try {
+                return legacy.deserialize(bytes);
+            } catch (SerializationException ex) {
+                e.addSuppressed(ex);
+                throw e;
+            }
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package fun.cyhgraph.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.cache.support.NullValue;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+/**
+ * 用同一个ObjectMapper写入和读取，ObjectMapper的格式（json、smile、cbor）决定字节格式
+ * GenericJackson2JsonRedisSerializer读取时按JSON文本解析类型信息，读不了smile、cbor这类二进制格式
+ */
+public class JacksonRedisSerializer implements RedisSerializer<Object> {
+
+    private static final byte[] EMPTY = new byte[0];
+
+    private final ObjectMapper objectMapper;
+
+    public JacksonRedisSerializer(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (value == null) {
+            return EMPTY;
+        }
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (Exception e) {
+            throw new SerializationException("Could not write value: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        try {
+            Object value = objectMapper.readValue(bytes, Object.class);
+            // 缓存注解按同一个实例判断缓存的是null
+            return value instanceof NullValue ? NullValue.INSTANCE : value;
+        } catch (Exception e) {
+            throw new SerializationException("Could not read value: " + e.getMessage(), e);
+        }
+    }
+}
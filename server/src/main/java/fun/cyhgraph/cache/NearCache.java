@@ -0,0 +1,129 @@
+package fun.cyhgraph.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * 本地一级缓存，放在redis前面，命中时不再访问redis和反序列化
+ * 按最近使用淘汰，条目写入后超过ttl过期；失效由NearCacheRegistry统一处理，查询期间发生失效的结果不放入缓存
+ */
+public class NearCache {
+
+    private final String name;
+    private final int maxSize;
+    private final long ttlMillis;
+
+    private final Map<String, Entry> cache;
+    // 每次失效加1
+    private long generation;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter sizeEvictions;
+    private final Counter expiredEvictions;
+    private final Counter invalidateEvictions;
+
+    public NearCache(String name, int maxSize, long ttlMillis, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.maxSize = maxSize;
+        this.ttlMillis = ttlMillis;
+        this.cache = new LinkedHashMap<String, Entry>(Math.min(maxSize, 256), 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > NearCache.this.maxSize) {
+                    NearCache.this.sizeEvictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+        this.hits = counter("cache.near.gets", "result", "hit", meterRegistry);
+        this.misses = counter("cache.near.gets", "result", "miss", meterRegistry);
+        this.sizeEvictions = counter("cache.near.evictions", "cause", "size", meterRegistry);
+        this.expiredEvictions = counter("cache.near.evictions", "cause", "expired", meterRegistry);
+        this.invalidateEvictions = counter("cache.near.evictions", "cause", "invalidate", meterRegistry);
+        Gauge.builder("cache.near.size", this, NearCache::size)
+                .description("本地缓存条数")
+                .tag("cache", name)
+                .register(meterRegistry);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 读取缓存，没有或已过期时调用loader加载，loader返回null时不缓存
+     * @param key
+     * @param loader
+     * @return
+     */
+    public Object get(String key, Supplier<?> loader) {
+        long loadGeneration;
+        synchronized (cache) {
+            Entry entry = cache.get(key);
+            if (entry != null) {
+                if (entry.expireAt > System.currentTimeMillis()) {
+                    hits.increment();
+                    return entry.value;
+                }
+                cache.remove(key);
+                expiredEvictions.increment();
+            }
+            misses.increment();
+            loadGeneration = generation;
+        }
+        Object value = loader.get();
+        synchronized (cache) {
+            if (value != null && loadGeneration == generation) {
+                cache.put(key, new Entry(value, System.currentTimeMillis() + ttlMillis));
+            }
+        }
+        return value;
+    }
+
+    /**
+     * 删除一个key
+     * @param key
+     */
+    void evict(String key) {
+        synchronized (cache) {
+            generation++;
+            if (cache.remove(key) != null) {
+                invalidateEvictions.increment();
+            }
+        }
+    }
+
+    /**
+     * 删除全部
+     */
+    void clear() {
+        synchronized (cache) {
+            generation++;
+            invalidateEvictions.increment(cache.size());
+            cache.clear();
+        }
+    }
+
+    private int size() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    private Counter counter(String metric, String tagKey, String tagValue, MeterRegistry meterRegistry) {
+        return Counter.builder(metric)
+                .tag("cache", name)
+                .tag(tagKey, tagValue)
+                .register(meterRegistry);
+    }
+
+    private record Entry(Object value, long expireAt) {
+    }
+}
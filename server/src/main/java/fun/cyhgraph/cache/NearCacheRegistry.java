@@ -0,0 +1,86 @@
+package fun.cyhgraph.cache;
+
+import fun.cyhgraph.properties.NearCacheProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 本地缓存的创建和失效
+ * redis中的数据变化后调用invalidate，删除本节点的本地缓存并通过redis广播，其他节点收到后删除各自的本地缓存
+ */
+@Component
+@Slf4j
+public class NearCacheRegistry {
+
+    public static final String DISH_CACHE = "dish";
+
+    private static final String INVALIDATE_CHANNEL = "near_cache_invalidate";
+    // 广播内容为 缓存名~key，key为*表示删除全部
+    private static final String ALL_KEYS = "*";
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+    @Autowired
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+    @Autowired
+    private NearCacheProperties nearCacheProperties;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<String, NearCache> caches = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        redisMessageListenerContainer.addMessageListener((message, pattern) -> {
+            String[] body = new String(message.getBody()).split("~", 2);
+            invalidateLocal(body[0], body[1]);
+        }, new ChannelTopic(INVALIDATE_CHANNEL));
+    }
+
+    /**
+     * 获取本地缓存，没有时创建
+     * @param name
+     * @return
+     */
+    public NearCache getCache(String name) {
+        return caches.computeIfAbsent(name, n -> new NearCache(n, nearCacheProperties.getMaxSize(),
+                nearCacheProperties.getTtl().toMillis(), meterRegistry));
+    }
+
+    /**
+     * 删除所有节点上的本地缓存
+     * @param name 缓存名
+     * @param key 为null时删除该缓存的全部数据
+     */
+    public void invalidate(String name, String key) {
+        String target = key == null ? ALL_KEYS : key;
+        invalidateLocal(name, target);
+        try {
+            stringRedisTemplate.convertAndSend(INVALIDATE_CHANNEL, name + "~" + target);
+        } catch (Exception e) {
+            // 广播失败时其他节点最多在ttl内读到旧数据
+            log.warn("广播本地缓存失效失败：{} {}", name, target, e);
+        }
+    }
+
+    private void invalidateLocal(String name, String key) {
+        NearCache cache = caches.get(name);
+        if (cache == null) {
+            return;
+        }
+        if (ALL_KEYS.equals(key)) {
+            cache.clear();
+        } else {
+            cache.evict(key);
+        }
+    }
+}
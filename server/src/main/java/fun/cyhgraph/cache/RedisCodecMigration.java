@@ -0,0 +1,107 @@
+package fun.cyhgraph.cache;
+
+import fun.cyhgraph.properties.RedisCodecProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.DataType;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+import org.springframework.stereotype.Component;
+
+/**
+ * redis缓存值编码迁移
+ * redis中记录当前数据使用的编码（没有记录表示原来的JDK序列化），与配置不同时在启动后把已有的缓存值转换成新编码，保留原过期时间；
+ * 两种编码都读不出的值直接删除，下次查询时重新写入
+ */
+@Component
+@Slf4j
+public class RedisCodecMigration {
+
+    public static final String MARKER_KEY = "redis_value_codec";
+    private static final int SCAN_COUNT = 500;
+
+    @Autowired
+    private RedisCodecProperties redisCodecProperties;
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrate() {
+        RedisValueCodec target = RedisValueCodec.of(redisCodecProperties.getCodec());
+        String marker = stringRedisTemplate.opsForValue().get(MARKER_KEY);
+        RedisValueCodec source = marker == null ? RedisValueCodec.JDK : RedisValueCodec.of(marker);
+        if (source == target) {
+            return;
+        }
+        log.info("redis缓存值编码由{}改为{}，开始转换已有数据", source, target);
+        try {
+            int[] result = stringRedisTemplate.execute((RedisCallback<int[]>) connection ->
+                    convert(connection, source.rawSerializer(), target.rawSerializer()));
+            stringRedisTemplate.opsForValue().set(MARKER_KEY, target.name().toLowerCase());
+            log.info("redis缓存值编码转换完成，转换: {}，删除: {}", result[0], result[1]);
+        } catch (RuntimeException e) {
+            // 转换失败不影响启动，读取时仍会兼容旧编码，下次启动再转换
+            log.error("redis缓存值编码转换失败", e);
+        }
+    }
+
+    /**
+     * 逐个扫描匹配的key并转换
+     * @return 转换数、删除数
+     */
+    private int[] convert(RedisConnection connection, RedisSerializer<Object> from, RedisSerializer<Object> to) {
+        int[] result = new int[2];
+        for (String pattern : redisCodecProperties.getMigratePatterns()) {
+            ScanOptions options = ScanOptions.scanOptions().match(pattern).count(SCAN_COUNT).build();
+            try (Cursor<byte[]> cursor = connection.keyCommands().scan(options)) {
+                while (cursor.hasNext()) {
+                    byte[] key = cursor.next();
+                    if (connection.keyCommands().type(key) != DataType.STRING) {
+                        continue;
+                    }
+                    byte[] value = connection.stringCommands().get(key);
+                    if (value == null) {
+                        continue;
+                    }
+                    Object decoded;
+                    try {
+                        decoded = from.deserialize(value);
+                    } catch (SerializationException e) {
+                        if (readable(to, value)) {
+                            // 其他节点已经转换过
+                            continue;
+                        }
+                        connection.keyCommands().del(key);
+                        result[1]++;
+                        continue;
+                    }
+                    byte[] encoded = to.serialize(decoded);
+                    Long ttl = connection.keyCommands().pTtl(key);
+                    if (ttl != null && ttl > 0) {
+                        connection.stringCommands().pSetEx(key, ttl, encoded);
+                    } else {
+                        connection.stringCommands().set(key, encoded);
+                    }
+                    result[0]++;
+                }
+            }
+        }
+        return result;
+    }
+
+    private boolean readable(RedisSerializer<Object> serializer, byte[] value) {
+        try {
+            serializer.deserialize(value);
+            return true;
+        } catch (SerializationException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package fun.cyhgraph.cache;
+
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.jsontype.BasicPolymorphicTypeValidator;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+/**
+ * redis缓存值的编码方式
+ * jdk：原来的JDK序列化；json：带类型信息的JSON；smile、cbor：与json结构相同的二进制格式，体积更小
+ * 除jdk外都忽略未知字段，实体类增删字段后旧缓存仍能读取
+ */
+public enum RedisValueCodec {
+
+    JDK, JSON, SMILE, CBOR;
+
+    public static RedisValueCodec of(String name) {
+        return valueOf(name.trim().toUpperCase());
+    }
+
+    /**
+     * 当前编码方式的序列化器，读取失败时再按JDK序列化读取，兼容切换编码前写入的旧值
+     * @return
+     */
+    public RedisSerializer<Object> serializer() {
+        RedisSerializer<Object> serializer = rawSerializer();
+        return this == JDK ? serializer : new FallbackRedisSerializer(serializer, JDK.rawSerializer());
+    }
+
+    /**
+     * 不带兼容读取的序列化器
+     * @return
+     */
+    public RedisSerializer<Object> rawSerializer() {
+        switch (this) {
+            case JSON:
+                return jackson(new JsonFactory());
+            case SMILE:
+                return jackson(new SmileFactory());
+            case CBOR:
+                return jackson(new CBORFactory());
+            default:
+                return new JdkSerializationRedisSerializer();
+        }
+    }
+
+    private static RedisSerializer<Object> jackson(JsonFactory factory) {
+        ObjectMapper objectMapper = new ObjectMapper(factory);
+        objectMapper.registerModule(new JavaTimeModule());
+        objectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        // 反序列化时只允许项目和JDK中的类型，避免缓存中被写入任意类名
+        BasicPolymorphicTypeValidator validator = BasicPolymorphicTypeValidator.builder()
+                .allowIfSubType("fun.cyhgraph.")
+                .allowIfSubType("java.util.")
+                .allowIfSubType("java.lang.")
+                .allowIfSubType("java.math.")
+                .allowIfSubType("java.time.")
+                .allowIfSubType("org.springframework.cache.support.NullValue")
+                .build();
+        objectMapper.activateDefaultTyping(validator, ObjectMapper.DefaultTyping.NON_FINAL, JsonTypeInfo.As.PROPERTY);
+        // 缓存注解允许缓存null，需要能写出NullValue
+        GenericJackson2JsonRedisSerializer.registerNullValueSerializer(objectMapper, null);
+        // 读取也用同一个ObjectMapper，smile、cbor不能按JSON文本解析
+        return new JacksonRedisSerializer(objectMapper);
+    }
+}
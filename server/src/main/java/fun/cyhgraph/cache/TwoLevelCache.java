@@ -0,0 +1,84 @@
+package fun.cyhgraph.cache;
+
+import org.springframework.cache.Cache;
+
+import java.util.concurrent.Callable;
+
+/**
+ * 缓存注解使用的两级缓存：本地缓存在前，redis缓存在后
+ * 读取先查本地，没有再查redis并放入本地；写入和删除先改redis，再让所有节点的本地缓存失效
+ */
+public class TwoLevelCache implements Cache {
+
+    private final Cache redisCache;
+    private final NearCache nearCache;
+    private final NearCacheRegistry nearCacheRegistry;
+
+    public TwoLevelCache(Cache redisCache, NearCacheRegistry nearCacheRegistry) {
+        this.redisCache = redisCache;
+        this.nearCache = nearCacheRegistry.getCache(redisCache.getName());
+        this.nearCacheRegistry = nearCacheRegistry;
+    }
+
+    @Override
+    public String getName() {
+        return redisCache.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return redisCache.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        // 本地缓存保存redis返回的ValueWrapper，缓存的null值也能命中
+        return (ValueWrapper) nearCache.get(String.valueOf(key), () -> redisCache.get(key));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper == null ? null : wrapper.get();
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("缓存值类型不是 [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper wrapper = get(key);
+        if (wrapper != null) {
+            return (T) wrapper.get();
+        }
+        return redisCache.get(key, valueLoader);
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        redisCache.put(key, value);
+        nearCacheRegistry.invalidate(getName(), String.valueOf(key));
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper existing = redisCache.putIfAbsent(key, value);
+        nearCacheRegistry.invalidate(getName(), String.valueOf(key));
+        return existing;
+    }
+
+    @Override
+    public void evict(Object key) {
+        redisCache.evict(key);
+        nearCacheRegistry.invalidate(getName(), String.valueOf(key));
+    }
+
+    @Override
+    public void clear() {
+        redisCache.clear();
+        nearCacheRegistry.invalidate(getName(), null);
+    }
+}
@@ -0,0 +1,20 @@
+package fun.cyhgraph.catalog;
+
+import fun.cyhgraph.constant.StatusConstant;
+
+import java.math.BigDecimal;
+
+/**
+ * 菜单快照中的一个菜品或套餐
+ * @param id
+ * @param name
+ * @param pic
+ * @param price
+ * @param status 1起售 0停售
+ */
+public record CatalogItem(int id, String name, String pic, BigDecimal price, int status) {
+
+    public boolean isOnSale() {
+        return status == StatusConstant.ENABLE;
+    }
+}
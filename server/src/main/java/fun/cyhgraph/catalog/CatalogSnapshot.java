@@ -0,0 +1,96 @@
+package fun.cyhgraph.catalog;
+
+import fun.cyhgraph.entity.Dish;
+import fun.cyhgraph.entity.Setmeal;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 不可变的菜单快照：菜品、套餐的名称、图片、价格和起售状态
+ * 按id排序的int[]做二分查找，构建完成后只读，整体替换，读取时不需要加锁
+ */
+public final class CatalogSnapshot {
+
+    public static final CatalogSnapshot EMPTY = new CatalogSnapshot(List.of(), List.of(), 0);
+
+    private final int[] dishIds;
+    private final CatalogItem[] dishes;
+    private final int[] setmealIds;
+    private final CatalogItem[] setmeals;
+    private final long version;
+
+    private CatalogSnapshot(List<CatalogItem> dishList, List<CatalogItem> setmealList, long version) {
+        this.dishes = sorted(dishList);
+        this.dishIds = ids(this.dishes);
+        this.setmeals = sorted(setmealList);
+        this.setmealIds = ids(this.setmeals);
+        this.version = version;
+    }
+
+    public static CatalogSnapshot of(List<Dish> dishList, List<Setmeal> setmealList, long version) {
+        List<CatalogItem> dishItems = dishList.stream()
+                .map(d -> new CatalogItem(d.getId(), d.getName(), d.getPic(), d.getPrice(), statusOf(d.getStatus())))
+                .toList();
+        List<CatalogItem> setmealItems = setmealList.stream()
+                .map(s -> new CatalogItem(s.getId(), s.getName(), s.getPic(), s.getPrice(), statusOf(s.getStatus())))
+                .toList();
+        return new CatalogSnapshot(dishItems, setmealItems, version);
+    }
+
+    /**
+     * 根据id查询菜品，不存在返回null
+     * @param dishId
+     * @return
+     */
+    public CatalogItem getDish(int dishId) {
+        int index = Arrays.binarySearch(dishIds, dishId);
+        return index < 0 ? null : dishes[index];
+    }
+
+    /**
+     * 根据id查询套餐，不存在返回null
+     * @param setmealId
+     * @return
+     */
+    public CatalogItem getSetmeal(int setmealId) {
+        int index = Arrays.binarySearch(setmealIds, setmealId);
+        return index < 0 ? null : setmeals[index];
+    }
+
+    /**
+     * 根据购物车/订单明细中的 dishId 或 setmealId 查询商品
+     * @param dishId
+     * @param setmealId
+     * @return
+     */
+    public CatalogItem getItem(Integer dishId, Integer setmealId) {
+        if (dishId != null) {
+            return getDish(dishId);
+        }
+        return setmealId == null ? null : getSetmeal(setmealId);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    private static CatalogItem[] sorted(List<CatalogItem> items) {
+        CatalogItem[] array = items.toArray(new CatalogItem[0]);
+        Arrays.sort(array, Comparator.comparingInt(CatalogItem::id));
+        return array;
+    }
+
+    private static int[] ids(CatalogItem[] items) {
+        int[] ids = new int[items.length];
+        for (int i = 0; i < items.length; i++) {
+            ids[i] = items[i].id();
+        }
+        return ids;
+    }
+
+    private static int statusOf(Integer status) {
+        return status == null ? 0 : status;
+    }
+}
@@ -0,0 +1,62 @@
+package fun.cyhgraph.catalog;
+
+import fun.cyhgraph.entity.Dish;
+import fun.cyhgraph.entity.Setmeal;
+import fun.cyhgraph.mapper.DishMapper;
+import fun.cyhgraph.mapper.SetmealMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 菜单快照持有者
+ * 管理端修改菜品/套餐后调用 refresh() 重建快照；多节点部署时其他节点靠定时刷新兜底
+ */
+@Component
+@Slf4j
+public class CatalogSnapshotHolder {
+
+    @Autowired
+    private DishMapper dishMapper;
+    @Autowired
+    private SetmealMapper setmealMapper;
+
+    private volatile CatalogSnapshot snapshot;
+
+    /**
+     * 获取当前菜单快照，第一次访问时从数据库加载
+     * @return
+     */
+    public CatalogSnapshot current() {
+        CatalogSnapshot current = snapshot;
+        if (current == null) {
+            current = refresh();
+        }
+        return current;
+    }
+
+    /**
+     * 从数据库重新加载所有菜品和套餐，构建新快照后整体替换
+     * @return
+     */
+    public synchronized CatalogSnapshot refresh() {
+        List<Dish> dishList = dishMapper.getList(new Dish());
+        List<Setmeal> setmealList = setmealMapper.getList(new Setmeal());
+        long version = snapshot == null ? 1 : snapshot.getVersion() + 1;
+        CatalogSnapshot newSnapshot = CatalogSnapshot.of(dishList, setmealList, version);
+        snapshot = newSnapshot;
+        log.info("菜单快照已刷新，版本: {}, 菜品: {}, 套餐: {}", version, dishList.size(), setmealList.size());
+        return newSnapshot;
+    }
+
+    /**
+     * 定时刷新，保证其他节点修改菜单后本节点的快照最终一致
+     */
+    @Scheduled(fixedDelay = 60000, initialDelay = 60000)
+    public void scheduledRefresh() {
+        refresh();
+    }
+}
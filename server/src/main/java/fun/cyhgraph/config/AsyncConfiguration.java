@@ -0,0 +1,73 @@
+package fun.cyhgraph.config;
+
+import fun.cyhgraph.properties.ReportExportProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * 异步任务配置
+ */
+@Configuration
+@EnableAsync
+@Slf4j
+public class AsyncConfiguration {
+
+    /**
+     * 订单事件线程池，队列有界，队列满时由提交线程自己执行，不丢弃事件
+     * 线程池指标（executor.active、executor.queued、executor.completed等）由actuator自动注册，name=orderEventExecutor
+     * @return
+     */
+    @Bean
+    public ThreadPoolTaskExecutor orderEventExecutor() {
+        log.info("开始创建订单事件线程池...");
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(4);
+        executor.setMaxPoolSize(8);
+        executor.setQueueCapacity(1000);
+        executor.setThreadNamePrefix("order-event-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        // 应用关闭时等待队列中的事件处理完
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    /**
+     * 餐桌看板推送线程池，单线程保证变化按版本号顺序推送
+     * 队列满时丢弃最旧的推送，客户端发现版本号不连续时重新拉取空闲餐桌
+     * @return
+     */
+    @Bean
+    public ThreadPoolTaskExecutor tableBoardPushExecutor() {
+        log.info("开始创建餐桌看板推送线程池...");
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(10000);
+        executor.setThreadNamePrefix("table-board-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.DiscardOldestPolicy());
+        return executor;
+    }
+
+    /**
+     * 报表导出线程池，线程数和队列都有上限，队列满时拒绝，由调用方提示稍后再试
+     * @param reportExportProperties
+     * @return
+     */
+    @Bean
+    public ThreadPoolTaskExecutor reportExportExecutor(ReportExportProperties reportExportProperties) {
+        log.info("开始创建报表导出线程池...");
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(reportExportProperties.getWorkers());
+        executor.setMaxPoolSize(reportExportProperties.getWorkers());
+        executor.setQueueCapacity(reportExportProperties.getQueueCapacity());
+        executor.setThreadNamePrefix("report-export-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        return executor;
+    }
+}
@@ -0,0 +1,62 @@
+package fun.cyhgraph.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import fun.cyhgraph.datasource.ReplicaLagMonitor;
+import fun.cyhgraph.datasource.RoutingDataSource;
+import fun.cyhgraph.properties.ReplicaDataSourceProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import javax.sql.DataSource;
+
+/**
+ * 读写分离配置，hanye.datasource.replica.enabled=true时生效
+ * 主库沿用spring.datasource配置，从库单独一个连接池，mybatis、事务管理器使用路由数据源
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "hanye.datasource.replica", name = "enabled", havingValue = "true")
+@Slf4j
+public class DataSourceConfiguration {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties dataSourceProperties) {
+        log.info("开始创建主库连接池...");
+        HikariDataSource dataSource = dataSourceProperties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    public HikariDataSource replicaDataSource(ReplicaDataSourceProperties replicaDataSourceProperties) {
+        log.info("开始创建从库连接池...");
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName("replica");
+        dataSource.setDriverClassName(replicaDataSourceProperties.getDriverClassName());
+        dataSource.setJdbcUrl(replicaDataSourceProperties.getUrl());
+        dataSource.setUsername(replicaDataSourceProperties.getUsername());
+        dataSource.setPassword(replicaDataSourceProperties.getPassword());
+        dataSource.setMaximumPoolSize(replicaDataSourceProperties.getMaxPoolSize());
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    @Bean
+    public ReplicaLagMonitor replicaLagMonitor(HikariDataSource replicaDataSource,
+                                               ReplicaDataSourceProperties replicaDataSourceProperties) {
+        return new ReplicaLagMonitor(replicaDataSource, replicaDataSourceProperties);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource, HikariDataSource replicaDataSource,
+                                 ReplicaLagMonitor replicaLagMonitor) {
+        return new RoutingDataSource(primaryDataSource, replicaDataSource, replicaLagMonitor);
+    }
+}
@@ -1,11 +1,20 @@
 package fun.cyhgraph.config;
 
+import fun.cyhgraph.cache.NearCacheRegistry;
+import fun.cyhgraph.cache.RedisValueCodec;
+import fun.cyhgraph.cache.TwoLevelCacheManager;
+import fun.cyhgraph.properties.RedisCodecProperties;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.CacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
 import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
@@ -14,7 +23,7 @@ import org.springframework.data.redis.serializer.StringRedisSerializer;
 public class RedisConfiguration {
 
     @Bean
-    public RedisTemplate redisTemplate(RedisConnectionFactory redisConnectionFactory){
+    public RedisTemplate redisTemplate(RedisConnectionFactory redisConnectionFactory, RedisCodecProperties redisCodecProperties){
         log.info("开始创建redis模板对象...");
         RedisTemplate<String,Object> redisTemplate = new RedisTemplate<>();
 //        // 设置key序列化方式string，RedisSerializer.string() 等价于 new StringRedisSerializer()
@@ -31,6 +40,55 @@ public class RedisConfiguration {
         redisTemplate.setConnectionFactory(redisConnectionFactory);
         // 设置redis key的序列化器
         redisTemplate.setKeySerializer(new StringRedisSerializer());
+        // 设置value的序列化器，按配置的编码方式，读取时兼容JDK序列化的旧值
+        RedisSerializer<Object> valueSerializer = RedisValueCodec.of(redisCodecProperties.getCodec()).serializer();
+        redisTemplate.setValueSerializer(valueSerializer);
+        redisTemplate.setHashKeySerializer(new StringRedisSerializer());
+        redisTemplate.setHashValueSerializer(valueSerializer);
         return redisTemplate;
     }
+
+    /**
+     * 缓存注解使用的redis缓存配置，value编码与redis模板一致
+     * @param redisCodecProperties
+     * @return
+     */
+    @Bean
+    public RedisCacheConfiguration redisCacheConfiguration(RedisCodecProperties redisCodecProperties) {
+        RedisSerializer<Object> valueSerializer = RedisValueCodec.of(redisCodecProperties.getCodec()).serializer();
+        return RedisCacheConfiguration.defaultCacheConfig()
+                .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(valueSerializer));
+    }
+
+    /**
+     * 缓存注解使用的缓存管理器，redis缓存前面加一层本地缓存，修改和删除时广播给所有节点
+     * @param redisConnectionFactory
+     * @param redisCacheConfiguration
+     * @param nearCacheRegistry
+     * @return
+     */
+    @Bean
+    public CacheManager cacheManager(RedisConnectionFactory redisConnectionFactory,
+                                     RedisCacheConfiguration redisCacheConfiguration,
+                                     NearCacheRegistry nearCacheRegistry) {
+        log.info("开始创建两级缓存管理器...");
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder(redisConnectionFactory)
+                .cacheDefaults(redisCacheConfiguration)
+                .build();
+        redisCacheManager.initializeCaches();
+        return new TwoLevelCacheManager(redisCacheManager, nearCacheRegistry);
+    }
+
+    /**
+     * redis消息监听容器，各组件自行注册频道，用于多节点之间广播缓存失效
+     * @param redisConnectionFactory
+     * @return
+     */
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory redisConnectionFactory) {
+        log.info("开始创建redis消息监听容器...");
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(redisConnectionFactory);
+        return container;
+    }
 }
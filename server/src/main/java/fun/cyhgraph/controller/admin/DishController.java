@@ -1,5 +1,7 @@
 package fun.cyhgraph.controller.admin;
 
+import fun.cyhgraph.cache.NearCacheRegistry;
+import fun.cyhgraph.catalog.CatalogSnapshotHolder;
 import fun.cyhgraph.dto.DishDTO;
 import fun.cyhgraph.dto.DishPageDTO;
 import fun.cyhgraph.result.PageResult;
@@ -24,6 +26,10 @@ public class DishController {
     private DishService dishService;
     @Autowired
     private RedisTemplate redisTemplate;
+    @Autowired
+    private CatalogSnapshotHolder catalogSnapshotHolder;
+    @Autowired
+    private NearCacheRegistry nearCacheRegistry;
 
     /**
      * 添加菜品
@@ -113,5 +119,9 @@ public class DishController {
     public void cleanCache(String pattern){
         Set keys = redisTemplate.keys(pattern);
         redisTemplate.delete(keys);
+        // 删除所有节点上的本地菜品缓存，通配符时全部删除
+        nearCacheRegistry.invalidate(NearCacheRegistry.DISH_CACHE, pattern.contains("*") ? null : pattern);
+        // 菜品有变化，重建内存菜单快照
+        catalogSnapshotHolder.refresh();
     }
 }
@@ -1,20 +1,30 @@
 package fun.cyhgraph.controller.admin;
 
+import fun.cyhgraph.constant.MessageConstant;
+import fun.cyhgraph.exception.ReportBusinessException;
+import fun.cyhgraph.report.ReportExportJobManager;
 import fun.cyhgraph.result.Result;
 import fun.cyhgraph.service.ReportService;
+import fun.cyhgraph.vo.CategorySalesTopVO;
+import fun.cyhgraph.vo.OrderCubeVO;
 import fun.cyhgraph.vo.OrderReportVO;
+import fun.cyhgraph.vo.ReportExportJobVO;
 import fun.cyhgraph.vo.SalesTop10ReportVO;
 import fun.cyhgraph.vo.TurnoverReportVO;
 import fun.cyhgraph.vo.UserReportVO;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
-import org.springframework.web.bind.annotation.GetMapping;
-import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.RestController;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
 
 import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
 import java.time.LocalDate;
+import java.util.List;
 
 @RestController
 @RequestMapping("/admin/report")
@@ -23,6 +33,8 @@ public class ReportController {
 
     @Autowired
     private ReportService reportService;
+    @Autowired
+    private ReportExportJobManager reportExportJobManager;
 
     /**
      * 营业额统计
@@ -80,13 +92,130 @@ public class ReportController {
         return Result.success(reportService.getSalesTop10(begin, end));
     }
 
+    /**
+     * 销量TopN统计，可按分类、就餐方式（1外送 2堂食）过滤
+     * @param begin
+     * @param end
+     * @param n
+     * @param categoryId
+     * @param diningType
+     * @return
+     */
+    @GetMapping("/topNStatistics")
+    public Result<SalesTop10ReportVO> topNStatistics(
+            @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate begin,
+            @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate end,
+            @RequestParam(defaultValue = "10") int n,
+            Integer categoryId,
+            Integer diningType) {
+        return Result.success(reportService.getSalesTopN(begin, end, n, categoryId, diningType));
+    }
+
+    /**
+     * 各分类销量TopN统计，可按就餐方式（1外送 2堂食）过滤
+     * @param begin
+     * @param end
+     * @param n
+     * @param diningType
+     * @return
+     */
+    @GetMapping("/categoryTopNStatistics")
+    public Result<List<CategorySalesTopVO>> categoryTopNStatistics(
+            @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate begin,
+            @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate end,
+            @RequestParam(defaultValue = "5") int n,
+            Integer diningType) {
+        return Result.success(reportService.getCategorySalesTopN(begin, end, n, diningType));
+    }
+
+    /**
+     * 订单多维分析，数据来自内存，只包含最近hanye.order-cube.days天的订单
+     * 例如 groupBy=weekday,hour 得到星期×时段热力图，groupBy=day&diningType=2 得到每天堂食订单
+     * @param begin
+     * @param end
+     * @param groupBy 分组维度：hour、weekday、day、diningType、status，多个用逗号分隔，最多2个
+     * @param status 订单状态过滤
+     * @param diningType 就餐方式过滤（1外送 2堂食）
+     * @return
+     */
+    @GetMapping("/cube")
+    public Result<OrderCubeVO> cube(
+            @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate begin,
+            @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate end,
+            String groupBy,
+            Integer status,
+            Integer diningType) {
+        return Result.success(reportService.getOrderCube(begin, end, groupBy, status, diningType));
+    }
+
     /**
      * 导出运营数据报表
-     * 服务端传给客户端的，客户端不传数据过来
+     * 服务端传给客户端的，客户端不传数据过来；不指定日期时导出近30天（不含今天）
+     * @param begin
+     * @param end
      * @param response
+     * @throws IOException
      */
     @GetMapping("/export")
-    public void export(HttpServletResponse response){
-        reportService.exportBusinessData(response);
+    public void export(
+            @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate begin,
+            @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate end,
+            HttpServletResponse response) throws IOException {
+        if (begin == null) {
+            begin = LocalDate.now().minusDays(30);
+        }
+        if (end == null) {
+            end = LocalDate.now().minusDays(1);
+        }
+        log.info("导出运营数据报表：{} 至 {}", begin, end);
+        // 写响应头之前先校验，出错时返回的JSON不会被当成附件下载
+        if (begin.isAfter(end)) {
+            throw new ReportBusinessException(MessageConstant.REPORT_DATE_RANGE_INVALID);
+        }
+        response.setContentType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
+        response.setHeader("Content-Disposition", "attachment; filename=business-" + begin + "-" + end + ".xlsx");
+        reportService.exportBusinessData(begin, end, response.getOutputStream());
+    }
+
+    /**
+     * 提交异步导出任务，返回任务id，相同日期范围正在生成时返回已有任务
+     * @param begin
+     * @param end
+     * @return
+     */
+    @PostMapping("/export-jobs")
+    public Result<ReportExportJobVO> submitExportJob(
+            @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate begin,
+            @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate end) {
+        log.info("提交报表导出任务：{} 至 {}", begin, end);
+        return Result.success(reportExportJobManager.submit(begin, end));
+    }
+
+    /**
+     * 查询导出任务状态
+     * @param jobId
+     * @return
+     */
+    @GetMapping("/export-jobs/{jobId}")
+    public Result<ReportExportJobVO> getExportJob(@PathVariable String jobId) {
+        return Result.success(reportExportJobManager.get(jobId));
+    }
+
+    /**
+     * 下载导出的报表文件，支持Range请求断点续传
+     * @param jobId
+     * @return
+     */
+    @GetMapping("/export-jobs/{jobId}/file")
+    public ResponseEntity<Resource> downloadExportJob(@PathVariable String jobId) {
+        ReportExportJobVO job = reportExportJobManager.get(jobId);
+        Resource file = reportExportJobManager.getFile(jobId);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=business-" + job.getBegin() + "-" + job.getEnd() + ".xlsx")
+                // 同一任务的文件生成后不再变化，任务id可以作为强校验的ETag
+                .eTag(jobId)
+                .body(file);
     }
 }
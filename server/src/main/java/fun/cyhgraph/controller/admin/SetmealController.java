@@ -1,5 +1,6 @@
 package fun.cyhgraph.controller.admin;
 
+import fun.cyhgraph.catalog.CatalogSnapshotHolder;
 import fun.cyhgraph.dto.SetmealDTO;
 import fun.cyhgraph.dto.SetmealPageDTO;
 import fun.cyhgraph.result.PageResult;
@@ -21,6 +22,8 @@ public class SetmealController {
 
     @Autowired
     private SetmealService setmealService;
+    @Autowired
+    private CatalogSnapshotHolder catalogSnapshotHolder;
 
     /**
      * 新增套餐
@@ -32,6 +35,8 @@ public class SetmealController {
     public Result addSetmeal(@RequestBody SetmealDTO setmealDTO){
         log.info("新增套餐的信息：{}", setmealDTO);
         setmealService.addSetmeal(setmealDTO);
+        // 套餐有变化，重建内存菜单快照
+        catalogSnapshotHolder.refresh();
         return Result.success();
     }
 
@@ -69,6 +74,8 @@ public class SetmealController {
     public Result onOff(@PathVariable Integer id){
         log.info("套餐id:{}", id);
         setmealService.onOff(id);
+        // 套餐有变化，重建内存菜单快照
+        catalogSnapshotHolder.refresh();
         return Result.success();
     }
 
@@ -82,6 +89,8 @@ public class SetmealController {
     public Result update(@RequestBody SetmealDTO setmealDTO){
         log.info("修改后的套餐信息：{}", setmealDTO);
         setmealService.update(setmealDTO);
+        // 套餐有变化，重建内存菜单快照
+        catalogSnapshotHolder.refresh();
         return Result.success();
     }
 
@@ -95,6 +104,8 @@ public class SetmealController {
     public Result deleteBatch(@RequestParam List<Integer> ids){
         log.info("批量删除套餐的套餐id集合：{}", ids);
         setmealService.deleteBatch(ids);
+        // 套餐有变化，重建内存菜单快照
+        catalogSnapshotHolder.refresh();
         return Result.success();
     }
 
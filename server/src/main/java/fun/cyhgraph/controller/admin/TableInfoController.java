@@ -3,6 +3,7 @@ package fun.cyhgraph.controller.admin;
 import fun.cyhgraph.dto.TableInfoDTO;
 import fun.cyhgraph.result.Result;
 import fun.cyhgraph.service.TableInfoService;
+import fun.cyhgraph.service.TableStateMachine;
 import fun.cyhgraph.vo.TableInfoVO;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -20,6 +21,8 @@ public class TableInfoController {
 
     @Autowired
     private TableInfoService tableInfoService;
+    @Autowired
+    private TableStateMachine tableStateMachine;
 
     /**
      * 新增餐桌
@@ -117,10 +120,10 @@ public class TableInfoController {
     public Result<String> updateStatus(@PathVariable Long id, @RequestParam Integer status) {
         log.info("修改餐桌状态，id：{}，status：{}", id, status);
         try {
-            TableInfoDTO dto = new TableInfoDTO();
-            dto.setId(id);
-            dto.setStatus(status);
-            tableInfoService.updateTable(dto);
+            // 通过状态机修改，避免覆盖同一时刻用户下单、支付产生的状态变化
+            if (!tableStateMachine.changeStatus(id, status)) {
+                return Result.error("餐桌不存在或状态已变化，请刷新后重试");
+            }
             return Result.success("修改状态成功");
         } catch (Exception e) {
             log.error("修改状态失败", e);
@@ -1,6 +1,7 @@
 package fun.cyhgraph.controller.user;
 
 import fun.cyhgraph.dto.CartDTO;
+import fun.cyhgraph.dto.CartOperationDTO;
 import fun.cyhgraph.entity.Cart;
 import fun.cyhgraph.result.Result;
 import fun.cyhgraph.service.CartService;
@@ -32,6 +33,18 @@ public class CartController {
         return Result.success();
     }
 
+    /**
+     * 批量修改购物车，返回修改后的购物车列表
+     * @param operations
+     * @return
+     */
+    @PostMapping("/batch")
+    public Result<List<Cart>> batch(@RequestBody List<CartOperationDTO> operations){
+        log.info("批量修改购物车：{}", operations);
+        List<Cart> cartList = cartService.batch(operations);
+        return Result.success(cartList);
+    }
+
     @GetMapping("/list")
     public Result<List<Cart>> getList(){
         log.info("拿到当前用户的购物车列表");
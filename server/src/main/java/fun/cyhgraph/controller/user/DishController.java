@@ -1,5 +1,6 @@
 package fun.cyhgraph.controller.user;
 
+import fun.cyhgraph.cache.NearCacheRegistry;
 import fun.cyhgraph.constant.StatusConstant;
 import fun.cyhgraph.entity.Dish;
 import fun.cyhgraph.result.Result;
@@ -24,6 +25,8 @@ public class DishController {
     private DishService dishService;
     @Autowired
     private RedisTemplate redisTemplate;
+    @Autowired
+    private NearCacheRegistry nearCacheRegistry;
 
     /**
      * 根据分类id查询该分类下的所有菜品
@@ -35,11 +38,24 @@ public class DishController {
         log.info("要查询当前的分类categoryId下的所有商品：{}", id);
         // 构造redis中的key，规则：dish_分类id
         String key = "dish_" + id;
+        // 先查本地缓存，没有再查redis和数据库
+        List<DishVO> dishes = (List<DishVO>) nearCacheRegistry.getCache(NearCacheRegistry.DISH_CACHE)
+                .get(key, () -> loadDishList(id, key));
+        return Result.success(dishes);
+    }
+
+    /**
+     * 从redis读取分类下的菜品，redis中没有时查询数据库并写入redis
+     * @param id
+     * @param key
+     * @return
+     */
+    private List<DishVO> loadDishList(Integer id, String key) {
         // 查询redis中是否存在菜品数据
         List<DishVO> dishes = (List<DishVO>) redisTemplate.opsForValue().get(key);
         if (dishes != null && !dishes.isEmpty()) {
             //如果存在，直接返回，无须查询数据库
-            return Result.success(dishes);
+            return dishes;
         }
         // 用户端除了分类条件限制，且只能展示起售中的商品，因此还有status限制
         Dish dish = new Dish();
@@ -48,7 +64,7 @@ public class DishController {
         // 如果不存在，查询数据库，将查询到的数据放入redis中
         dishes = dishService.getDishesWithFlavorById(dish);
         redisTemplate.opsForValue().set(key, dishes);
-        return Result.success(dishes);
+        return dishes;
     }
 
     /**
@@ -77,11 +77,16 @@ public class OrderController {
      * @param page
      * @param pageSize
      * @param status   订单状态 1待付款 2待接单 3已接单 4派送中 5已完成 6已取消
+     * @param cursor   游标分页的游标，上一页返回的nextCursor
      * @return
      */
     @GetMapping("/historyOrders")
-    public Result<PageResult> page(int page, int pageSize, Integer status) {
-        PageResult pageResult = orderService.userPage(page, pageSize, status);
+    public Result<PageResult> page(@RequestParam(defaultValue = "1") int page, int pageSize, Integer status,
+                                   String cursor) {
+        // 传了cursor（第一页传空字符串）按游标分页，否则按页码分页
+        PageResult pageResult = cursor != null
+                ? orderService.userPageByCursor(cursor, pageSize, status)
+                : orderService.userPage(page, pageSize, status);
         return Result.success(pageResult);
     }
 
@@ -2,7 +2,9 @@ package fun.cyhgraph.controller.user;
 
 import fun.cyhgraph.result.Result;
 import fun.cyhgraph.service.UtableIonfoService;
+import fun.cyhgraph.table.TableBoard;
 import fun.cyhgraph.vo.TableInfoVO;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -18,12 +20,19 @@ import java.util.List;
 public class TableController {
     @Autowired
     private UtableIonfoService utableInfoService;
+    @Autowired
+    private TableBoard tableBoard;
+
+    // 餐桌看板版本号响应头，客户端订阅 /ws/table/{sid} 后丢弃版本号不大于它的变化
+    private static final String BOARD_VERSION_HEADER = "X-Table-Board-Version";
 
     /**
      * 获取所有空闲餐桌
      */
     @GetMapping("/available")
-    public Result<List<TableInfoVO>> getAvailableTables() {
+    public Result<List<TableInfoVO>> getAvailableTables(HttpServletResponse response) {
+        // 先取版本号再取数据，数据只可能比版本号新，重复应用变化不影响结果
+        response.setHeader(BOARD_VERSION_HEADER, String.valueOf(tableBoard.getVersion()));
         return utableInfoService.getAvailableTables();
     }
 
@@ -31,7 +40,8 @@ public class TableController {
      * 检查餐桌是否可用
      */
     @GetMapping("/check/{tableId}")
-    public Result<Boolean> checkTableAvailability(@PathVariable Long tableId) {
+    public Result<Boolean> checkTableAvailability(@PathVariable Long tableId, HttpServletResponse response) {
+        response.setHeader(BOARD_VERSION_HEADER, String.valueOf(tableBoard.getVersion()));
         boolean isAvailable = utableInfoService.isTableAvailable(tableId);
         return Result.success(isAvailable);
     }
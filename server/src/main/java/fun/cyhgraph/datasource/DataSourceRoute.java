@@ -0,0 +1,24 @@
+package fun.cyhgraph.datasource;
+
+/**
+ * 当前线程的数据源路由，由ReadOnlyRouteAspect在只读方法执行期间设置
+ */
+public class DataSourceRoute {
+
+    public static final String PRIMARY = "primary";
+    public static final String REPLICA = "replica";
+
+    private static final ThreadLocal<String> ROUTE = new ThreadLocal<>();
+
+    public static String get() {
+        return ROUTE.get();
+    }
+
+    public static void set(String route) {
+        if (route == null) {
+            ROUTE.remove();
+        } else {
+            ROUTE.set(route);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package fun.cyhgraph.datasource;
+
+import fun.cyhgraph.properties.ReplicaDataSourceProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * 定时检查从库复制延迟，连不上、复制停止或延迟超过上限时标记为不可用，只读查询回到主库
+ * 启动后第一次检查通过之前也按不可用处理
+ */
+@Slf4j
+public class ReplicaLagMonitor implements SchedulingConfigurer {
+
+    private final DataSource replicaDataSource;
+    private final ReplicaDataSourceProperties replicaDataSourceProperties;
+
+    private volatile boolean available;
+
+    public ReplicaLagMonitor(DataSource replicaDataSource, ReplicaDataSourceProperties replicaDataSourceProperties) {
+        this.replicaDataSource = replicaDataSource;
+        this.replicaDataSourceProperties = replicaDataSourceProperties;
+    }
+
+    public boolean isAvailable() {
+        return available;
+    }
+
+    /**
+     * 按hanye.datasource.replica.lag-check-interval的间隔检查，间隔直接取Duration配置，支持5s这样的写法
+     * @param taskRegistrar
+     */
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar taskRegistrar) {
+        taskRegistrar.addFixedDelayTask(this::check, replicaDataSourceProperties.getLagCheckInterval());
+    }
+
+    public void check() {
+        Long lagSeconds;
+        try {
+            lagSeconds = queryLagSeconds();
+        } catch (SQLException e) {
+            setAvailable(false, "无法查询从库复制状态：" + e.getMessage());
+            return;
+        }
+        if (lagSeconds == null) {
+            setAvailable(false, "从库复制未运行");
+        } else if (lagSeconds > replicaDataSourceProperties.getMaxLag().getSeconds()) {
+            setAvailable(false, "从库复制延迟" + lagSeconds + "秒");
+        } else {
+            setAvailable(true, "从库复制延迟" + lagSeconds + "秒");
+        }
+    }
+
+    /**
+     * 复制延迟秒数，复制没有运行时返回null
+     * MySQL 8.0.22开始使用SHOW REPLICA STATUS，更早的版本使用SHOW SLAVE STATUS
+     */
+    private Long queryLagSeconds() throws SQLException {
+        try (Connection connection = replicaDataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            ResultSet rs;
+            String lagColumn;
+            try {
+                rs = statement.executeQuery("SHOW REPLICA STATUS");
+                lagColumn = "Seconds_Behind_Source";
+            } catch (SQLException e) {
+                rs = statement.executeQuery("SHOW SLAVE STATUS");
+                lagColumn = "Seconds_Behind_Master";
+            }
+            try (ResultSet result = rs) {
+                if (!result.next()) {
+                    return null;
+                }
+                long lag = result.getLong(lagColumn);
+                return result.wasNull() ? null : lag;
+            }
+        }
+    }
+
+    private void setAvailable(boolean available, String reason) {
+        if (this.available != available) {
+            if (available) {
+                log.info("从库恢复可用，{}", reason);
+            } else {
+                log.warn("从库不可用，只读查询改走主库，{}", reason);
+            }
+        }
+        this.available = available;
+    }
+}
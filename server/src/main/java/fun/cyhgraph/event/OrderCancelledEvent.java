@@ -0,0 +1,22 @@
+package fun.cyhgraph.event;
+
+import fun.cyhgraph.entity.Order;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * 订单取消事件（用户取消、商家取消、拒单、超时取消），事务提交后释放餐桌
+ */
+@Data
+@AllArgsConstructor
+public class OrderCancelledEvent {
+
+    private Order order;
+
+    // 餐桌已在取消订单的事务中处理，监听器不再释放，避免释放掉其他订单刚预订的餐桌
+    private boolean tableHandled;
+
+    public OrderCancelledEvent(Order order) {
+        this(order, false);
+    }
+}
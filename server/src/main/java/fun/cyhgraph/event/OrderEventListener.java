@@ -0,0 +1,156 @@
+package fun.cyhgraph.event;
+
+import com.alibaba.fastjson.JSON;
+import fun.cyhgraph.entity.Order;
+import fun.cyhgraph.mapper.OrderMapper;
+import fun.cyhgraph.mapper.UtableInfoMapper;
+import fun.cyhgraph.properties.OrderTimeoutProperties;
+import fun.cyhgraph.service.TableStateMachine;
+import fun.cyhgraph.timeout.PaymentTimeoutScheduler;
+import fun.cyhgraph.websocket.WebSocketServer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 订单事件监听器
+ * 下单、支付、取消的附带操作在事务提交之后，交给orderEventExecutor线程池异步执行，不占用请求线程的数据库连接
+ */
+@Component
+@Slf4j
+public class OrderEventListener {
+
+    @Autowired
+    private OrderMapper orderMapper;
+    @Autowired
+    private UtableInfoMapper utableInfoMapper;
+    @Autowired
+    private TableStateMachine tableStateMachine;
+    @Autowired
+    private PaymentTimeoutScheduler paymentTimeoutScheduler;
+    @Autowired
+    private OrderTimeoutProperties orderTimeoutProperties;
+    @Autowired
+    private WebSocketServer webSocketServer;
+
+    /**
+     * 下单成功：登记支付截止时间，堂食订单到期时在取消订单的同一事务中把餐桌从已预订改回空闲（餐桌已在下单事务中预订）
+     * 与支付事件在不同线程执行，先后顺序不确定：登记之后再查一次订单状态，已经不是待付款说明支付或取消先处理完了，撤销刚才的登记
+     * @param event
+     */
+    @Async("orderEventExecutor")
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onOrderSubmitted(OrderSubmittedEvent event) {
+        Order order = event.getOrder();
+        try {
+            long orderTime = order.getOrderTime().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            paymentTimeoutScheduler.schedule(order.getId(), orderTime + orderTimeoutProperties.getTimeout().toMillis());
+        } catch (Exception e) {
+            log.error("登记支付超时失败，订单ID: {}", order.getId(), e);
+        }
+
+        Order current = orderMapper.getById(order.getId());
+        if (current == null || !Order.PENDING_PAYMENT.equals(current.getStatus())) {
+            paymentTimeoutScheduler.cancel(order.getId());
+        }
+    }
+
+    /**
+     * 支付成功：堂食订单占用餐桌，给商家端发送来单提醒
+     * @param event
+     */
+    @Async("orderEventExecutor")
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onOrderPaid(OrderPaidEvent event) {
+        Order order = event.getOrder();
+        log.info("支付成功回调处理，订单ID: {}, 就餐方式: {}, 餐桌ID: {}",
+                order.getId(), order.getDiningType(), order.getTableId());
+        paymentTimeoutScheduler.cancel(order.getId());
+
+        if (isDineIn(order)) {
+            occupyTable(order);
+        }
+        sendOrderNotification(order);
+    }
+
+    /**
+     * 订单取消：堂食订单释放餐桌
+     * @param event
+     */
+    @Async("orderEventExecutor")
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onOrderCancelled(OrderCancelledEvent event) {
+        Order order = event.getOrder();
+        paymentTimeoutScheduler.cancel(order.getId());
+        if (isDineIn(order)) {
+            // 超时取消已在事务中处理过餐桌
+            if (event.isTableHandled()) {
+                return;
+            }
+            try {
+                if (tableStateMachine.release(order.getTableId(), order.getId())) {
+                    log.info("订单取消，释放餐桌，tableId: {}", order.getTableId());
+                }
+            } catch (Exception e) {
+                log.error("订单取消释放餐桌失败，tableId: {}", order.getTableId(), e);
+            }
+        }
+    }
+
+    /**
+     * 支付成功后处理餐桌占用
+     */
+    private void occupyTable(Order order) {
+        try {
+            // 本订单预订的 已预订 -> 占用中，或者 空闲 -> 占用中
+            if (tableStateMachine.occupy(order.getTableId(), order.getId())) {
+                log.info("支付成功：餐桌状态更新为占用中，tableId: {}, 订单ID: {}",
+                        order.getTableId(), order.getId());
+                return;
+            }
+            // 状态不允许占用，可能是重复支付、餐桌已被其他订单占用、已停用或不存在
+            log.warn("支付成功：餐桌无法占用，tableId: {}, 当前状态: {}",
+                    order.getTableId(), utableInfoMapper.selectStatusById(order.getTableId()));
+        } catch (Exception e) {
+            log.error("支付成功处理餐桌占用失败，tableId: {}, orderId: {}",
+                    order.getTableId(), order.getId(), e);
+        }
+    }
+
+    /**
+     * 发送订单通知给商家端
+     */
+    private void sendOrderNotification(Order order) {
+        try {
+            Map<String, Object> map = new HashMap<>();
+            map.put("type", 1); // 1表示来单提醒
+            map.put("orderId", order.getId());
+            map.put("content", "订单号：" + order.getNumber());
+
+            // 如果是堂食订单，添加餐桌信息
+            if (Order.DINE_IN.equals(order.getDiningType())) {
+                map.put("diningType", "堂食");
+                map.put("tableNumber", order.getTableNumber());
+            } else {
+                map.put("diningType", "外卖");
+            }
+
+            String json = JSON.toJSONString(map);
+            log.info("发送订单通知给商家端：{}", map);
+            webSocketServer.sendToAllClient(json);
+        } catch (Exception e) {
+            log.error("发送订单通知失败", e);
+        }
+    }
+
+    private boolean isDineIn(Order order) {
+        return Order.DINE_IN.equals(order.getDiningType()) && order.getTableId() != null;
+    }
+}
@@ -0,0 +1,15 @@
+package fun.cyhgraph.event;
+
+import fun.cyhgraph.entity.Order;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * 订单支付成功事件，事务提交后处理餐桌占用和来单提醒
+ */
+@Data
+@AllArgsConstructor
+public class OrderPaidEvent {
+
+    private Order order;
+}
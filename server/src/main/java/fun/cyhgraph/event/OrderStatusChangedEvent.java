@@ -0,0 +1,20 @@
+package fun.cyhgraph.event;
+
+import fun.cyhgraph.entity.Order;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * 订单状态变化事件，每次订单状态变化都发布，事务提交后更新订单统计
+ */
+@Data
+@AllArgsConstructor
+public class OrderStatusChangedEvent {
+
+    private Order order;
+
+    // 变化前的状态，新下单时为null
+    private Integer fromStatus;
+
+    private Integer toStatus;
+}
@@ -0,0 +1,16 @@
+package fun.cyhgraph.event;
+
+import fun.cyhgraph.entity.Order;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * 用户下单成功事件，事务提交后处理餐桌预占和清理购物车
+ */
+@Data
+@AllArgsConstructor
+public class OrderSubmittedEvent {
+
+    private Order order;
+    private Integer userId; // 下单用户id，异步线程中拿不到BaseContext
+}
@@ -0,0 +1,15 @@
+package fun.cyhgraph.event;
+
+import fun.cyhgraph.entity.User;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * 新用户注册事件（微信首次登录），用于更新今日新增用户数
+ */
+@Data
+@AllArgsConstructor
+public class UserRegisteredEvent {
+
+    private User user;
+}
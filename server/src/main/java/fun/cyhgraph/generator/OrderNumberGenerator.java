@@ -0,0 +1,13 @@
+package fun.cyhgraph.generator;
+
+/**
+ * 订单号生成器
+ */
+public interface OrderNumberGenerator {
+
+    /**
+     * 生成一个全局唯一的订单号
+     * @return
+     */
+    String nextNumber();
+}
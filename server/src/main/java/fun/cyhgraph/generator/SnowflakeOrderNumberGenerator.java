@@ -0,0 +1,70 @@
+package fun.cyhgraph.generator;
+
+import fun.cyhgraph.properties.OrderNumberProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 雪花算法订单号生成器
+ * 64位id = 41位毫秒时间戳 + 10位节点id + 12位毫秒内序列号，不访问数据库，也不加锁
+ */
+@Component
+@Slf4j
+public class SnowflakeOrderNumberGenerator implements OrderNumberGenerator {
+
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    public static final long MAX_NODE_ID = ~(-1L << NODE_BITS);
+    private static final long SEQUENCE_MASK = ~(-1L << SEQUENCE_BITS);
+
+    private final long nodeId;
+    private final long epoch;
+
+    // 上一次发号的状态：(时间戳 - epoch) << SEQUENCE_BITS | 序列号，通过CAS更新
+    private final AtomicLong state = new AtomicLong();
+
+    @Autowired
+    public SnowflakeOrderNumberGenerator(OrderNumberProperties orderNumberProperties) {
+        this(orderNumberProperties.getNodeId(), orderNumberProperties.getEpoch());
+    }
+
+    public SnowflakeOrderNumberGenerator(long nodeId, long epoch) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("节点id必须在0~" + MAX_NODE_ID + "之间：" + nodeId);
+        }
+        if (epoch < 0 || epoch > System.currentTimeMillis()) {
+            throw new IllegalArgumentException("起始时间戳不合法：" + epoch);
+        }
+        this.nodeId = nodeId;
+        this.epoch = epoch;
+        log.info("订单号生成器初始化完成，nodeId: {}, epoch: {}", nodeId, epoch);
+    }
+
+    @Override
+    public String nextNumber() {
+        return String.valueOf(nextId());
+    }
+
+    /**
+     * 生成下一个id
+     * 同一毫秒内序列号+1，序列号用完时直接进位到下一毫秒；
+     * 时钟回拨时沿用上次的时间戳继续递增，保证id单调递增不重复
+     * @return
+     */
+    public long nextId() {
+        while (true) {
+            long current = state.get();
+            long lastTimestamp = current >>> SEQUENCE_BITS;
+            long now = System.currentTimeMillis() - epoch;
+            long next = now > lastTimestamp ? now << SEQUENCE_BITS : current + 1;
+            if (state.compareAndSet(current, next)) {
+                long timestamp = next >>> SEQUENCE_BITS;
+                long sequence = next & SEQUENCE_MASK;
+                return (timestamp << (NODE_BITS + SEQUENCE_BITS)) | (nodeId << SEQUENCE_BITS) | sequence;
+            }
+        }
+    }
+}
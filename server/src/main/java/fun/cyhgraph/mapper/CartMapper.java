@@ -2,7 +2,6 @@ package fun.cyhgraph.mapper;
 
 import fun.cyhgraph.entity.Cart;
 import org.apache.ibatis.annotations.Delete;
-import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Update;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -26,15 +25,6 @@ public interface CartMapper {
     @Update("update cart set number = #{number} where id = #{id}")
     void updateNumberById(Cart cart);
 
-    /**
-     * 插入购物车数据
-     *
-     * @param shoppingCart
-     */
-    @Insert("insert into cart (name, user_id, dish_id, setmeal_id, dish_flavor, number, amount, pic, create_time) " +
-            " values (#{name},#{userId},#{dishId},#{setmealId},#{dishFlavor},#{number},#{amount},#{pic},#{createTime})")
-    void insert(Cart shoppingCart);
-
     /**
      * 清空购物车
      * @param currentId
@@ -44,8 +34,26 @@ public interface CartMapper {
 
     void deleteByDishId(Integer dishId, String dishFlavor);
 
+    /**
+     * 根据id删除购物车数据
+     * @param id
+     */
+    @Delete("delete from cart where id = #{id}")
+    void deleteById(Integer id);
+
     @Delete("delete from cart where setmeal_id = #{setmealId} ")
     void deleteBySetmealId(Integer setmealId);
 
-    void insertBatch(List<Cart> cartList);
+    /**
+     * 批量新增或累加数量，依赖唯一索引 uk_cart_user_item(user_id, item_key)
+     * @param cartList number为数量变化
+     */
+    void upsertBatch(List<Cart> cartList);
+
+    /**
+     * 删除数量不大于0的购物车数据
+     * @param userId
+     */
+    @Delete("delete from cart where user_id = #{userId} and number <= 0")
+    void deleteEmpty(Integer userId);
 }
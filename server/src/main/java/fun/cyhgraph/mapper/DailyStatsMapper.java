@@ -0,0 +1,92 @@
+package fun.cyhgraph.mapper;
+
+import fun.cyhgraph.entity.OrderDailyStats;
+import fun.cyhgraph.entity.UserDailyStats;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Select;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Mapper
+public interface DailyStatsMapper {
+
+    /**
+     * 从订单表按下单日期分组汇总，时间区间左闭右开
+     * @param begin
+     * @param end
+     * @return
+     */
+    List<OrderDailyStats> aggregateOrders(LocalDateTime begin, LocalDateTime end);
+
+    /**
+     * 从用户表按注册日期分组汇总，时间区间左闭右开
+     * @param begin
+     * @param end
+     * @return
+     */
+    List<UserDailyStats> aggregateUsers(LocalDateTime begin, LocalDateTime end);
+
+    /**
+     * 批量写入或覆盖订单日汇总
+     * @param statsList
+     */
+    void upsertOrderStats(List<OrderDailyStats> statsList);
+
+    /**
+     * 批量写入或覆盖用户日汇总
+     * @param statsList
+     */
+    void upsertUserStats(List<UserDailyStats> statsList);
+
+    /**
+     * 查询日期区间内的订单日汇总，首尾都包含
+     * @param begin
+     * @param end
+     * @return
+     */
+    @Select("select stat_date, order_count, valid_order_count, turnover from order_daily_stats " +
+            "where stat_date between #{begin} and #{end} order by stat_date")
+    List<OrderDailyStats> listOrderStats(LocalDate begin, LocalDate end);
+
+    /**
+     * 查询日期区间内的用户日汇总，首尾都包含
+     * @param begin
+     * @param end
+     * @return
+     */
+    @Select("select stat_date, new_user_count from user_daily_stats " +
+            "where stat_date between #{begin} and #{end} order by stat_date")
+    List<UserDailyStats> listUserStats(LocalDate begin, LocalDate end);
+
+    /**
+     * 指定日期之前的用户总数，作为区间内累计用户数的起点
+     * @param date
+     * @return
+     */
+    @Select("select coalesce(sum(new_user_count), 0) from user_daily_stats where stat_date < #{date}")
+    Integer sumNewUsersBefore(LocalDate date);
+
+    /**
+     * 订单日汇总已汇总到的最后一天，还没有汇总过返回null
+     * @return
+     */
+    @Select("select max(stat_date) from order_daily_stats")
+    LocalDate getLastOrderStatDate();
+
+    /**
+     * 用户日汇总已汇总到的最后一天，还没有汇总过返回null
+     * @return
+     */
+    @Select("select max(stat_date) from user_daily_stats")
+    LocalDate getLastUserStatDate();
+
+    /**
+     * 最早的下单或注册时间，首次汇总从这一天开始
+     * @return
+     */
+    @Select("select least(coalesce((select min(order_time) from orders), now()), " +
+            "coalesce((select min(create_time) from user), now()))")
+    LocalDateTime getEarliestTime();
+}
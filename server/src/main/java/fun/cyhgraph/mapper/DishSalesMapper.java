@@ -0,0 +1,45 @@
+package fun.cyhgraph.mapper;
+
+import fun.cyhgraph.entity.DishSalesDaily;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Mapper;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Mapper
+public interface DishSalesMapper {
+
+    /**
+     * 从已完成订单的明细按下单日期、商品、就餐方式分组汇总，时间区间左闭右开
+     * @param begin
+     * @param end
+     * @return
+     */
+    List<DishSalesDaily> aggregateFromOrders(LocalDateTime begin, LocalDateTime end);
+
+    /**
+     * 删除日期区间内的日销量，首尾都包含
+     * @param begin
+     * @param end
+     */
+    @Delete("delete from dish_sales_daily where stat_date between #{begin} and #{end}")
+    void deleteByDateRange(LocalDate begin, LocalDate end);
+
+    /**
+     * 批量写入日销量
+     * @param salesList
+     */
+    void insertBatch(List<DishSalesDaily> salesList);
+
+    /**
+     * 日期区间内按商品合并销量，可按分类、就餐方式过滤，首尾都包含
+     * @param begin
+     * @param end
+     * @param categoryId
+     * @param diningType
+     * @return
+     */
+    List<DishSalesDaily> sumByItem(LocalDate begin, LocalDate end, Integer categoryId, Integer diningType);
+}
@@ -13,4 +13,11 @@ public interface OrderDetailMapper {
 
     @Select("select * from order_detail where order_id = #{id}")
     List<OrderDetail> getById(Integer id);
+
+    /**
+     * 批量查询多个订单的明细
+     * @param orderIds
+     * @return
+     */
+    List<OrderDetail> getByOrderIds(List<Integer> orderIds);
 }
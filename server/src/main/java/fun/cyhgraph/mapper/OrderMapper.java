@@ -1,11 +1,10 @@
 package fun.cyhgraph.mapper;
 
 import com.github.pagehelper.Page;
-import fun.cyhgraph.dto.GoodsSalesDTO;
 import fun.cyhgraph.dto.OrderPageDTO;
+import fun.cyhgraph.dto.OrderStatusCountDTO;
 import fun.cyhgraph.entity.Order;
 import org.apache.ibatis.annotations.Mapper;
-import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
 import org.apache.ibatis.annotations.Update;
 
@@ -23,6 +22,20 @@ public interface OrderMapper {
 
     Page<Order> page(OrderPageDTO orderPageDTO);
 
+    /**
+     * 游标分页查询，最多pageSize条
+     * @param orderPageDTO
+     * @return
+     */
+    List<Order> pageByCursor(OrderPageDTO orderPageDTO);
+
+    /**
+     * 按分页查询的条件统计订单数
+     * @param orderPageDTO
+     * @return
+     */
+    Long countByCondition(OrderPageDTO orderPageDTO);
+
     void update(Order order);
 
     /**
@@ -36,12 +49,42 @@ public interface OrderMapper {
             "where id = #{id}")
     void updateStatus(Integer orderStatus, Integer orderPaidStatus, LocalDateTime checkOutTime, Integer id);
 
+    /**
+     * 根据订单号查询订单
+     * @param number
+     * @return
+     */
+    @Select("select * from orders where number = #{number}")
+    Order getByNumber(String number);
+
+    /**
+     * 待付款订单支付成功：只有订单仍处于待付款、未支付状态时才会修改，返回受影响的行数
+     * 受影响行数为0表示订单已经被其他请求支付或取消
+     * @param orderStatus
+     * @param orderPaidStatus
+     * @param payMethod
+     * @param checkOutTime
+     * @param id
+     * @return
+     */
+    @Update("update orders set status = #{orderStatus}, pay_status = #{orderPaidStatus}, pay_method = #{payMethod}, " +
+            "checkout_time = #{checkOutTime} where id = #{id} and status = 1 and pay_status = 0")
+    int updateStatusIfPendingPayment(Integer orderStatus, Integer orderPaidStatus, Integer payMethod,
+                                     LocalDateTime checkOutTime, Integer id);
+
     @Select("select count(id) from orders where user_id = #{userId} and status = 1")
     Integer getUnPayCount(Integer userId);
 
     @Select("select count(id) from orders where status = #{status}")
     Integer countByStatus(Integer status);
 
+    /**
+     * 按状态分组统计订单数，begin不为空时只统计下单时间不早于begin的订单
+     * @param begin
+     * @return
+     */
+    List<OrderStatusCountDTO> countGroupByStatus(LocalDateTime begin);
+
     /**
      * 根据状态和下单时间查询订单
      * @param status
@@ -50,17 +93,52 @@ public interface OrderMapper {
     @Select("select * from orders where status = #{status} and order_time < #{orderTime}")
     List<Order> getByStatusAndOrderTimeLT(Integer status, LocalDateTime orderTime);
 
-    Double sumByMap(Map map);
+    /**
+     * 把下单时间早于orderTime的派送中订单改为已完成，按ID顺序每次最多limit行
+     * @param orderTime
+     * @param limit
+     * @return 受影响行数
+     */
+    @Update("update orders set status = 5 where status = 4 and order_time < #{orderTime} order by id limit #{limit}")
+    int completeDeliveryBefore(LocalDateTime orderTime, int limit);
 
-    Integer countByMap(Map map);
+    /**
+     * 查询给定ID中仍是待付款状态的订单并加行锁，防止取消期间被支付
+     * @param ids
+     * @return
+     */
+    List<Order> getPendingPaymentByIdsForUpdate(List<Integer> ids);
+
+    /**
+     * 批量取消给定ID中仍是待付款状态的订单
+     * @param ids
+     * @param cancelReason
+     * @param cancelTime
+     * @return
+     */
+    int cancelPendingPaymentByIds(List<Integer> ids, String cancelReason, LocalDateTime cancelTime);
 
-    List<GoodsSalesDTO> getSalesTop10(LocalDateTime beginTime, LocalDateTime endTime);
+    /**
+     * 按ID分页查询待付款订单，用于启动时登记支付超时
+     * @param lastId 上一页最后一个订单ID
+     * @param limit
+     * @return
+     */
+    @Select("select id, order_time from orders where status = 1 and id > #{lastId} order by id limit #{limit}")
+    List<Order> getPendingPaymentAfterId(Integer lastId, int limit);
 
-    // 根据餐桌ID查询是否有进行中的订单
-    @Select("SELECT COUNT(*) FROM orders WHERE table_id = #{tableId} AND status IN (1,2,3,4)")
-    Integer countActiveOrdersByTableId(Long tableId);
+    /**
+     * 按id顺序分页查询指定时间之后的订单，只取内存订单分析需要的列
+     * @param lastId 上一页最后一个订单id
+     * @param begin
+     * @param limit
+     * @return
+     */
+    @Select("select id, order_time, amount, status, dining_type, user_id, table_id from orders " +
+            "where id > #{lastId} and order_time >= #{begin} order by id limit #{limit}")
+    List<Order> getCubeRowsAfterId(Integer lastId, LocalDateTime begin, int limit);
+
+    Double sumByMap(Map map);
 
-    // 更新餐桌状态
-    @Update("UPDATE table_info SET status = #{status}, update_time = NOW() WHERE id = #{tableId}")
-    void updateTableStatus(@Param("tableId") Long tableId, @Param("status") Integer status);
+    Integer countByMap(Map map);
 }
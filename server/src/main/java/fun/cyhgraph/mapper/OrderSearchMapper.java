@@ -0,0 +1,26 @@
+package fun.cyhgraph.mapper;
+
+import fun.cyhgraph.search.OrderSearchGram;
+import org.apache.ibatis.annotations.Mapper;
+
+import java.util.List;
+
+@Mapper
+public interface OrderSearchMapper {
+
+    /**
+     * 批量写入订单的三元组索引
+     * @param gramList
+     */
+    void insertBatch(List<OrderSearchGram> gramList);
+
+    /**
+     * 查询包含全部三元组的订单ID，最多limit个
+     * @param field 1订单号 2手机号
+     * @param grams 去重后的三元组
+     * @param gramCount 三元组个数
+     * @param limit
+     * @return
+     */
+    List<Integer> searchOrderIds(Integer field, List<String> grams, int gramCount, int limit);
+}
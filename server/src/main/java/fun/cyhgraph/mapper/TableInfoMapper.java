@@ -17,13 +17,12 @@ public interface TableInfoMapper {
     void insert(TableInfo tableInfo);
 
     /**
-     * 更新餐桌
+     * 更新餐桌，不修改状态，状态变化通过TableStateMachine完成
      */
     @Update("UPDATE table_info SET " +
             "table_number = #{tableNumber}, " +
             "table_name = #{tableName}, " +
             "capacity = #{capacity}, " +
-            "status = #{status}, " +
             "sort = #{sort}, " +
             "update_user = #{updateUser}, " +
             "update_time = #{updateTime} " +
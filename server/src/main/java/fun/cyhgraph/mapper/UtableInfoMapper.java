@@ -25,6 +25,31 @@ public interface UtableInfoMapper {
     @Select("SELECT * FROM table_info WHERE id = #{id}")
     TableInfo selectById(Long id);
 
+    /**
+     * 查询所有餐桌，用于加载餐桌看板
+     */
+    @Select("SELECT * FROM table_info")
+    List<TableInfo> selectAll();
+
     @Update("UPDATE table_info SET status = #{status}, update_time = NOW() WHERE id = #{tableId}")
     void updateStatus(@Param("tableId") Long tableId, @Param("status") Integer status);
+
+    /**
+     * 餐桌状态CAS：只有当前状态为fromStatus时才修改为toStatus，改为空闲或停用时清除餐桌上的订单
+     * @return 受影响行数，1表示修改成功，0表示状态已被其他请求修改或餐桌不存在
+     */
+    @Update("UPDATE table_info SET status = #{toStatus}, order_id = IF(#{toStatus} IN (1, 4), NULL, order_id), " +
+            "update_time = NOW() WHERE id = #{tableId} AND status = #{fromStatus}")
+    int compareAndSetStatus(@Param("tableId") Long tableId, @Param("fromStatus") Integer fromStatus,
+                            @Param("toStatus") Integer toStatus);
+
+    /**
+     * 餐桌状态和订单CAS：只有当前状态为fromStatus、订单为fromOrderId时才修改，订单为null时匹配没有订单的餐桌
+     * @return 受影响行数，1表示修改成功，0表示状态或订单已被其他请求修改或餐桌不存在
+     */
+    @Update("UPDATE table_info SET status = #{toStatus}, order_id = #{toOrderId}, update_time = NOW() " +
+            "WHERE id = #{tableId} AND status = #{fromStatus} AND order_id <=> #{fromOrderId}")
+    int compareAndSetStatusAndOrder(@Param("tableId") Long tableId, @Param("fromStatus") Integer fromStatus,
+                                    @Param("fromOrderId") Integer fromOrderId, @Param("toStatus") Integer toStatus,
+                                    @Param("toOrderId") Integer toOrderId);
 }
@@ -0,0 +1,124 @@
+package fun.cyhgraph.report;
+
+import fun.cyhgraph.properties.ReplicaDataSourceProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * 报表历史数据缓存，按(报表类型, 开始日期, 结束日期, 其他条件)缓存
+ * 只缓存今天以前的部分：过去的日期汇总完成后不再变化，缓存不设过期时间，按最近使用淘汰；
+ * 日汇总重新写入某些日期时（隔天取消、退款、凌晨批量完成），删除与这些日期有交集的缓存，并通过redis广播给其他节点
+ */
+@Component
+@Slf4j
+public class ReportCache {
+
+    private static final String INVALIDATE_CHANNEL = "report_cache_invalidate";
+    private static final int MAX_ENTRIES = 1000;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+    @Autowired
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+    @Autowired
+    private ReplicaDataSourceProperties replicaDataSourceProperties;
+
+    private final Map<Key, Object> cache = new LinkedHashMap<Key, Object>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Object> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+    // 每次失效加1，查询期间发生失效的结果不放入缓存
+    private long generation;
+    // 最近一次失效的时间，开启读写分离时失效后从库延迟范围内查到的结果可能是旧数据，不放入缓存
+    private long lastInvalidateMillis;
+
+    @PostConstruct
+    public void init() {
+        redisMessageListenerContainer.addMessageListener((message, pattern) -> {
+            String[] range = new String(message.getBody()).split("~");
+            invalidateLocal(LocalDate.parse(range[0]), LocalDate.parse(range[1]));
+        }, new ChannelTopic(INVALIDATE_CHANNEL));
+    }
+
+    /**
+     * 读取缓存，没有时调用loader计算并放入缓存
+     * @param type 报表类型
+     * @param begin 数据涉及的第一天
+     * @param end 数据涉及的最后一天，必须早于今天
+     * @param condition 其他查询条件，没有时传null
+     * @param loader
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(String type, LocalDate begin, LocalDate end, String condition, Supplier<T> loader) {
+        Key key = new Key(type, begin, end, condition);
+        long loadGeneration;
+        synchronized (cache) {
+            Object value = cache.get(key);
+            if (value != null) {
+                return (T) value;
+            }
+            loadGeneration = generation;
+        }
+        T value = loader.get();
+        synchronized (cache) {
+            if (value != null && loadGeneration == generation
+                    && System.currentTimeMillis() - lastInvalidateMillis >= quietMillis()) {
+                cache.put(key, value);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * 日期区间内的汇总数据发生变化，删除本节点和其他节点上与之有交集的缓存
+     * @param begin
+     * @param end
+     */
+    public void invalidate(LocalDate begin, LocalDate end) {
+        invalidateLocal(begin, end);
+        try {
+            stringRedisTemplate.convertAndSend(INVALIDATE_CHANNEL, begin + "~" + end);
+        } catch (Exception e) {
+            // 广播失败时其他节点可能读到旧数据，直到缓存被淘汰或下一次失效
+            log.warn("广播报表缓存失效失败：{} 至 {}", begin, end, e);
+        }
+    }
+
+    private void invalidateLocal(LocalDate begin, LocalDate end) {
+        int removed = 0;
+        synchronized (cache) {
+            generation++;
+            lastInvalidateMillis = System.currentTimeMillis();
+            Iterator<Key> iterator = cache.keySet().iterator();
+            while (iterator.hasNext()) {
+                Key key = iterator.next();
+                if (!key.begin.isAfter(end) && !key.end.isBefore(begin)) {
+                    iterator.remove();
+                    removed++;
+                }
+            }
+        }
+        log.info("报表缓存失效：{} 至 {}，删除 {} 条", begin, end, removed);
+    }
+
+    private long quietMillis() {
+        return replicaDataSourceProperties.isEnabled() ? replicaDataSourceProperties.getMaxLag().toMillis() : 0;
+    }
+
+    private record Key(String type, LocalDate begin, LocalDate end, String condition) {
+    }
+}
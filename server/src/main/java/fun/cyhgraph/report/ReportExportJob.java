@@ -0,0 +1,54 @@
+package fun.cyhgraph.report;
+
+import fun.cyhgraph.vo.ReportExportJobVO;
+import lombok.Data;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 报表导出任务，提交线程创建，导出线程更新状态，查询线程读取
+ */
+@Data
+public class ReportExportJob {
+
+    /**
+     * 任务状态 1排队中 2生成中 3已完成 4失败
+     */
+    public static final Integer WAITING = 1;
+    public static final Integer RUNNING = 2;
+    public static final Integer DONE = 3;
+    public static final Integer FAILED = 4;
+
+    private final String jobId;
+    private final LocalDate begin;
+    private final LocalDate end;
+    private final LocalDateTime createTime = LocalDateTime.now();
+
+    private volatile Integer status = WAITING;
+    private volatile Path file;
+    private volatile Long fileSize;
+    private volatile String errorMsg;
+    private volatile LocalDateTime finishTime;
+
+    /**
+     * 相同日期范围的任务共用一个key，用于合并进行中的重复提交
+     */
+    public String getKey() {
+        return begin + "~" + end;
+    }
+
+    public ReportExportJobVO toVO() {
+        return ReportExportJobVO.builder()
+                .jobId(jobId)
+                .begin(begin)
+                .end(end)
+                .status(status)
+                .fileSize(fileSize)
+                .errorMsg(errorMsg)
+                .createTime(createTime)
+                .finishTime(finishTime)
+                .build();
+    }
+}
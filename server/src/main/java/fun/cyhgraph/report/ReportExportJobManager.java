@@ -0,0 +1,185 @@
+package fun.cyhgraph.report;
+
+import fun.cyhgraph.constant.MessageConstant;
+import fun.cyhgraph.exception.ReportBusinessException;
+import fun.cyhgraph.properties.ReportExportProperties;
+import fun.cyhgraph.service.ReportService;
+import fun.cyhgraph.vo.ReportExportJobVO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 异步报表导出
+ * 提交后立即返回任务id，由有界线程池把报表写到本地暂存目录，前端轮询状态后下载，下载支持Range断点续传；
+ * 同一日期范围正在排队或生成的任务直接复用，结束超过保留时间的任务和文件定时清理
+ * 任务只记录在本节点内存中，多节点部署时查询和下载需要落到提交任务的节点
+ */
+@Component
+@Slf4j
+public class ReportExportJobManager {
+
+    @Autowired
+    private ReportService reportService;
+    @Autowired
+    private ReportExportProperties reportExportProperties;
+    @Autowired
+    private ThreadPoolTaskExecutor reportExportExecutor;
+
+    private final Map<String, ReportExportJob> jobs = new ConcurrentHashMap<>();
+    // 日期范围 -> 进行中的任务id
+    private final Map<String, String> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * 提交导出任务，相同日期范围已有进行中的任务时直接返回该任务
+     * @param begin
+     * @param end
+     * @return
+     */
+    public synchronized ReportExportJobVO submit(LocalDate begin, LocalDate end) {
+        if (begin == null || end == null || begin.isAfter(end)) {
+            throw new ReportBusinessException(MessageConstant.REPORT_DATE_RANGE_INVALID);
+        }
+        ReportExportJob job = new ReportExportJob(UUID.randomUUID().toString().replace("-", ""), begin, end);
+        String runningId = inFlight.get(job.getKey());
+        if (runningId != null && jobs.containsKey(runningId)) {
+            return jobs.get(runningId).toVO();
+        }
+        jobs.put(job.getJobId(), job);
+        inFlight.put(job.getKey(), job.getJobId());
+        try {
+            reportExportExecutor.execute(() -> run(job));
+        } catch (TaskRejectedException e) {
+            jobs.remove(job.getJobId());
+            inFlight.remove(job.getKey(), job.getJobId());
+            throw new ReportBusinessException(MessageConstant.REPORT_EXPORT_BUSY);
+        }
+        log.info("提交报表导出任务：{}，{} 至 {}", job.getJobId(), begin, end);
+        return job.toVO();
+    }
+
+    /**
+     * 查询导出任务
+     * @param jobId
+     * @return
+     */
+    public ReportExportJobVO get(String jobId) {
+        return getJob(jobId).toVO();
+    }
+
+    /**
+     * 已生成完成的报表文件
+     * @param jobId
+     * @return
+     */
+    public Resource getFile(String jobId) {
+        ReportExportJob job = getJob(jobId);
+        if (!ReportExportJob.DONE.equals(job.getStatus())) {
+            throw new ReportBusinessException(MessageConstant.REPORT_EXPORT_NOT_READY);
+        }
+        return new FileSystemResource(job.getFile());
+    }
+
+    /**
+     * 启动时创建暂存目录，删掉上次运行留下的文件（任务只在内存中，重启后已无法下载）
+     * @throws IOException
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void init() throws IOException {
+        Path dir = stagingDir();
+        Files.createDirectories(dir);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+            for (Path file : files) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    /**
+     * 清理结束超过保留时间的任务和文件
+     */
+    @Scheduled(fixedDelay = 600000, initialDelay = 600000)
+    public void cleanExpired() {
+        LocalDateTime expireTime = LocalDateTime.now().minus(reportExportProperties.getFileTtl());
+        Iterator<ReportExportJob> iterator = jobs.values().iterator();
+        while (iterator.hasNext()) {
+            ReportExportJob job = iterator.next();
+            if (job.getFinishTime() != null && job.getFinishTime().isBefore(expireTime)) {
+                iterator.remove();
+                if (job.getFile() != null) {
+                    try {
+                        Files.deleteIfExists(job.getFile());
+                    } catch (IOException e) {
+                        log.warn("删除过期报表文件失败：{}", job.getFile(), e);
+                    }
+                }
+                log.info("清理过期报表导出任务：{}", job.getJobId());
+            }
+        }
+    }
+
+    /**
+     * 生成报表：先写临时文件，写完后改名，下载时不会读到写了一半的文件
+     */
+    private void run(ReportExportJob job) {
+        job.setStatus(ReportExportJob.RUNNING);
+        Path part = stagingDir().resolve(job.getJobId() + ".xlsx.part");
+        Path file = stagingDir().resolve(job.getJobId() + ".xlsx");
+        try {
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(part))) {
+                reportService.exportBusinessData(job.getBegin(), job.getEnd(), out);
+            }
+            Files.move(part, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            job.setFile(file);
+            job.setFileSize(Files.size(file));
+            job.setStatus(ReportExportJob.DONE);
+            log.info("报表导出任务完成：{}，文件大小：{}", job.getJobId(), job.getFileSize());
+        } catch (Exception e) {
+            log.error("报表导出任务失败：{}", job.getJobId(), e);
+            job.setErrorMsg(e.getMessage());
+            job.setStatus(ReportExportJob.FAILED);
+            try {
+                Files.deleteIfExists(part);
+            } catch (IOException ex) {
+                log.warn("删除报表临时文件失败：{}", part, ex);
+            }
+        } finally {
+            job.setFinishTime(LocalDateTime.now());
+            inFlight.remove(job.getKey(), job.getJobId());
+        }
+    }
+
+    private ReportExportJob getJob(String jobId) {
+        ReportExportJob job = jobs.get(jobId);
+        if (job == null) {
+            throw new ReportBusinessException(MessageConstant.REPORT_EXPORT_JOB_NOT_FOUND);
+        }
+        return job;
+    }
+
+    private Path stagingDir() {
+        return Paths.get(reportExportProperties.getStagingDir());
+    }
+}
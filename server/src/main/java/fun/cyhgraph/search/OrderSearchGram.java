@@ -0,0 +1,16 @@
+package fun.cyhgraph.search;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * 订单搜索三元组索引的一行
+ */
+@Data
+@AllArgsConstructor
+public class OrderSearchGram {
+
+    private Integer field; // 1订单号 2手机号
+    private String gram; // 连续3个字符
+    private Integer orderId;
+}
@@ -0,0 +1,102 @@
+package fun.cyhgraph.search;
+
+import fun.cyhgraph.entity.Order;
+import fun.cyhgraph.mapper.OrderSearchMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * 订单号、手机号子串搜索索引
+ * 下单时把订单号和手机号拆成连续3个字符的三元组写入 order_search_gram，
+ * 搜索时找出包含关键字全部三元组的订单ID，再交给分页查询用 id in (...) 过滤，like 只在这些订单上校验
+ * 关键字不足3个字符或命中的订单过多时返回null，由分页查询按原来的 like 处理
+ */
+@Component
+@Slf4j
+public class OrderSearchIndex {
+
+    public static final Integer FIELD_NUMBER = 1;
+    public static final Integer FIELD_PHONE = 2;
+
+    private static final int GRAM_LENGTH = 3;
+    // 候选订单ID上限，超过说明关键字区分度太低，走 like 更合适
+    private static final int MAX_CANDIDATES = 5000;
+
+    @Autowired
+    private OrderSearchMapper orderSearchMapper;
+
+    /**
+     * 写入订单的索引，和订单在同一事务中
+     * @param order
+     */
+    public void index(Order order) {
+        List<OrderSearchGram> gramList = new ArrayList<>();
+        for (String gram : grams(order.getNumber())) {
+            gramList.add(new OrderSearchGram(FIELD_NUMBER, gram, order.getId()));
+        }
+        for (String gram : grams(order.getPhone())) {
+            gramList.add(new OrderSearchGram(FIELD_PHONE, gram, order.getId()));
+        }
+        if (!gramList.isEmpty()) {
+            orderSearchMapper.insertBatch(gramList);
+        }
+    }
+
+    /**
+     * 按订单号、手机号关键字查询候选订单ID，两个都传时取交集
+     * @param number
+     * @param phone
+     * @return 候选订单ID；null表示索引无法使用
+     */
+    public List<Integer> search(String number, String phone) {
+        List<Integer> ids = null;
+        if (number != null && !number.isEmpty()) {
+            ids = search(FIELD_NUMBER, number);
+            if (ids == null) {
+                return null;
+            }
+        }
+        if (phone != null && !phone.isEmpty()) {
+            List<Integer> phoneIds = search(FIELD_PHONE, phone);
+            if (phoneIds == null) {
+                return null;
+            }
+            if (ids == null) {
+                ids = phoneIds;
+            } else {
+                ids.retainAll(new HashSet<>(phoneIds));
+            }
+        }
+        return ids;
+    }
+
+    private List<Integer> search(Integer field, String keyword) {
+        Set<String> grams = grams(keyword);
+        if (grams.isEmpty()) {
+            return null;
+        }
+        List<Integer> ids = orderSearchMapper.searchOrderIds(field, new ArrayList<>(grams), grams.size(), MAX_CANDIDATES + 1);
+        if (ids.size() > MAX_CANDIDATES) {
+            log.info("订单搜索关键字命中过多，改用like查询，keyword: {}", keyword);
+            return null;
+        }
+        return new ArrayList<>(ids);
+    }
+
+    /**
+     * 拆分为去重后的三元组，不足3个字符返回空集合
+     */
+    private Set<String> grams(String value) {
+        if (value == null || value.length() < GRAM_LENGTH) {
+            return Collections.emptySet();
+        }
+        Set<String> grams = new LinkedHashSet<>();
+        for (int i = 0; i + GRAM_LENGTH <= value.length(); i++) {
+            grams.add(value.substring(i, i + GRAM_LENGTH));
+        }
+        return grams;
+    }
+}
@@ -1,6 +1,7 @@
 package fun.cyhgraph.service;
 
 import fun.cyhgraph.dto.CartDTO;
+import fun.cyhgraph.dto.CartOperationDTO;
 import fun.cyhgraph.entity.Cart;
 
 import java.util.List;
@@ -13,4 +14,6 @@ public interface CartService {
     void clean();
 
     void sub(CartDTO cartDTO);
+
+    List<Cart> batch(List<CartOperationDTO> operations);
 }
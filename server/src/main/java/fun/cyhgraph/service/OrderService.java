@@ -7,6 +7,8 @@ import fun.cyhgraph.vo.OrderStatisticsVO;
 import fun.cyhgraph.vo.OrderSubmitVO;
 import fun.cyhgraph.vo.OrderVO;
 
+import java.util.List;
+
 public interface OrderService {
     OrderSubmitVO submit(OrderSubmitDTO orderSubmitDTO);
 
@@ -16,8 +18,12 @@ public interface OrderService {
 
     PageResult userPage(int page, int pageSize, Integer status);
 
+    PageResult userPageByCursor(String cursor, int pageSize, Integer status);
+
     void userCancelById(Integer id) throws Exception;
 
+    List<Integer> cancelUnpaidOrders(List<Integer> ids, String cancelReason);
+
     void reOrder(Integer id);
 
     OrderPaymentVO payment(OrderPaymentDTO orderPaymentDTO);
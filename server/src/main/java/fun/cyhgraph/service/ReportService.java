@@ -1,12 +1,16 @@
 package fun.cyhgraph.service;
 
+import fun.cyhgraph.vo.CategorySalesTopVO;
+import fun.cyhgraph.vo.OrderCubeVO;
 import fun.cyhgraph.vo.OrderReportVO;
 import fun.cyhgraph.vo.SalesTop10ReportVO;
 import fun.cyhgraph.vo.TurnoverReportVO;
 import fun.cyhgraph.vo.UserReportVO;
 
-import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDate;
+import java.util.List;
 
 public interface ReportService {
     TurnoverReportVO getTurnover(LocalDate begin, LocalDate end);
@@ -17,5 +21,11 @@ public interface ReportService {
 
     SalesTop10ReportVO getSalesTop10(LocalDate begin, LocalDate end);
 
-    void exportBusinessData(HttpServletResponse response);
+    SalesTop10ReportVO getSalesTopN(LocalDate begin, LocalDate end, int n, Integer categoryId, Integer diningType);
+
+    List<CategorySalesTopVO> getCategorySalesTopN(LocalDate begin, LocalDate end, int n, Integer diningType);
+
+    OrderCubeVO getOrderCube(LocalDate begin, LocalDate end, String groupBy, Integer status, Integer diningType);
+
+    void exportBusinessData(LocalDate begin, LocalDate end, OutputStream out) throws IOException;
 }
@@ -13,7 +13,7 @@ public interface TableManagementService {
     /**
      * 释放餐桌（订单完成或取消时）
      */
-    boolean releaseTable(Long tableId);
+    boolean releaseTable(Long tableId, Integer orderId);
 
     /**
      * 获取可用餐桌列表
@@ -0,0 +1,52 @@
+package fun.cyhgraph.service;
+
+/**
+ * 餐桌状态机，所有餐桌状态变化都通过这里完成
+ * 空闲 -> 已预订 -> 占用中 -> 空闲，空闲 <-> 停用
+ * 每次状态变化都是一条带原状态条件的update，返回是否修改成功
+ * 已预订、占用中的餐桌记录持有它的订单id，订单只能占用、释放自己预订或占用的餐桌
+ */
+public interface TableStateMachine {
+
+    /**
+     * 预订餐桌：空闲 -> 已预订，记录预订的订单
+     */
+    boolean reserve(Long tableId, Integer orderId);
+
+    /**
+     * 占用餐桌：该订单预订的 已预订 -> 占用中，或者 空闲 -> 占用中
+     */
+    boolean occupy(Long tableId, Integer orderId);
+
+    /**
+     * 释放餐桌：该订单占用或预订的 占用中/已预订 -> 空闲
+     */
+    boolean release(Long tableId, Integer orderId);
+
+    /**
+     * 取消预订：该订单预订的 已预订 -> 空闲
+     */
+    boolean cancelReservation(Long tableId, Integer orderId);
+
+    /**
+     * 停用餐桌：空闲 -> 停用
+     */
+    boolean disable(Long tableId);
+
+    /**
+     * 启用餐桌：停用 -> 空闲
+     */
+    boolean enable(Long tableId);
+
+    /**
+     * 管理端手动修改餐桌状态：从当前状态修改为目标状态，期间状态被其他请求修改则失败
+     * 改为空闲或停用时清除餐桌上的订单
+     */
+    boolean changeStatus(Long tableId, Integer toStatus);
+
+    /**
+     * 管理端编辑餐桌时修改状态：餐桌仍是读取时的状态和订单才修改，否则失败
+     * 改为空闲或停用时清除餐桌上的订单，其他状态保留原订单
+     */
+    boolean changeStatus(Long tableId, Integer fromStatus, Integer fromOrderId, Integer toStatus);
+}
@@ -1,100 +1,135 @@
 package fun.cyhgraph.service.serviceImpl;
 
+import fun.cyhgraph.catalog.CatalogItem;
+import fun.cyhgraph.catalog.CatalogSnapshotHolder;
+import fun.cyhgraph.constant.MessageConstant;
 import fun.cyhgraph.context.BaseContext;
 import fun.cyhgraph.dto.CartDTO;
+import fun.cyhgraph.dto.CartOperationDTO;
 import fun.cyhgraph.entity.Cart;
-import fun.cyhgraph.entity.Dish;
-import fun.cyhgraph.entity.Setmeal;
-import fun.cyhgraph.mapper.CartMapper;
-import fun.cyhgraph.mapper.DishMapper;
-import fun.cyhgraph.mapper.SetmealMapper;
+import fun.cyhgraph.exception.ShoppingCartBusinessException;
 import fun.cyhgraph.service.CartService;
+import fun.cyhgraph.store.CartStore;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 @Service
 public class CartServiceImpl implements CartService {
 
     @Autowired
-    private CartMapper cartMapper;
+    private CartStore cartStore;
     @Autowired
-    private DishMapper dishMapper;
-    @Autowired
-    private SetmealMapper setmealMapper;
+    private CatalogSnapshotHolder catalogSnapshotHolder;
 
     /**
-     * 添加进购物车
+     * 添加进购物车，名称、图片、单价从内存菜单快照中获取
      *
      * @param cartDTO
      */
     public void add(CartDTO cartDTO) {
         // cart表示当前用户要加入购物车的一条数据
+        Integer userId = BaseContext.getCurrentId();
         Cart cart = new Cart();
         BeanUtils.copyProperties(cartDTO, cart);
-        cart.setUserId(BaseContext.getCurrentId());
-        // 查询该用户自己购物车的所有菜品和套餐，看看有没有和要加入的cart一样的？
-        List<Cart> cartList = cartMapper.list(cart);
-        // 1、存在，无需再insert，直接数量+1就行
-        if (cartList != null && cartList.size() == 1) {
-            cart = cartList.get(0);
-            cart.setNumber(cart.getNumber() + 1);
-            cartMapper.updateNumberById(cart);
+        // 菜品/套餐必须存在且起售中
+        CatalogItem item = getOnSaleItem(cart);
+        // 1、购物车中已存在，直接数量+1就行
+        if (cartStore.increment(userId, cart)) {
+            return;
         }
         // 2、不存在，需要新增（菜品/套餐），数量为1
-        else {
-            // 判断当前添加到购物车的是菜品还是套餐
-            Integer dishId = cartDTO.getDishId();
-            if (dishId != null) {
-                // 添加到购物车的是菜品
-                Dish dish = dishMapper.getById(dishId);
-                cart.setName(dish.getName());
-                cart.setPic(dish.getPic());
-                cart.setAmount(dish.getPrice());
-            } else {
-                // 添加到购物车的是套餐
-                Setmeal setmeal = setmealMapper.getSetmealById(cartDTO.getSetmealId());
-                cart.setName(setmeal.getName());
-                cart.setPic(setmeal.getPic());
-                cart.setAmount(setmeal.getPrice());
-            }
-            cart.setNumber(1);
-            cart.setCreateTime(LocalDateTime.now());
-            cartMapper.insert(cart);
-        }
+        fillItemInfo(cart, item);
+        cart.setNumber(1);
+        cart.setCreateTime(LocalDateTime.now());
+        cartStore.insert(userId, cart);
     }
 
     /**
-     * 在购物车中的对应菜品/套餐数量减一
+     * 在购物车中的对应菜品/套餐数量减一，减到0时删除
      *
      * @param cartDTO
      */
     public void sub(CartDTO cartDTO) {
-        // cart表示当前用户要减少购物车菜品/套餐数量的一条数据
         Cart cart = new Cart();
         BeanUtils.copyProperties(cartDTO, cart);
-        cart.setUserId(BaseContext.getCurrentId());
-        // 查询该菜品/套餐详细信息（必有，而且只有一条）
-        List<Cart> cartList = cartMapper.list(cart);
-        cart = cartList.get(0);
-        // 1、数量-1后为0，直接把这条记录删除
-        if (cart.getNumber() == 1) {
-            if (cart.getDishId() != null) {
-                // 不能只根据dishId删除，还要考虑到一个菜品可能用户选择了多个口味，对应多个菜品
-                cartMapper.deleteByDishId(cart.getDishId(), cart.getDishFlavor());
-            } else {
-                cartMapper.deleteBySetmealId(cart.getSetmealId());
+        cartStore.decrement(BaseContext.getCurrentId(), cart);
+    }
+
+    /**
+     * 批量修改购物车，一次请求完成多次加减操作，返回修改后的购物车
+     *
+     * @param operations
+     * @return
+     */
+    @Transactional
+    public List<Cart> batch(List<CartOperationDTO> operations) {
+        Integer userId = BaseContext.getCurrentId();
+        // 同一商品的多次操作先合并成一次数量变化
+        Map<String, Cart> merged = new LinkedHashMap<>();
+        for (CartOperationDTO operation : operations) {
+            if (operation.getDishId() == null && operation.getSetmealId() == null) {
+                throw new ShoppingCartBusinessException(MessageConstant.CART_ITEM_INVALID);
+            }
+            if (operation.getDelta() == null || operation.getDelta() == 0) {
+                continue;
             }
+            String itemKey = operation.getDishId() != null
+                    ? "d" + operation.getDishId() + ":" + operation.getDishFlavor()
+                    : "s" + operation.getSetmealId();
+            Cart cart = merged.computeIfAbsent(itemKey, k -> Cart.builder()
+                    .dishId(operation.getDishId())
+                    .setmealId(operation.getDishId() != null ? null : operation.getSetmealId())
+                    .dishFlavor(operation.getDishId() != null ? operation.getDishFlavor() : null)
+                    .number(0)
+                    .build());
+            cart.setNumber(cart.getNumber() + operation.getDelta());
         }
-        // 2、直接数量-1就行
-        else {
-            cart.setNumber(cart.getNumber() - 1);
-            cartMapper.updateNumberById(cart);
+        List<Cart> cartList = merged.values().stream().filter(c -> c.getNumber() != 0).toList();
+        if (!cartList.isEmpty()) {
+            LocalDateTime now = LocalDateTime.now();
+            for (Cart cart : cartList) {
+                // 只有增加数量时要求商品起售中，已下架的商品仍然可以从购物车中减掉
+                CatalogItem item = cart.getNumber() > 0
+                        ? getOnSaleItem(cart)
+                        : catalogSnapshotHolder.current().getItem(cart.getDishId(), cart.getSetmealId());
+                if (item != null) {
+                    fillItemInfo(cart, item);
+                }
+                cart.setCreateTime(now);
+            }
+            cartStore.applyBatch(userId, cartList);
+        }
+        return cartStore.list(userId);
+    }
+
+    /**
+     * 从菜单快照中查询起售中的菜品/套餐
+     */
+    private CatalogItem getOnSaleItem(Cart cart) {
+        CatalogItem item = catalogSnapshotHolder.current().getItem(cart.getDishId(), cart.getSetmealId());
+        if (item == null) {
+            throw new ShoppingCartBusinessException(MessageConstant.CART_ITEM_INVALID);
+        }
+        if (!item.isOnSale()) {
+            throw new ShoppingCartBusinessException(MessageConstant.ITEM_OFF_SALE);
         }
+        return item;
+    }
 
+    /**
+     * 为购物车商品补充名称、图片、单价
+     */
+    private void fillItemInfo(Cart cart, CatalogItem item) {
+        cart.setName(item.name());
+        cart.setPic(item.pic());
+        cart.setAmount(item.price());
     }
 
     /**
@@ -103,16 +138,14 @@ public class CartServiceImpl implements CartService {
      * @return
      */
     public List<Cart> getList() {
-        return cartMapper.list(Cart.builder().
-                userId(BaseContext.getCurrentId()).
-                build());
+        return cartStore.list(BaseContext.getCurrentId());
     }
 
     /**
      * 根据userid，清空其购物车
      */
     public void clean() {
-        cartMapper.delete(BaseContext.getCurrentId());
+        cartStore.clear(BaseContext.getCurrentId());
     }
 
 }
@@ -2,6 +2,7 @@ package fun.cyhgraph.service.serviceImpl;
 
 import com.github.pagehelper.Page;
 import com.github.pagehelper.PageHelper;
+import fun.cyhgraph.annotation.ReadOnlyRoute;
 import fun.cyhgraph.dto.CategoryDTO;
 import fun.cyhgraph.dto.CategoryTypePageDTO;
 import fun.cyhgraph.entity.Category;
@@ -46,6 +47,7 @@ public class CategoryServiceImpl implements CategoryService {
      * 获取所有分类列表
      * @return
      */
+    @ReadOnlyRoute
     public List<Category> getList(Integer type) {
         List<Category> categoryList = categoryMapper.getList(type);
         return categoryList;
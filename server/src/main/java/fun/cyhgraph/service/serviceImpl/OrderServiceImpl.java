@@ -5,16 +5,31 @@ import com.alibaba.fastjson.JSONArray;
 import com.alibaba.fastjson.JSONObject;
 import com.github.pagehelper.Page;
 import com.github.pagehelper.PageHelper;
+import fun.cyhgraph.assembler.OrderAssembler;
+import fun.cyhgraph.catalog.CatalogItem;
+import fun.cyhgraph.catalog.CatalogSnapshot;
+import fun.cyhgraph.catalog.CatalogSnapshotHolder;
 import fun.cyhgraph.constant.MessageConstant;
+import fun.cyhgraph.constant.TableStatusConstant;
 import fun.cyhgraph.context.BaseContext;
 import fun.cyhgraph.dto.*;
 import fun.cyhgraph.entity.*;
+import fun.cyhgraph.event.OrderCancelledEvent;
+import fun.cyhgraph.event.OrderPaidEvent;
+import fun.cyhgraph.event.OrderStatusChangedEvent;
+import fun.cyhgraph.event.OrderSubmittedEvent;
 import fun.cyhgraph.exception.AddressBookBusinessException;
 import fun.cyhgraph.exception.OrderBusinessException;
 import fun.cyhgraph.exception.ShoppingCartBusinessException;
+import fun.cyhgraph.generator.OrderNumberGenerator;
 import fun.cyhgraph.mapper.*;
+import fun.cyhgraph.result.OrderCursor;
 import fun.cyhgraph.result.PageResult;
+import fun.cyhgraph.search.OrderSearchIndex;
 import fun.cyhgraph.service.OrderService;
+import fun.cyhgraph.stats.OrderStatusCounters;
+import fun.cyhgraph.service.TableStateMachine;
+import fun.cyhgraph.store.CartStore;
 import fun.cyhgraph.utils.HttpClientUtil;
 import fun.cyhgraph.utils.WeChatPayUtil;
 import fun.cyhgraph.vo.OrderPaymentVO;
@@ -26,6 +41,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.CollectionUtils;
@@ -33,6 +49,7 @@ import org.springframework.util.CollectionUtils;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -44,20 +61,30 @@ public class OrderServiceImpl implements OrderService {
     @Autowired
     private OrderDetailMapper orderDetailMapper;
     @Autowired
-    private CartMapper cartMapper;
+    private OrderAssembler orderAssembler;
+    @Autowired
+    private OrderSearchIndex orderSearchIndex;
+    @Autowired
+    private OrderStatusCounters orderStatusCounters;
+    @Autowired
+    private CartStore cartStore;
     @Autowired
     private AddressBookMapper addressBookMapper;
     @Autowired
     private WeChatPayUtil weChatPayUtil;
     @Autowired
-    private UserMapper userMapper;
-    @Autowired
     private UtableInfoMapper utableInfoMapper;
-
-    private Order order;
+    @Autowired
+    private TableStateMachine tableStateMachine;
+    @Autowired
+    private OrderNumberGenerator orderNumberGenerator;
+    @Autowired
+    private CatalogSnapshotHolder catalogSnapshotHolder;
 
     @Autowired
     private WebSocketServer webSocketServer;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
 
     @Value("${hanye.shop.address}")
     private String shopAddress;
@@ -66,6 +93,9 @@ public class OrderServiceImpl implements OrderService {
 
     // 店铺地址ID常量
     private static final Integer SHOP_ADDRESS_ID = 999;
+    // 分页查询每页条数默认10条，最多100条
+    private static final int DEFAULT_PAGE_SIZE = 10;
+    private static final int MAX_PAGE_SIZE = 100;
 
     /**
      * 用户下单
@@ -84,39 +114,28 @@ public class OrderServiceImpl implements OrderService {
         // 2、查询校验地址情况
         AddressBook addressBook = handleAddress(orderSubmitDTO);
 
-        // 3、查询校验购物车情况
+        // 3、查询校验购物车情况，并按菜单快照中的最新价格重新计价
         List<Cart> cartList = validateAndGetCartItems();
+        repriceCartItems(cartList);
 
         // 4、构建订单数据
         Order order = buildOrder(orderSubmitDTO, addressBook, cartList);
-        this.order = order;
 
         // 5、向订单表插入1条数据
         orderMapper.insert(order);
+        reserveTable(order);
+        orderSearchIndex.index(order);
         log.info("订单创建成功，订单ID: {}, 订单号: {}", order.getId(), order.getNumber());
 
         // 6、向明细表插入n条数据
         insertOrderDetails(order.getId(), cartList);
 
-        // 7、如果是堂食订单，预占餐桌（可选：这里可以先不占用，等支付成功再占用）
-        if (orderSubmitDTO.getDiningType() != null &&
-                orderSubmitDTO.getDiningType().equals(Order.DINE_IN) &&
-                orderSubmitDTO.getTableId() != null) {
-            // 这里可以选择预占（状态改为已预订）或者等待支付成功再占用
-            // 为了更好的用户体验，我们先预占餐桌，避免支付期间被其他人占用
-            try {
-                utableInfoMapper.updateStatus(orderSubmitDTO.getTableId(), 3); // 3表示已预订
-                log.info("餐桌预占成功，tableId: {}, 状态更新为已预订", orderSubmitDTO.getTableId());
-            } catch (Exception e) {
-                log.error("餐桌预占失败，tableId: {}", orderSubmitDTO.getTableId(), e);
-                // 如果预占失败，可以回滚订单创建，或者继续让用户支付，支付时再检查
-            }
-        }
+        // 7、清理购物车，在下单事务中完成，提交后用户再加入的商品不受影响
+        cartStore.clear(order.getUserId());
+        eventPublisher.publishEvent(new OrderSubmittedEvent(order, order.getUserId()));
+        eventPublisher.publishEvent(new OrderStatusChangedEvent(order, null, Order.PENDING_PAYMENT));
 
-        // 8、清理购物车中的数据
-        cartMapper.delete(BaseContext.getCurrentId());
-
-        // 9、封装返回结果
+        // 8、封装返回结果
         return buildOrderSubmitVO(order);
     }
 
@@ -134,30 +153,35 @@ public class OrderServiceImpl implements OrderService {
             if (orderSubmitDTO.getTableId() == null) {
                 throw new OrderBusinessException("请选择餐桌");
             }
+        }
+    }
 
-            // 检查餐桌是否存在且空闲
-            TableInfo table = utableInfoMapper.selectById(orderSubmitDTO.getTableId());
-            if (table == null) {
-                throw new OrderBusinessException("餐桌不存在");
-            }
-
-            // 检查餐桌状态：1-空闲，2-占用中，3-已预订，4-停用
-            if (table.getStatus() == 2 || table.getStatus() == 4) {
-                throw new OrderBusinessException("该餐桌当前不可用");
-            }
-
-            // 如果是已预订状态，检查是否是当前用户预订的（可以通过缓存或预留字段实现）
-            // 这里简化处理：已预订状态也不可用
-            if (table.getStatus() == 3) {
-                throw new OrderBusinessException("该餐桌已被预订");
-            }
+    /**
+     * 堂食订单预订餐桌：空闲 -> 已预订，并在餐桌上记录订单id
+     * 一条条件update完成检查和预订，并发下单同一餐桌只有一个能成功；预订在下单事务中，失败时订单随事务一起回滚
+     */
+    private void reserveTable(Order order) {
+        if (!Order.DINE_IN.equals(order.getDiningType())) {
+            return;
+        }
+        if (!tableStateMachine.reserve(order.getTableId(), order.getId())) {
+            throwTableUnavailable(order.getTableId());
+        }
+    }
 
-            // 检查是否有未完成的订单正在使用此餐桌
-            Integer activeOrders = orderMapper.countActiveOrdersByTableId(orderSubmitDTO.getTableId());
-            if (activeOrders > 0) {
-                throw new OrderBusinessException("该餐桌已有订单正在进行中");
-            }
+    /**
+     * 餐桌预订失败时，查询餐桌当前状态给出具体原因
+     */
+    private void throwTableUnavailable(Long tableId) {
+        // 检查餐桌状态：1-空闲，2-占用中，3-已预订，4-停用
+        Integer status = utableInfoMapper.selectStatusById(tableId);
+        if (status == null) {
+            throw new OrderBusinessException("餐桌不存在");
+        }
+        if (TableStatusConstant.RESERVED.equals(status)) {
+            throw new OrderBusinessException("该餐桌已被预订");
         }
+        throw new OrderBusinessException("该餐桌当前不可用");
     }
 
     /**
@@ -196,9 +220,7 @@ public class OrderServiceImpl implements OrderService {
      */
     private List<Cart> validateAndGetCartItems() {
         Integer userId = BaseContext.getCurrentId();
-        Cart cart = new Cart();
-        cart.setUserId(userId);
-        List<Cart> cartList = cartMapper.list(cart);
+        List<Cart> cartList = cartStore.list(userId);
 
         if (cartList == null || cartList.isEmpty()) {
             throw new ShoppingCartBusinessException(MessageConstant.CART_IS_NULL);
@@ -207,6 +229,22 @@ public class OrderServiceImpl implements OrderService {
         return cartList;
     }
 
+    /**
+     * 按内存菜单快照重新计价：购物车中保存的是加入时的价格，下单时以当前价格为准，已停售的商品不能下单
+     */
+    private void repriceCartItems(List<Cart> cartList) {
+        CatalogSnapshot snapshot = catalogSnapshotHolder.current();
+        for (Cart cart : cartList) {
+            CatalogItem item = snapshot.getItem(cart.getDishId(), cart.getSetmealId());
+            if (item == null || !item.isOnSale()) {
+                throw new OrderBusinessException(MessageConstant.ITEM_OFF_SALE + "：" + cart.getName());
+            }
+            cart.setName(item.name());
+            cart.setPic(item.pic());
+            cart.setAmount(item.price());
+        }
+    }
+
     /**
      * 构建订单对象
      */
@@ -230,7 +268,7 @@ public class OrderServiceImpl implements OrderService {
         }
 
         // 设置订单基础信息
-        order.setNumber(String.valueOf(System.currentTimeMillis()));
+        order.setNumber(orderNumberGenerator.nextNumber());
         order.setUserId(BaseContext.getCurrentId());
         order.setStatus(Order.PENDING_PAYMENT); // 待付款
         order.setPayStatus(Order.UN_PAID); // 未支付
@@ -305,12 +343,7 @@ public class OrderServiceImpl implements OrderService {
      */
     @Override
     public OrderVO getById(Integer id) {
-        Order order = orderMapper.getById(id);
-        List<OrderDetail> orderDetailList = orderDetailMapper.getById(id);
-        OrderVO orderVO = new OrderVO();
-        BeanUtils.copyProperties(order, orderVO);
-        orderVO.setOrderDetailList(orderDetailList);
-        return orderVO;
+        return orderAssembler.toVO(orderMapper.getById(id));
     }
 
     /**
@@ -323,26 +356,34 @@ public class OrderServiceImpl implements OrderService {
      */
     @Override
     public PageResult userPage(int page, int pageSize, Integer status) {
-        PageHelper.startPage(page, pageSize);
+        PageHelper.startPage(page, limitPageSize(pageSize));
         OrderPageDTO orderPageDTO = new OrderPageDTO();
         orderPageDTO.setUserId(BaseContext.getCurrentId());
         orderPageDTO.setStatus(status);
         Page<Order> orderPage = orderMapper.page(orderPageDTO);
 
-        List<OrderVO> list = new ArrayList<>();
-        if (orderPage != null && orderPage.getTotal() > 0) {
-            for (Order order : orderPage) {
-                Integer orderId = order.getId();
-                List<OrderDetail> orderDetails = orderDetailMapper.getById(orderId);
-                OrderVO orderVO = new OrderVO();
-                BeanUtils.copyProperties(order, orderVO);
-                orderVO.setOrderDetailList(orderDetails);
-                list.add(orderVO);
-            }
-        }
+        List<OrderVO> list = orderAssembler.toVOListWithDetails(orderPage.getResult());
         return new PageResult(orderPage.getTotal(), list);
     }
 
+    /**
+     * 用户端游标分页查询历史订单，不查询总数
+     *
+     * @param cursor   上一页返回的游标，第一页传空字符串
+     * @param pageSize
+     * @param status
+     * @return
+     */
+    @Override
+    public PageResult userPageByCursor(String cursor, int pageSize, Integer status) {
+        OrderPageDTO orderPageDTO = new OrderPageDTO();
+        orderPageDTO.setUserId(BaseContext.getCurrentId());
+        orderPageDTO.setStatus(status);
+        orderPageDTO.setPageSize(pageSize);
+        orderPageDTO.setCursor(cursor);
+        return pageByCursor(orderPageDTO, orderAssembler::toVOListWithDetails);
+    }
+
     /**
      * 用户根据订单id取消订单
      *
@@ -375,20 +416,49 @@ public class OrderServiceImpl implements OrderService {
             order.setPayStatus(Order.REFUND);
         }
 
-        // 释放餐桌（如果是堂食订单）
-        if (ordersDB.getDiningType() != null &&
-                ordersDB.getDiningType().equals(Order.DINE_IN) &&
-                ordersDB.getTableId() != null) {
-
-            utableInfoMapper.updateStatus(ordersDB.getTableId(), 1); // 恢复为空闲状态
-            log.info("订单取消，释放餐桌，tableId: {}", ordersDB.getTableId());
-        }
-
         // 更新订单状态
         order.setStatus(Order.CANCELLED);
         order.setCancelReason("用户取消");
         order.setCancelTime(LocalDateTime.now());
         orderMapper.update(order);
+
+        // 释放餐桌（如果是堂食订单）在事务提交后异步处理
+        eventPublisher.publishEvent(new OrderCancelledEvent(ordersDB));
+        eventPublisher.publishEvent(new OrderStatusChangedEvent(ordersDB, ordersDB.getStatus(), Order.CANCELLED));
+    }
+
+    /**
+     * 批量取消仍未支付的订单（支付超时）
+     * 先锁定其中仍待付款的订单，再用一条update集合取消；堂食订单在同一事务中把餐桌从已预订改回空闲
+     * @param ids
+     * @param cancelReason
+     * @return 实际取消的订单ID
+     */
+    @Override
+    @Transactional
+    public List<Integer> cancelUnpaidOrders(List<Integer> ids, String cancelReason) {
+        if (CollectionUtils.isEmpty(ids)) {
+            return Collections.emptyList();
+        }
+        List<Order> orders = orderMapper.getPendingPaymentByIdsForUpdate(ids);
+        if (orders.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Integer> pendingIds = orders.stream().map(Order::getId).collect(Collectors.toList());
+        LocalDateTime cancelTime = LocalDateTime.now();
+        orderMapper.cancelPendingPaymentByIds(pendingIds, cancelReason, cancelTime);
+
+        for (Order order : orders) {
+            if (Order.DINE_IN.equals(order.getDiningType()) && order.getTableId() != null) {
+                tableStateMachine.cancelReservation(order.getTableId(), order.getId());
+            }
+            order.setStatus(Order.CANCELLED);
+            order.setCancelReason(cancelReason);
+            order.setCancelTime(cancelTime);
+            eventPublisher.publishEvent(new OrderCancelledEvent(order, true));
+            eventPublisher.publishEvent(new OrderStatusChangedEvent(order, Order.PENDING_PAYMENT, Order.CANCELLED));
+        }
+        return pendingIds;
     }
 
     /**
@@ -410,11 +480,12 @@ public class OrderServiceImpl implements OrderService {
             return cart;
         }).toList();
 
-        cartMapper.insertBatch(cartList);
+        cartStore.insertBatch(userId, cartList);
     }
 
     /**
      * 用户支付订单
+     * 根据订单号定位订单并校验归属，状态修改为条件更新（仅待付款时生效），重复支付请求直接返回成功
      *
      * @param orderPaymentDTO
      * @return
@@ -426,7 +497,12 @@ public class OrderServiceImpl implements OrderService {
 
         // 当前登录用户id
         Integer userId = BaseContext.getCurrentId();
-        User user = userMapper.getById(userId);
+
+        // 根据订单号查询订单，并校验订单属于当前用户
+        Order orderDB = orderMapper.getByNumber(orderPaymentDTO.getOrderNumber());
+        if (orderDB == null || !orderDB.getUserId().equals(userId)) {
+            throw new OrderBusinessException(MessageConstant.ORDER_NOT_FOUND);
+        }
 
         // 调用微信支付接口，生成预支付交易单
         // 这里简化为直接支付成功
@@ -435,97 +511,37 @@ public class OrderServiceImpl implements OrderService {
         OrderPaymentVO vo = jsonObject.toJavaObject(OrderPaymentVO.class);
         vo.setPackageStr(jsonObject.getString("package"));
 
-        // 更新订单状态为已支付和待接单
-        Integer orderPaidStatus = Order.PAID;
-        Integer orderStatus = Order.TO_BE_CONFIRMED;
-        LocalDateTime checkOutTime = LocalDateTime.now();
-        orderMapper.updateStatus(orderStatus, orderPaidStatus, checkOutTime, this.order.getId());
-
-        // 支付成功后处理餐桌占用
-        afterPaymentSuccess(this.order.getId());
-
-        // 发送WebSocket消息给商家端
-        sendOrderNotification(this.order.getId());
-
-        return vo;
-    }
-
-    /**
-     * 支付成功后处理餐桌占用
-     */
-    private void afterPaymentSuccess(Integer orderId) {
-        Order order = orderMapper.getById(orderId);
-        if (order == null) {
-            log.error("支付成功回调：订单不存在，orderId: {}", orderId);
-            return;
+        // 订单已经支付过（重复提交），直接返回，不再重复处理餐桌和来单提醒
+        if (Order.PAID.equals(orderDB.getPayStatus())) {
+            log.info("订单已支付，忽略重复支付请求，订单号: {}", orderDB.getNumber());
+            return vo;
+        }
+        if (!Order.PENDING_PAYMENT.equals(orderDB.getStatus())) {
+            throw new OrderBusinessException(MessageConstant.ORDER_STATUS_ERROR);
         }
 
-        log.info("支付成功回调处理，订单ID: {}, 就餐方式: {}, 餐桌ID: {}",
-                orderId, order.getDiningType(), order.getTableId());
-
-        // 如果是堂食订单且选择了餐桌
-        if (order.getDiningType() != null &&
-                order.getDiningType().equals(Order.DINE_IN) &&
-                order.getTableId() != null) {
-
-            try {
-                // 检查餐桌状态
-                TableInfo table = utableInfoMapper.selectById(order.getTableId());
-                if (table == null) {
-                    log.error("支付成功：餐桌不存在，tableId: {}", order.getTableId());
-                    // 可以发送通知给商家处理异常
-                    return;
-                }
-
-                // 如果餐桌是预订状态（3）或者空闲状态（1），可以占用
-                if (table.getStatus() == 1 || table.getStatus() == 3) {
-                    // 更新餐桌状态为占用中
-                    utableInfoMapper.updateStatus(order.getTableId(), 2);
-                    log.info("支付成功：餐桌状态更新为占用中，tableId: {}, 订单ID: {}",
-                            order.getTableId(), orderId);
-                } else if (table.getStatus() == 2) {
-                    // 如果已经是占用中状态，可能是重复支付或其他异常
-                    log.warn("支付成功：餐桌已被占用，tableId: {}, 当前状态: {}",
-                            order.getTableId(), table.getStatus());
-                    // 可以发送通知给商家处理
-                } else {
-                    log.error("支付成功：餐桌不可用，tableId: {}, 状态: {}",
-                            order.getTableId(), table.getStatus());
-                    // 需要退款或处理异常
-                }
-            } catch (Exception e) {
-                log.error("支付成功处理餐桌占用失败，tableId: {}, orderId: {}",
-                        order.getTableId(), orderId, e);
+        // 更新订单状态为已支付和待接单，只有订单仍是待付款时才会更新成功
+        LocalDateTime checkOutTime = LocalDateTime.now();
+        int rows = orderMapper.updateStatusIfPendingPayment(Order.TO_BE_CONFIRMED, Order.PAID,
+                orderPaymentDTO.getPayMethod(), checkOutTime, orderDB.getId());
+        if (rows == 0) {
+            // 并发请求已经先一步完成支付，或者订单刚好被取消
+            Order latest = orderMapper.getById(orderDB.getId());
+            if (latest != null && Order.PAID.equals(latest.getPayStatus())) {
+                log.info("订单已被并发请求支付，订单号: {}", orderDB.getNumber());
+                return vo;
             }
+            throw new OrderBusinessException(MessageConstant.ORDER_STATUS_ERROR);
         }
-    }
 
-    /**
-     * 发送订单通知给商家端
-     */
-    private void sendOrderNotification(Integer orderId) {
-        try {
-            Order order = orderMapper.getById(orderId);
-            Map<String, Object> map = new HashMap<>();
-            map.put("type", 1); // 1表示来单提醒
-            map.put("orderId", orderId);
-            map.put("content", "订单号：" + order.getNumber());
-
-            // 如果是堂食订单，添加餐桌信息
-            if (order.getDiningType() != null &&
-                    order.getDiningType().equals(Order.DINE_IN)) {
-                map.put("diningType", "堂食");
-                map.put("tableNumber", order.getTableNumber());
-            } else {
-                map.put("diningType", "外卖");
-            }
+        // 支付成功后的餐桌占用和来单提醒在事务提交后异步处理
+        orderDB.setStatus(Order.TO_BE_CONFIRMED);
+        orderDB.setPayStatus(Order.PAID);
+        orderDB.setCheckoutTime(checkOutTime);
+        eventPublisher.publishEvent(new OrderPaidEvent(orderDB));
+        eventPublisher.publishEvent(new OrderStatusChangedEvent(orderDB, Order.PENDING_PAYMENT, Order.TO_BE_CONFIRMED));
 
-            String json = JSON.toJSONString(map);
-            log.info("发送订单通知给商家端：{}", map);
-            webSocketServer.sendToAllClient(json);
-        } catch (Exception e) {
-            log.error("发送订单通知失败", e);
-        }
+        return vo;
     }
 
     /**
@@ -536,9 +552,20 @@ public class OrderServiceImpl implements OrderService {
      */
     @Override
     public PageResult conditionSearch(OrderPageDTO orderPageDTO) {
-        PageHelper.startPage(orderPageDTO.getPage(), orderPageDTO.getPageSize());
+        // 订单号、手机号先通过搜索索引找出候选订单，分页查询只在这些订单中进行
+        List<Integer> orderIds = orderSearchIndex.search(orderPageDTO.getNumber(), orderPageDTO.getPhone());
+        if (orderIds != null) {
+            if (orderIds.isEmpty()) {
+                return new PageResult(0L, Collections.emptyList());
+            }
+            orderPageDTO.setOrderIds(orderIds);
+        }
+        if (orderPageDTO.getCursor() != null) {
+            return pageByCursor(orderPageDTO, orderAssembler::toVOListWithDishes);
+        }
+        PageHelper.startPage(orderPageDTO.getPage(), limitPageSize(orderPageDTO.getPageSize()));
         Page<Order> orders = orderMapper.page(orderPageDTO);
-        List<OrderVO> orderVOList = getOrderVOList(orders);
+        List<OrderVO> orderVOList = orderAssembler.toVOListWithDishes(orders.getResult());
         return new PageResult(orders.getTotal(), orderVOList);
     }
 
@@ -549,9 +576,10 @@ public class OrderServiceImpl implements OrderService {
      */
     @Override
     public OrderStatisticsVO statistics() {
-        Integer toBeConfirmed = orderMapper.countByStatus(Order.TO_BE_CONFIRMED);
-        Integer confirmed = orderMapper.countByStatus(Order.CONFIRMED);
-        Integer deliveryInProgress = orderMapper.countByStatus(Order.DELIVERY_IN_PROGRESS);
+        // 直接读取订单状态计数器，不再count
+        Integer toBeConfirmed = orderStatusCounters.count(Order.TO_BE_CONFIRMED);
+        Integer confirmed = orderStatusCounters.count(Order.CONFIRMED);
+        Integer deliveryInProgress = orderStatusCounters.count(Order.DELIVERY_IN_PROGRESS);
 
         return OrderStatisticsVO.builder()
                 .toBeConfirmed(toBeConfirmed)
@@ -568,11 +596,16 @@ public class OrderServiceImpl implements OrderService {
     @Override
     @Transactional
     public void confirm(OrderConfirmDTO orderConfirmDTO) {
+        Order orderDB = orderMapper.getById(orderConfirmDTO.getId());
+        if (orderDB == null) {
+            throw new OrderBusinessException(MessageConstant.ORDER_NOT_FOUND);
+        }
         Order order = Order.builder()
                 .id(orderConfirmDTO.getId())
                 .status(Order.CONFIRMED)
                 .build();
         orderMapper.update(order);
+        eventPublisher.publishEvent(new OrderStatusChangedEvent(orderDB, orderDB.getStatus(), Order.CONFIRMED));
     }
 
     /**
@@ -597,14 +630,11 @@ public class OrderServiceImpl implements OrderService {
         order.setRejectionReason(orderRejectionDTO.getRejectionReason());
         order.setCancelTime(LocalDateTime.now());
 
-        // 如果是堂食订单，释放餐桌
-        if (orderDB.getDiningType() != null &&
-                orderDB.getDiningType().equals(Order.DINE_IN) &&
-                orderDB.getTableId() != null) {
-            utableInfoMapper.updateStatus(orderDB.getTableId(), 1);
-        }
-
         orderMapper.update(order);
+
+        // 如果是堂食订单，释放餐桌在事务提交后异步处理
+        eventPublisher.publishEvent(new OrderCancelledEvent(orderDB));
+        eventPublisher.publishEvent(new OrderStatusChangedEvent(orderDB, Order.TO_BE_CONFIRMED, Order.CANCELLED));
     }
 
     /**
@@ -617,6 +647,13 @@ public class OrderServiceImpl implements OrderService {
     public void cancel(OrderCancelDTO orderCancelDTO) {
         Integer orderId = orderCancelDTO.getId();
         Order orderDB = orderMapper.getById(orderId);
+        if (orderDB == null) {
+            throw new OrderBusinessException(MessageConstant.ORDER_NOT_FOUND);
+        }
+        // 已完成、已取消的订单不能再取消
+        if (orderDB.getStatus() >= Order.COMPLETED) {
+            throw new OrderBusinessException(MessageConstant.ORDER_STATUS_ERROR);
+        }
 
         Order order = new Order();
         order.setId(orderDB.getId());
@@ -625,14 +662,11 @@ public class OrderServiceImpl implements OrderService {
         order.setCancelReason(orderCancelDTO.getCancelReason());
         order.setCancelTime(LocalDateTime.now());
 
-        // 如果是堂食订单，释放餐桌
-        if (orderDB.getDiningType() != null &&
-                orderDB.getDiningType().equals(Order.DINE_IN) &&
-                orderDB.getTableId() != null) {
-            utableInfoMapper.updateStatus(orderDB.getTableId(), 1);
-        }
-
         orderMapper.update(order);
+
+        // 如果是堂食订单，释放餐桌在事务提交后异步处理
+        eventPublisher.publishEvent(new OrderCancelledEvent(orderDB));
+        eventPublisher.publishEvent(new OrderStatusChangedEvent(orderDB, orderDB.getStatus(), Order.CANCELLED));
     }
 
     /**
@@ -652,6 +686,7 @@ public class OrderServiceImpl implements OrderService {
         order.setId(orderDB.getId());
         order.setStatus(Order.DELIVERY_IN_PROGRESS);
         orderMapper.update(order);
+        eventPublisher.publishEvent(new OrderStatusChangedEvent(orderDB, Order.CONFIRMED, Order.DELIVERY_IN_PROGRESS));
     }
 
     /**
@@ -676,11 +711,15 @@ public class OrderServiceImpl implements OrderService {
         if (orderDB.getDiningType() != null &&
                 orderDB.getDiningType().equals(Order.DINE_IN) &&
                 orderDB.getTableId() != null) {
-            utableInfoMapper.updateStatus(orderDB.getTableId(), 1);
-            log.info("订单完成，释放餐桌，tableId: {}", orderDB.getTableId());
+            if (tableStateMachine.release(orderDB.getTableId(), orderDB.getId())) {
+                log.info("订单完成，释放餐桌，tableId: {}", orderDB.getTableId());
+            } else {
+                log.warn("订单完成，餐桌不是本订单占用，无需释放，tableId: {}", orderDB.getTableId());
+            }
         }
 
         orderMapper.update(order);
+        eventPublisher.publishEvent(new OrderStatusChangedEvent(orderDB, Order.DELIVERY_IN_PROGRESS, Order.COMPLETED));
     }
 
     /**
@@ -712,32 +751,32 @@ public class OrderServiceImpl implements OrderService {
     }
 
     /**
-     * 获取订单VO列表
+     * 游标分页：按(下单时间, id)从上一页最后一个订单之后查询，深分页不再扫描offset之前的行
+     * 本页不满pageSize条说明没有下一页，总数只在withTotal时查询
      */
-    private List<OrderVO> getOrderVOList(Page<Order> page) {
-        List<OrderVO> orderVOList = new ArrayList<>();
-        List<Order> ordersList = page.getResult();
-        if (!CollectionUtils.isEmpty(ordersList)) {
-            for (Order orders : ordersList) {
-                OrderVO orderVO = new OrderVO();
-                BeanUtils.copyProperties(orders, orderVO);
-                String orderDishes = getOrderDishesStr(orders);
-                orderVO.setOrderDishes(orderDishes);
-                orderVOList.add(orderVO);
-            }
+    private PageResult pageByCursor(OrderPageDTO orderPageDTO, Function<List<Order>, List<OrderVO>> assembler) {
+        orderPageDTO.setPageSize(limitPageSize(orderPageDTO.getPageSize()));
+        OrderCursor cursor = OrderCursor.decode(orderPageDTO.getCursor());
+        if (cursor != null) {
+            orderPageDTO.setCursorOrderTime(cursor.orderTime());
+            orderPageDTO.setCursorId(cursor.id());
+        }
+        List<Order> orders = orderMapper.pageByCursor(orderPageDTO);
+
+        String nextCursor = null;
+        if (orders.size() == orderPageDTO.getPageSize()) {
+            Order last = orders.get(orders.size() - 1);
+            nextCursor = new OrderCursor(last.getOrderTime(), last.getId()).encode();
         }
-        return orderVOList;
+        Long total = orderPageDTO.isWithTotal() ? orderMapper.countByCondition(orderPageDTO) : null;
+        return new PageResult(total, assembler.apply(orders), nextCursor);
     }
 
     /**
-     * 获取订单菜品信息字符串
+     * 每页条数限制在1~100，未传时默认10条
      */
-    private String getOrderDishesStr(Order order) {
-        List<OrderDetail> orderDetailList = orderDetailMapper.getById(order.getId());
-        List<String> orderDishList = orderDetailList.stream().map(x -> {
-            return x.getName() + "*" + x.getNumber() + ";";
-        }).collect(Collectors.toList());
-        return String.join("", orderDishList);
+    private int limitPageSize(int pageSize) {
+        return pageSize <= 0 ? DEFAULT_PAGE_SIZE : Math.min(pageSize, MAX_PAGE_SIZE);
     }
 
     /**
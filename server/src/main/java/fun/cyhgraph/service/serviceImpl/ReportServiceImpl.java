@@ -1,26 +1,34 @@
 package fun.cyhgraph.service.serviceImpl;
 
-import fun.cyhgraph.dto.GoodsSalesDTO;
-import fun.cyhgraph.entity.Order;
-import fun.cyhgraph.mapper.OrderMapper;
-import fun.cyhgraph.mapper.UserMapper;
+import fun.cyhgraph.annotation.ReadOnlyRoute;
+import fun.cyhgraph.constant.MessageConstant;
+import fun.cyhgraph.entity.Category;
+import fun.cyhgraph.entity.DishSalesDaily;
+import fun.cyhgraph.entity.OrderDailyStats;
+import fun.cyhgraph.entity.UserDailyStats;
+import fun.cyhgraph.exception.ReportBusinessException;
+import fun.cyhgraph.mapper.CategoryMapper;
 import fun.cyhgraph.service.ReportService;
-import fun.cyhgraph.service.WorkSpaceService;
+import fun.cyhgraph.stats.DailyStatsRollup;
+import fun.cyhgraph.stats.DishSalesRanking;
+import fun.cyhgraph.stats.OrderCube;
 import fun.cyhgraph.vo.*;
-import jakarta.servlet.ServletOutputStream;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.apache.poi.xssf.usermodel.XSSFRow;
 import org.apache.poi.xssf.usermodel.XSSFSheet;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
 import java.time.LocalDate;
-import java.time.LocalDateTime;
-import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -28,14 +36,22 @@ import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
+@ReadOnlyRoute // 报表统计只读，开启读写分离时走从库，不影响主库上的下单
 public class ReportServiceImpl implements ReportService {
 
+    // 报表模板中明细数据从第8行开始，占用B~G列
+    private static final int DETAIL_FIRST_ROW = 7;
+    private static final int DETAIL_LAST_CELL = 6;
+    private static final int MAX_TOP_N = 100;
+
+    @Autowired
+    private CategoryMapper categoryMapper;
     @Autowired
-    private OrderMapper orderMapper;
+    private DailyStatsRollup dailyStatsRollup;
     @Autowired
-    private UserMapper userMapper;
+    private DishSalesRanking dishSalesRanking;
     @Autowired
-    private WorkSpaceService workSpaceService;
+    private OrderCube orderCube;
 
     /**
      * 营业额统计
@@ -45,25 +61,13 @@ public class ReportServiceImpl implements ReportService {
      * @return
      */
     public TurnoverReportVO getTurnover(LocalDate begin, LocalDate end) {
+        // 区间内每天的汇总数据，历史日期一次范围查询，当天取内存数据
+        List<OrderDailyStats> statsList = dailyStatsRollup.getOrderStats(begin, end);
         List<LocalDate> dateList = new ArrayList<>();
-        dateList.add(begin);
-        while (!begin.equals(end)) {
-            begin = begin.plusDays(1); // 日期计算，获得指定日期后1天的日期
-            dateList.add(begin);
-        }
         List<Double> turnoverList = new ArrayList<>();
-        for (LocalDate date : dateList) {
-            // 每一天的最早和最晚时刻，作为 begin 和 end
-            LocalDateTime beginTime = LocalDateTime.of(date, LocalTime.MIN);
-            LocalDateTime endTime = LocalDateTime.of(date, LocalTime.MAX);
-            Map map = new HashMap();
-            map.put("status", Order.COMPLETED);
-            map.put("begin", beginTime);
-            map.put("end", endTime);
-            // 统计当天的营业额，并加到 turnoverList 里，null要转为0
-            Double turnover = orderMapper.sumByMap(map);
-            turnover = turnover == null ? 0.0 : turnover;
-            turnoverList.add(turnover);
+        for (OrderDailyStats stats : statsList) {
+            dateList.add(stats.getStatDate());
+            turnoverList.add(stats.getTurnover().doubleValue());
         }
         //数据封装
         return TurnoverReportVO.builder()
@@ -80,26 +84,16 @@ public class ReportServiceImpl implements ReportService {
      * @return
      */
     public UserReportVO getUser(LocalDate begin, LocalDate end) {
+        List<UserDailyStats> statsList = dailyStatsRollup.getUserStats(begin, end);
         List<LocalDate> dateList = new ArrayList<>();
-        dateList.add(begin);
-        while (!begin.equals(end)) {
-            begin = begin.plusDays(1); // 日期计算，获得指定日期后1天的日期
-            dateList.add(begin);
-        }
         List<Integer> newUserList = new ArrayList<>();
         List<Integer> totalUserList = new ArrayList<>();
-        for (LocalDate date : dateList) {
-            // 每一天的最早和最晚时刻，作为 begin 和 end
-            LocalDateTime beginTime = LocalDateTime.of(date, LocalTime.MIN);
-            LocalDateTime endTime = LocalDateTime.of(date, LocalTime.MAX);
-            Map map = new HashMap();
-            // 先统计截至当天总用户数
-            map.put("end", endTime);
-            Integer totalUser = userMapper.countByMap(map);
-            // 再加上 begin 条件，统计当天的新增用户数和
-            map.put("begin", beginTime);
-            Integer newUser = userMapper.countByMap(map);
-            newUserList.add(newUser);
+        // 截至每天的总用户数 = begin之前的用户数 + 区间内新增用户数的前缀和
+        int totalUser = dailyStatsRollup.countUsersBefore(begin);
+        for (UserDailyStats stats : statsList) {
+            totalUser += stats.getNewUserCount();
+            dateList.add(stats.getStatDate());
+            newUserList.add(stats.getNewUserCount());
             totalUserList.add(totalUser);
         }
         // 数据封装
@@ -118,34 +112,20 @@ public class ReportServiceImpl implements ReportService {
      * @return
      */
     public OrderReportVO getOrder(LocalDate begin, LocalDate end) {
+        List<OrderDailyStats> statsList = dailyStatsRollup.getOrderStats(begin, end);
         List<LocalDate> dateList = new ArrayList<>();
-        dateList.add(begin);
-        while (!begin.equals(end)) {
-            begin = begin.plusDays(1); // 日期计算，获得指定日期后1天的日期
-            dateList.add(begin);
-        }
         List<Integer> orderCountList = new ArrayList<>();
         List<Integer> validOrderCountList = new ArrayList<>();
-        for (LocalDate date : dateList) {
-            // 每一天的最早和最晚时刻，作为 begin 和 end
-            LocalDateTime beginTime = LocalDateTime.of(date, LocalTime.MIN);
-            LocalDateTime endTime = LocalDateTime.of(date, LocalTime.MAX);
-            Map map = new HashMap();
-            // 先统计当天总订单数
-            map.put("begin", beginTime);
-            map.put("end", endTime);
-            Integer orderCount = orderMapper.countByMap(map);
-            // 再加上 status 条件，统计当天有效订单数
-            map.put("status", Order.COMPLETED);
-            Integer validCount = orderMapper.countByMap(map);
-            orderCountList.add(orderCount);
-            validOrderCountList.add(validCount);
+        for (OrderDailyStats stats : statsList) {
+            dateList.add(stats.getStatDate());
+            orderCountList.add(stats.getOrderCount());
+            validOrderCountList.add(stats.getValidOrderCount());
         }
         // 流式计算这段时间内的有效订单数和订单总数，相除再得出订单完成率
         // 1、时间区间内的总订单数
-        Integer totalOrderCount = orderCountList.stream().reduce(Integer::sum).get();
+        Integer totalOrderCount = orderCountList.stream().reduce(0, Integer::sum);
         // 2、时间区间内的总有效订单数
-        Integer validOrderCount = validOrderCountList.stream().reduce(Integer::sum).get();
+        Integer validOrderCount = validOrderCountList.stream().reduce(0, Integer::sum);
         // 3、订单完成率
         Double orderCompletionRate = 0.0;
         if (totalOrderCount != 0) {
@@ -168,15 +148,27 @@ public class ReportServiceImpl implements ReportService {
      * @return
      */
     public SalesTop10ReportVO getSalesTop10(LocalDate begin, LocalDate end) {
-        LocalDateTime beginTime = LocalDateTime.of(begin, LocalTime.MIN);
-        LocalDateTime endTime = LocalDateTime.of(end, LocalTime.MAX);
-        // Top 10 列表，每个元素都有商品名称和销量值
-        List<GoodsSalesDTO> goodsSalesDTOList = orderMapper.getSalesTop10(beginTime, endTime);
+        return getSalesTopN(begin, end, 10, null, null);
+    }
+
+    /**
+     * 销量TopN统计，可按分类、就餐方式过滤
+     * @param begin
+     * @param end
+     * @param n
+     * @param categoryId
+     * @param diningType
+     * @return
+     */
+    public SalesTop10ReportVO getSalesTopN(LocalDate begin, LocalDate end, int n, Integer categoryId, Integer diningType) {
+        checkDateRange(begin, end);
+        // Top N 列表，每个元素都有商品名称和销量值
+        List<DishSalesDaily> salesList = dishSalesRanking.top(begin, end, limitTopN(n), categoryId, diningType);
         // 流式操作，拿到列表中所有name/number属性组成的列表，然后再用","序列化成字符串，变成xxx,xxx,xxx的形式
-        String nameList = StringUtils.join(goodsSalesDTOList.stream()
-                .map(GoodsSalesDTO::getName).collect(Collectors.toList()),",");
-        String numberList = StringUtils.join(goodsSalesDTOList.stream()
-                .map(GoodsSalesDTO::getNumber).collect(Collectors.toList()),",");
+        String nameList = StringUtils.join(salesList.stream()
+                .map(DishSalesDaily::getName).collect(Collectors.toList()),",");
+        String numberList = StringUtils.join(salesList.stream()
+                .map(DishSalesDaily::getNumber).collect(Collectors.toList()),",");
         // 数据封装返回
         return SalesTop10ReportVO.builder()
                 .nameList(nameList)
@@ -185,58 +177,151 @@ public class ReportServiceImpl implements ReportService {
     }
 
     /**
-     * 导出近30天的运营数据报表
-     * @param response
+     * 各分类销量TopN统计，可按就餐方式过滤
+     * @param begin
+     * @param end
+     * @param n
+     * @param diningType
+     * @return
+     */
+    public List<CategorySalesTopVO> getCategorySalesTopN(LocalDate begin, LocalDate end, int n, Integer diningType) {
+        checkDateRange(begin, end);
+        Map<Integer, List<DishSalesDaily>> categoryTop = dishSalesRanking.topByCategory(begin, end, limitTopN(n), diningType);
+        Map<Integer, String> categoryNames = new HashMap<>();
+        for (Category category : categoryMapper.getList(null)) {
+            categoryNames.put(category.getId(), category.getName());
+        }
+        List<CategorySalesTopVO> result = new ArrayList<>();
+        categoryTop.forEach((categoryId, salesList) -> result.add(CategorySalesTopVO.builder()
+                .categoryId(categoryId)
+                .categoryName(categoryNames.get(categoryId))
+                .nameList(StringUtils.join(salesList.stream()
+                        .map(DishSalesDaily::getName).collect(Collectors.toList()), ","))
+                .numberList(StringUtils.join(salesList.stream()
+                        .map(DishSalesDaily::getNumber).collect(Collectors.toList()), ","))
+                .build()));
+        return result;
+    }
+
+    /**
+     * 内存订单分析：按时段、星期、日期、就餐方式、状态分组统计订单数和金额
+     * @param begin
+     * @param end
+     * @param groupBy 分组维度，多个用逗号分隔，最多2个，例如：weekday,hour
+     * @param status
+     * @param diningType
+     * @return
      */
-    public void exportBusinessData(HttpServletResponse response) {
+    public OrderCubeVO getOrderCube(LocalDate begin, LocalDate end, String groupBy, Integer status, Integer diningType) {
+        checkDateRange(begin, end);
+        List<OrderCube.Dimension> dimensions = new ArrayList<>();
+        if (StringUtils.isNotBlank(groupBy)) {
+            for (String name : groupBy.split(",")) {
+                dimensions.add(OrderCube.Dimension.parse(name.trim()));
+            }
+        }
+        return orderCube.query(begin, end, dimensions, status, diningType);
+    }
+
+    /**
+     * 导出指定日期范围的运营数据报表
+     * 每天的明细来自日汇总数据（一次范围查询），用SXSSF流式写出，导出一整年内存占用也不会增长
+     * @param begin
+     * @param end
+     * @param out
+     * @throws IOException
+     */
+    public void exportBusinessData(LocalDate begin, LocalDate end, OutputStream out) throws IOException {
+        checkDateRange(begin, end);
+        List<OrderDailyStats> orderStatsList = dailyStatsRollup.getOrderStats(begin, end);
+        List<UserDailyStats> userStatsList = dailyStatsRollup.getUserStats(begin, end);
+        // 概览数据由每天的明细累加得到
+        int totalOrders = 0;
+        int validOrders = 0;
+        int newUsers = 0;
+        BigDecimal turnover = BigDecimal.ZERO;
+        for (int i = 0; i < orderStatsList.size(); i++) {
+            OrderDailyStats orderStats = orderStatsList.get(i);
+            totalOrders += orderStats.getOrderCount();
+            validOrders += orderStats.getValidOrderCount();
+            turnover = turnover.add(orderStats.getTurnover());
+            newUsers += userStatsList.get(i).getNewUserCount();
+        }
         // 提前将资料中的 运营数据报表模板.xlsx 拷贝到项目的resources/template目录中
-        // 拿到 前30天 - 前1天 的数据
-        LocalDate begin = LocalDate.now().minusDays(30);
-        // 日期 转 日期加时间，转的时候要指定时间字段
-        LocalDateTime beginTime = LocalDateTime.of(begin, LocalTime.MIN);
-        LocalDate end = LocalDate.now().minusDays(1);
-        LocalDateTime endTime = LocalDateTime.of(end, LocalTime.MAX);
-        // 调用service方法来获取工作台数据（注意是service而不是mapper，因为这个功能之前实现过，直接拿来用就行）
-        BusinessDataVO businessData = workSpaceService.getBusinessData(beginTime, endTime);
-        InputStream in = this.getClass().getClassLoader().getResourceAsStream("template/运营数据报表模板.xlsx");
-        try {
-            XSSFWorkbook excel = new XSSFWorkbook(in);
-            XSSFSheet sheet = excel.getSheetAt(0);
+        try (InputStream in = this.getClass().getClassLoader().getResourceAsStream("template/运营数据报表模板.xlsx");
+             XSSFWorkbook template = new XSSFWorkbook(in)) {
+            XSSFSheet templateSheet = template.getSheetAt(0);
             // 第2行写入时间字段
-            sheet.getRow(1).getCell(1).setCellValue(begin + "至" + end);
-            // 第4、5行写入概览数据
-            XSSFRow row4 = sheet.getRow(3);
-            // 获取单元格，填入营业额、订单完成率、新增用户数量
-            row4.getCell(2).setCellValue(businessData.getTurnover());
-            row4.getCell(4).setCellValue(businessData.getOrderCompletionRate());
-            row4.getCell(6).setCellValue(businessData.getNewUsers());
-            XSSFRow row5 = sheet.getRow(4);
-            // 获取单元格，填入有效订单数、订单平均价格
-            row5.getCell(2).setCellValue(businessData.getValidOrderCount());
-            row5.getCell(4).setCellValue(businessData.getUnitPrice());
-            // 插入30行明细数据，每行6个单元格的值对应一天的数据概览
-            for (int i = 0; i < 30; i++) {
-                LocalDate date = begin.plusDays(i);
-                // 准备每天的明细数据
-                businessData = workSpaceService.getBusinessData(LocalDateTime.of(date,LocalTime.MIN), LocalDateTime.of(date, LocalTime.MAX));
-                XSSFRow row = sheet.getRow(7 + i);
-                row.getCell(1).setCellValue(date.toString());
-                row.getCell(2).setCellValue(businessData.getTurnover());
-                row.getCell(3).setCellValue(businessData.getValidOrderCount());
-                row.getCell(4).setCellValue(businessData.getOrderCompletionRate());
-                row.getCell(5).setCellValue(businessData.getUnitPrice());
-                row.getCell(6).setCellValue(businessData.getNewUsers());
+            templateSheet.getRow(1).getCell(1).setCellValue(begin + "至" + end);
+            // 第4、5行写入概览数据：营业额、订单完成率、新增用户数量，有效订单数、订单平均价格
+            XSSFRow row4 = templateSheet.getRow(3);
+            row4.getCell(2).setCellValue(turnover.doubleValue());
+            row4.getCell(4).setCellValue(completionRate(validOrders, totalOrders));
+            row4.getCell(6).setCellValue(newUsers);
+            XSSFRow row5 = templateSheet.getRow(4);
+            row5.getCell(2).setCellValue(validOrders);
+            row5.getCell(4).setCellValue(unitPrice(turnover, validOrders));
+            // 模板中预置了30行明细，记下样式后删掉，明细行交给SXSSF按实际天数流式追加
+            XSSFRow styleRow = templateSheet.getRow(DETAIL_FIRST_ROW);
+            CellStyle[] styles = new CellStyle[DETAIL_LAST_CELL + 1];
+            for (int c = 1; c <= DETAIL_LAST_CELL; c++) {
+                styles[c] = styleRow.getCell(c).getCellStyle();
+            }
+            for (int r = templateSheet.getLastRowNum(); r >= DETAIL_FIRST_ROW; r--) {
+                XSSFRow row = templateSheet.getRow(r);
+                if (row != null) {
+                    templateSheet.removeRow(row);
+                }
+            }
+            SXSSFWorkbook excel = new SXSSFWorkbook(template, 100);
+            try {
+                Sheet sheet = excel.getSheetAt(0);
+                for (int i = 0; i < orderStatsList.size(); i++) {
+                    OrderDailyStats orderStats = orderStatsList.get(i);
+                    Row row = sheet.createRow(DETAIL_FIRST_ROW + i);
+                    for (int c = 1; c <= DETAIL_LAST_CELL; c++) {
+                        row.createCell(c).setCellStyle(styles[c]);
+                    }
+                    row.getCell(1).setCellValue(orderStats.getStatDate().toString());
+                    row.getCell(2).setCellValue(orderStats.getTurnover().doubleValue());
+                    row.getCell(3).setCellValue(orderStats.getValidOrderCount());
+                    row.getCell(4).setCellValue(completionRate(orderStats.getValidOrderCount(), orderStats.getOrderCount()));
+                    row.getCell(5).setCellValue(unitPrice(orderStats.getTurnover(), orderStats.getValidOrderCount()));
+                    row.getCell(6).setCellValue(userStatsList.get(i).getNewUserCount());
+                }
+                excel.write(out);
+                out.flush();
+            } finally {
+                // 删除SXSSF写出的临时文件
+                excel.dispose();
             }
-            // 创建输出流，excel数据放进流里，通过输出流将文件下载到客户端浏览器中
-            ServletOutputStream out = response.getOutputStream();
-            excel.write(out);
-            // 关闭资源
-            out.flush();
-            out.close();
-            excel.close();
-        } catch (IOException e) {
-            // 打印错误就行，不要抛异常使程序中断
-            e.printStackTrace();
         }
     }
+
+    private void checkDateRange(LocalDate begin, LocalDate end) {
+        if (begin == null || end == null || begin.isAfter(end)) {
+            throw new ReportBusinessException(MessageConstant.REPORT_DATE_RANGE_INVALID);
+        }
+    }
+
+    /**
+     * 排行榜条数限制在1~100
+     */
+    private int limitTopN(int n) {
+        return Math.max(1, Math.min(n, MAX_TOP_N));
+    }
+
+    /**
+     * 订单完成率：有效订单数 / 总订单数
+     */
+    private double completionRate(int validOrders, int totalOrders) {
+        return totalOrders == 0 ? 0.0 : (double) validOrders / totalOrders;
+    }
+
+    /**
+     * 平均客单价：营业额 / 有效订单数
+     */
+    private double unitPrice(BigDecimal turnover, int validOrders) {
+        return validOrders == 0 ? 0.0 : turnover.doubleValue() / validOrders;
+    }
 }
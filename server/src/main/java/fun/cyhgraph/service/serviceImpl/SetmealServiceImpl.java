@@ -2,6 +2,7 @@ package fun.cyhgraph.service.serviceImpl;
 
 import com.github.pagehelper.Page;
 import com.github.pagehelper.PageHelper;
+import fun.cyhgraph.annotation.ReadOnlyRoute;
 import fun.cyhgraph.constant.MessageConstant;
 import fun.cyhgraph.constant.StatusConstant;
 import fun.cyhgraph.dto.SetmealDTO;
@@ -137,6 +138,7 @@ public class SetmealServiceImpl implements SetmealService {
      * @param id
      * @return
      */
+    @ReadOnlyRoute
     public List<DishItemVO> getSetmealDishesById(Integer id) {
         List<DishItemVO> dishItemVOList = setmealMapper.getSetmealDishesById(id);
         return dishItemVOList;
@@ -147,6 +149,7 @@ public class SetmealServiceImpl implements SetmealService {
      * @param id
      * @return
      */
+    @ReadOnlyRoute
     public SetmealWithPicVO getSetmealWithPic(Integer id) {
         Setmeal setmeal = setmealMapper.getSetmealById(id);
         // 该套餐下的每个菜品都需要加上pic字段
@@ -5,6 +5,8 @@ import fun.cyhgraph.entity.TableInfo;
 import fun.cyhgraph.mapper.TableInfoMapper;
 import fun.cyhgraph.service.EmployeeService;
 import fun.cyhgraph.service.TableInfoService;
+import fun.cyhgraph.service.TableStateMachine;
+import fun.cyhgraph.table.TableBoard;
 import fun.cyhgraph.vo.TableInfoVO;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -24,6 +26,12 @@ public class TableInfoServiceImpl implements TableInfoService {
     @Autowired
     private EmployeeService employeeService;
 
+    @Autowired
+    private TableBoard tableBoard;
+
+    @Autowired
+    private TableStateMachine tableStateMachine;
+
     @Override
     @Transactional
     public void saveTable(TableInfoDTO tableInfoDTO) {
@@ -44,6 +52,7 @@ public class TableInfoServiceImpl implements TableInfoService {
         tableInfo.setUpdateTime(LocalDateTime.now());
 
         tableInfoMapper.insert(tableInfo);
+        tableBoard.onTableChanged(tableInfo.getId());
     }
 
     @Override
@@ -61,6 +70,13 @@ public class TableInfoServiceImpl implements TableInfoService {
             throw new RuntimeException("餐桌编号已存在");
         }
 
+        // 状态以读取时的状态和订单为条件修改，期间用户下单预订、占用了餐桌则失败，不覆盖
+        Integer toStatus = tableInfoDTO.getStatus();
+        if (toStatus != null
+                && !tableStateMachine.changeStatus(tableInfo.getId(), tableInfo.getStatus(), tableInfo.getOrderId(), toStatus)) {
+            throw new RuntimeException("餐桌状态已变化，请刷新后重试");
+        }
+
         BeanUtils.copyProperties(tableInfoDTO, tableInfo);
 
         // 设置更新信息
@@ -69,6 +85,7 @@ public class TableInfoServiceImpl implements TableInfoService {
         tableInfo.setUpdateTime(LocalDateTime.now());
 
         tableInfoMapper.update(tableInfo);
+        tableBoard.onTableChanged(tableInfo.getId());
     }
 
     @Override
@@ -90,6 +107,7 @@ public class TableInfoServiceImpl implements TableInfoService {
         }
 
         tableInfoMapper.deleteById(id);
+        tableBoard.onTableChanged(id);
     }
 
     @Override
@@ -4,6 +4,8 @@ package fun.cyhgraph.service.serviceImpl;
 import fun.cyhgraph.entity.TableInfo;
 import fun.cyhgraph.mapper.UtableInfoMapper;
 import fun.cyhgraph.service.TableManagementService;
+import fun.cyhgraph.service.TableStateMachine;
+import fun.cyhgraph.table.TableBoard;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -17,22 +19,21 @@ public class TableManagementServiceImpl implements TableManagementService {
 
     @Autowired
     private UtableInfoMapper utableInfoMapper;
+    @Autowired
+    private TableStateMachine tableStateMachine;
+    @Autowired
+    private TableBoard tableBoard;
 
     @Override
     @Transactional
     public boolean occupyTable(Long tableId, Integer orderId) {
         try {
-            // 检查餐桌是否存在且空闲
-            TableInfo table = utableInfoMapper.selectById(tableId);
-            if (table == null || table.getStatus() != 1) {
-                log.error("餐桌不可用，tableId: {}, status: {}", tableId,
-                        table != null ? table.getStatus() : "null");
+            // 空闲/已预订 -> 占用中，条件update保证检查和占用是原子的
+            if (!tableStateMachine.occupy(tableId, orderId)) {
+                log.error("餐桌不可用，tableId: {}, status: {}", tableId, utableInfoMapper.selectStatusById(tableId));
                 return false;
             }
 
-            // 更新餐桌状态为占用中
-            utableInfoMapper.updateStatus(tableId, 2);
-
             log.info("餐桌占用成功，tableId: {}, orderId: {}", tableId, orderId);
             return true;
         } catch (Exception e) {
@@ -43,18 +44,15 @@ public class TableManagementServiceImpl implements TableManagementService {
 
     @Override
     @Transactional
-    public boolean releaseTable(Long tableId) {
+    public boolean releaseTable(Long tableId, Integer orderId) {
         try {
-            TableInfo table = utableInfoMapper.selectById(tableId);
-            if (table == null) {
-                log.error("餐桌不存在，tableId: {}", tableId);
+            // 占用中/已预订 -> 空闲
+            if (!tableStateMachine.release(tableId, orderId)) {
+                log.error("餐桌不存在或无需释放，tableId: {}", tableId);
                 return false;
             }
 
-            // 更新餐桌状态为空闲
-            utableInfoMapper.updateStatus(tableId, 1);
-
-            log.info("餐桌释放成功，tableId: {}", tableId);
+            log.info("餐桌释放成功，tableId: {}, orderId: {}", tableId, orderId);
             return true;
         } catch (Exception e) {
             log.error("释放餐桌失败", e);
@@ -64,13 +62,11 @@ public class TableManagementServiceImpl implements TableManagementService {
 
     @Override
     public List<TableInfo> getAvailableTables() {
-        return utableInfoMapper.selectAvailableTables();
+        return tableBoard.listAvailable();
     }
 
     @Override
     public boolean isTableAvailable(Long tableId) {
-        if (tableId == null) return false;
-        TableInfo table = utableInfoMapper.selectById(tableId);
-        return table != null && table.getStatus() == 1;
+        return tableBoard.isAvailable(tableId);
     }
 }
\ No newline at end of file
@@ -0,0 +1,109 @@
+package fun.cyhgraph.service.serviceImpl;
+
+import fun.cyhgraph.constant.TableStatusConstant;
+import fun.cyhgraph.mapper.UtableInfoMapper;
+import fun.cyhgraph.service.TableStateMachine;
+import fun.cyhgraph.table.TableBoard;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+@Service
+@Slf4j
+public class TableStateMachineImpl implements TableStateMachine {
+
+    @Autowired
+    private UtableInfoMapper utableInfoMapper;
+    @Autowired
+    private TableBoard tableBoard;
+
+    @Override
+    public boolean reserve(Long tableId, Integer orderId) {
+        return transition(tableId, TableStatusConstant.FREE, null, TableStatusConstant.RESERVED, orderId);
+    }
+
+    @Override
+    public boolean occupy(Long tableId, Integer orderId) {
+        return transition(tableId, TableStatusConstant.RESERVED, orderId, TableStatusConstant.OCCUPIED, orderId)
+                || transition(tableId, TableStatusConstant.FREE, null, TableStatusConstant.OCCUPIED, orderId);
+    }
+
+    @Override
+    public boolean release(Long tableId, Integer orderId) {
+        return transition(tableId, TableStatusConstant.OCCUPIED, orderId, TableStatusConstant.FREE, null)
+                || transition(tableId, TableStatusConstant.RESERVED, orderId, TableStatusConstant.FREE, null);
+    }
+
+    @Override
+    public boolean cancelReservation(Long tableId, Integer orderId) {
+        return transition(tableId, TableStatusConstant.RESERVED, orderId, TableStatusConstant.FREE, null);
+    }
+
+    @Override
+    public boolean disable(Long tableId) {
+        return transition(tableId, TableStatusConstant.FREE, TableStatusConstant.DISABLED);
+    }
+
+    @Override
+    public boolean enable(Long tableId) {
+        return transition(tableId, TableStatusConstant.DISABLED, TableStatusConstant.FREE);
+    }
+
+    @Override
+    public boolean changeStatus(Long tableId, Integer toStatus) {
+        if (toStatus == null || toStatus < TableStatusConstant.FREE || toStatus > TableStatusConstant.DISABLED) {
+            return false;
+        }
+        Integer fromStatus = utableInfoMapper.selectStatusById(tableId);
+        if (fromStatus == null) {
+            return false;
+        }
+        if (fromStatus.equals(toStatus)) {
+            return true;
+        }
+        return transition(tableId, fromStatus, toStatus);
+    }
+
+    @Override
+    public boolean changeStatus(Long tableId, Integer fromStatus, Integer fromOrderId, Integer toStatus) {
+        if (toStatus == null || toStatus < TableStatusConstant.FREE || toStatus > TableStatusConstant.DISABLED) {
+            return false;
+        }
+        if (toStatus.equals(fromStatus)) {
+            return true;
+        }
+        Integer toOrderId = TableStatusConstant.FREE.equals(toStatus) || TableStatusConstant.DISABLED.equals(toStatus)
+                ? null : fromOrderId;
+        return transition(tableId, fromStatus, fromOrderId, toStatus, toOrderId);
+    }
+
+    /**
+     * 一条条件update完成状态变化，不检查餐桌上的订单，根据受影响行数判断是否成功
+     */
+    private boolean transition(Long tableId, Integer fromStatus, Integer toStatus) {
+        if (tableId == null) {
+            return false;
+        }
+        return changed(tableId, fromStatus, toStatus, utableInfoMapper.compareAndSetStatus(tableId, fromStatus, toStatus));
+    }
+
+    /**
+     * 一条条件update完成状态和订单的变化，餐桌当前的状态和订单都符合时才修改
+     */
+    private boolean transition(Long tableId, Integer fromStatus, Integer fromOrderId, Integer toStatus, Integer toOrderId) {
+        if (tableId == null) {
+            return false;
+        }
+        return changed(tableId, fromStatus, toStatus,
+                utableInfoMapper.compareAndSetStatusAndOrder(tableId, fromStatus, fromOrderId, toStatus, toOrderId));
+    }
+
+    private boolean changed(Long tableId, Integer fromStatus, Integer toStatus, int rows) {
+        boolean success = rows == 1;
+        if (success) {
+            log.info("餐桌状态变化，tableId: {}, {} -> {}", tableId, fromStatus, toStatus);
+            tableBoard.onStatusChanged(tableId, fromStatus, toStatus);
+        }
+        return success;
+    }
+}
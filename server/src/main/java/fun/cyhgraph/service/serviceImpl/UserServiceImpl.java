@@ -6,6 +6,7 @@ import fun.cyhgraph.constant.MessageConstant;
 import fun.cyhgraph.dto.UserDTO;
 import fun.cyhgraph.dto.UserLoginDTO;
 import fun.cyhgraph.entity.User;
+import fun.cyhgraph.event.UserRegisteredEvent;
 import fun.cyhgraph.exception.LoginFailedException;
 import fun.cyhgraph.mapper.UserMapper;
 import fun.cyhgraph.properties.WeChatProperties;
@@ -13,6 +14,7 @@ import fun.cyhgraph.service.UserService;
 import fun.cyhgraph.utils.HttpClientUtil;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
@@ -29,6 +31,8 @@ public class UserServiceImpl implements UserService {
     private WeChatProperties weChatProperties;
     @Autowired
     private UserMapper userMapper;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
 
 
     /**
@@ -53,6 +57,7 @@ public class UserServiceImpl implements UserService {
                     .createTime(LocalDateTime.now())
                     .build();
             userMapper.insert(user);
+            eventPublisher.publishEvent(new UserRegisteredEvent(user));
         }
         return user;
     }
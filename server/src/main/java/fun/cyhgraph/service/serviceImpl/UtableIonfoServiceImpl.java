@@ -1,9 +1,10 @@
 package fun.cyhgraph.service.serviceImpl;
 
+import fun.cyhgraph.constant.TableStatusConstant;
 import fun.cyhgraph.entity.TableInfo;
-import fun.cyhgraph.mapper.UtableInfoMapper;
 import fun.cyhgraph.result.Result;
 import fun.cyhgraph.service.UtableIonfoService;
+import fun.cyhgraph.table.TableBoard;
 import fun.cyhgraph.vo.TableInfoVO;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeanUtils;
@@ -16,21 +17,15 @@ import java.util.stream.Collectors;
 @Slf4j
 public class UtableIonfoServiceImpl  implements UtableIonfoService {
     @Autowired
-    private UtableInfoMapper utableInfoMapper;
+    private TableBoard tableBoard;
     @Override
     public Result<List<TableInfoVO>> getAvailableTables() {
         try {
-            // 查询状态为1（空闲）的餐桌
-            List<TableInfo> tables = utableInfoMapper.selectAvailableTables();
+            // 从餐桌看板中获取状态为1（空闲）的餐桌
+            List<TableInfo> tables = tableBoard.listAvailable();
 
             List<TableInfoVO> tableVOs = tables.stream()
-                    .map(table -> {
-                        TableInfoVO vo = new TableInfoVO();
-                        BeanUtils.copyProperties(table, vo);
-                        // 可以设置状态描述
-                        vo.setStatusDesc("空闲");
-                        return vo;
-                    })
+                    .map(this::convertToVO)
                     .collect(Collectors.toList());
 
             return Result.success(tableVOs);
@@ -42,17 +37,20 @@ public class UtableIonfoServiceImpl  implements UtableIonfoService {
 
     @Override
     public boolean isTableAvailable(Long tableId) {
-        if (tableId == null) {
-            return false;
-        }
-        TableInfo table = utableInfoMapper.selectById(tableId);
-        return table != null && table.getStatus() == 1; // 状态为1表示空闲
+        return tableBoard.isAvailable(tableId); // 状态为1表示空闲
     }
 
     @Override
     public TableInfoVO getById(Long tableId) {
-        return null;
+        TableInfo table = tableBoard.get(tableId);
+        return table == null ? null : convertToVO(table);
     }
 
+    private TableInfoVO convertToVO(TableInfo table) {
+        TableInfoVO vo = new TableInfoVO();
+        BeanUtils.copyProperties(table, vo);
+        vo.setStatusDesc(TableStatusConstant.FREE.equals(table.getStatus()) ? "空闲" : "不可用");
+        return vo;
+    }
 
 }
@@ -7,6 +7,8 @@ import fun.cyhgraph.mapper.OrderMapper;
 import fun.cyhgraph.mapper.SetmealMapper;
 import fun.cyhgraph.mapper.UserMapper;
 import fun.cyhgraph.service.WorkSpaceService;
+import fun.cyhgraph.stats.OrderStatusCounters;
+import fun.cyhgraph.stats.TodayBusinessData;
 import fun.cyhgraph.vo.BusinessDataVO;
 import fun.cyhgraph.vo.DishOverViewVO;
 import fun.cyhgraph.vo.OrderOverViewVO;
@@ -14,6 +16,7 @@ import fun.cyhgraph.vo.SetmealOverViewVO;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.HashMap;
@@ -30,6 +33,10 @@ public class WorkSpaceServiceImpl implements WorkSpaceService {
     private DishMapper dishMapper;
     @Autowired
     private SetmealMapper setmealMapper;
+    @Autowired
+    private OrderStatusCounters orderStatusCounters;
+    @Autowired
+    private TodayBusinessData todayBusinessData;
 
     /**
      * 工作台今日数据总览
@@ -38,6 +45,12 @@ public class WorkSpaceServiceImpl implements WorkSpaceService {
      * @return
      */
     public BusinessDataVO getBusinessData(LocalDateTime begin, LocalDateTime end) {
+        // 查询的是今天一整天，直接读取内存中的今日营业数据
+        LocalDate today = LocalDate.now();
+        if (LocalDateTime.of(today, LocalTime.MIN).equals(begin) && LocalDateTime.of(today, LocalTime.MAX).equals(end)) {
+            return todayBusinessData.get();
+        }
+
         /**
          * 营业额：当日已完成订单的总金额
          * 有效订单：当日已完成订单的数量
@@ -83,19 +96,13 @@ public class WorkSpaceServiceImpl implements WorkSpaceService {
     public OrderOverViewVO getOrderOverView() {
         /**
          * 全部订单 待接单 待派送 已完成 已取消
+         * 直接读取今日订单状态计数器，不再count
          */
-        Map map = new HashMap();
-        map.put("begin", LocalDateTime.now().with(LocalTime.MIN));
-        Integer allOrders = orderMapper.countByMap(map);
-
-        map.put("status", Order.TO_BE_CONFIRMED);
-        Integer toConfirmed = orderMapper.countByMap(map);
-        map.put("status", Order.CONFIRMED);
-        Integer toDelivery = orderMapper.countByMap(map);
-        map.put("status", Order.COMPLETED);
-        Integer completed = orderMapper.countByMap(map);
-        map.put("status", Order.CANCELLED);
-        Integer canceled = orderMapper.countByMap(map);
+        Integer allOrders = orderStatusCounters.countToday();
+        Integer toConfirmed = orderStatusCounters.countToday(Order.TO_BE_CONFIRMED);
+        Integer toDelivery = orderStatusCounters.countToday(Order.CONFIRMED);
+        Integer completed = orderStatusCounters.countToday(Order.COMPLETED);
+        Integer canceled = orderStatusCounters.countToday(Order.CANCELLED);
 
         return OrderOverViewVO.builder()
                 .allOrders(allOrders)
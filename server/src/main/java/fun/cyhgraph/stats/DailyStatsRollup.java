@@ -0,0 +1,307 @@
+package fun.cyhgraph.stats;
+
+import fun.cyhgraph.entity.OrderDailyStats;
+import fun.cyhgraph.entity.UserDailyStats;
+import fun.cyhgraph.event.OrderStatusChangedEvent;
+import fun.cyhgraph.mapper.DailyStatsMapper;
+import fun.cyhgraph.report.ReportCache;
+import fun.cyhgraph.vo.BusinessDataVO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 报表日汇总
+ * 历史日期从order_daily_stats、user_daily_stats按区间一次查出，当天数据取TodayBusinessData，
+ * 不再按天逐条count/sum。每天凌晨汇总前几天的数据，已汇总日期的订单状态再发生变化时记为脏日期重新汇总
+ * 脏日期记在redis set中，重启或宕机不会丢失，多节点时每个日期只会被一个节点领取
+ */
+@Component
+@Slf4j
+public class DailyStatsRollup {
+
+    // 每次定时汇总往前覆盖的天数，兜住跨天完成、凌晨批量完成的订单
+    private static final int RECENT_DAYS = 3;
+    private static final String DIRTY_DATES_KEY = "report_dirty_dates";
+
+    @Autowired
+    private DailyStatsMapper dailyStatsMapper;
+    @Autowired
+    private TodayBusinessData todayBusinessData;
+    @Autowired
+    private DishSalesRanking dishSalesRanking;
+    @Autowired
+    private ReportCache reportCache;
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    /**
+     * 区间内每一天的订单汇总，首尾都包含，没有数据的日期补0
+     * @param begin
+     * @param end
+     * @return
+     */
+    public List<OrderDailyStats> getOrderStats(LocalDate begin, LocalDate end) {
+        LocalDate today = LocalDate.now();
+        Map<LocalDate, OrderDailyStats> statsMap = new HashMap<>();
+        LocalDate historyEnd = end.isBefore(today) ? end : today.minusDays(1);
+        if (!begin.isAfter(historyEnd)) {
+            // 历史部分汇总后不再变化，放入报表缓存
+            statsMap.putAll(reportCache.get("orderDaily", begin, historyEnd, null,
+                    () -> loadOrderHistory(begin, historyEnd)));
+        }
+        if (!today.isBefore(begin) && !today.isAfter(end)) {
+            statsMap.put(today, todayBusinessData.orderStats());
+        }
+        List<OrderDailyStats> result = new ArrayList<>();
+        for (LocalDate date = begin; !date.isAfter(end); date = date.plusDays(1)) {
+            OrderDailyStats stats = statsMap.get(date);
+            result.add(stats != null ? stats : new OrderDailyStats(date, 0, 0, BigDecimal.ZERO));
+        }
+        return result;
+    }
+
+    /**
+     * 区间内每一天的新增用户，首尾都包含，没有数据的日期补0
+     * @param begin
+     * @param end
+     * @return
+     */
+    public List<UserDailyStats> getUserStats(LocalDate begin, LocalDate end) {
+        LocalDate today = LocalDate.now();
+        Map<LocalDate, UserDailyStats> statsMap = new HashMap<>();
+        LocalDate historyEnd = end.isBefore(today) ? end : today.minusDays(1);
+        if (!begin.isAfter(historyEnd)) {
+            statsMap.putAll(reportCache.get("userDaily", begin, historyEnd, null,
+                    () -> loadUserHistory(begin, historyEnd)));
+        }
+        if (!today.isBefore(begin) && !today.isAfter(end)) {
+            statsMap.put(today, todayBusinessData.userStats());
+        }
+        List<UserDailyStats> result = new ArrayList<>();
+        for (LocalDate date = begin; !date.isAfter(end); date = date.plusDays(1)) {
+            UserDailyStats stats = statsMap.get(date);
+            result.add(stats != null ? stats : new UserDailyStats(date, 0));
+        }
+        return result;
+    }
+
+    /**
+     * 指定日期之前注册的用户总数
+     * @param date
+     * @return
+     */
+    public int countUsersBefore(LocalDate date) {
+        LocalDate today = LocalDate.now();
+        LocalDate rolledEnd = date.isAfter(today) ? today : date;
+        int total = reportCache.get("userBase", LocalDate.of(1970, 1, 1), rolledEnd.minusDays(1), null,
+                () -> loadUsersBefore(rolledEnd));
+        if (date.isAfter(today)) {
+            total += todayBusinessData.userStats().getNewUserCount();
+        }
+        return total;
+    }
+
+    /**
+     * 已汇总日期的订单状态发生变化（如隔天完成、取消），记下日期等待重新汇总
+     * @param event
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        LocalDateTime orderTime = event.getOrder().getOrderTime();
+        if (orderTime == null || !orderTime.toLocalDate().isBefore(LocalDate.now())) {
+            return;
+        }
+        LocalDate date = orderTime.toLocalDate();
+        try {
+            stringRedisTemplate.opsForSet().add(DIRTY_DATES_KEY, date.toString());
+        } catch (Exception e) {
+            // 记不下来时直接重新汇总，避免这一天的变化丢失
+            log.warn("记录报表脏日期失败，直接重新汇总：{}", date, e);
+            rollup(date, date);
+        }
+    }
+
+    /**
+     * 逐个领取脏日期重新汇总，汇总失败的日期放回去下次重试
+     */
+    @Scheduled(fixedDelay = 60000, initialDelay = 60000)
+    public void rollupDirty() {
+        String date;
+        while ((date = stringRedisTemplate.opsForSet().pop(DIRTY_DATES_KEY)) != null) {
+            LocalDate dirtyDate;
+            try {
+                dirtyDate = LocalDate.parse(date);
+            } catch (DateTimeParseException e) {
+                log.warn("忽略格式错误的报表脏日期：{}", date);
+                continue;
+            }
+            try {
+                rollup(dirtyDate, dirtyDate);
+            } catch (RuntimeException e) {
+                stringRedisTemplate.opsForSet().add(DIRTY_DATES_KEY, date);
+                log.error("报表脏日期重新汇总失败：{}", date, e);
+                return;
+            }
+        }
+    }
+
+    /**
+     * 启动时补齐汇总表，首次部署从最早的订单或用户开始
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        LocalDate lastOrderStatDate = dailyStatsMapper.getLastOrderStatDate();
+        LocalDate lastUserStatDate = dailyStatsMapper.getLastUserStatDate();
+        LocalDate begin;
+        if (lastOrderStatDate == null || lastUserStatDate == null) {
+            begin = dailyStatsMapper.getEarliestTime().toLocalDate();
+        } else {
+            LocalDate lastStatDate = lastOrderStatDate.isBefore(lastUserStatDate) ? lastOrderStatDate : lastUserStatDate;
+            begin = lastStatDate.minusDays(RECENT_DAYS - 1);
+        }
+        rollup(begin, LocalDate.now().minusDays(1));
+    }
+
+    /**
+     * 每天凌晨汇总最近几天的数据
+     */
+    @Scheduled(cron = "0 5 0 * * ?")
+    public void rollupRecent() {
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        rollup(yesterday.minusDays(RECENT_DAYS - 1), yesterday);
+    }
+
+    /**
+     * 重新汇总区间内的每一天，首尾都包含，不含今天
+     * @param begin
+     * @param end
+     */
+    public void rollup(LocalDate begin, LocalDate end) {
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        if (end.isAfter(yesterday)) {
+            end = yesterday;
+        }
+        if (begin.isAfter(end)) {
+            return;
+        }
+        // 先汇总菜品销量，订单日汇总的最后一天同时作为销量已汇总到的日期
+        dishSalesRanking.rollup(begin, end);
+        LocalDateTime beginTime = LocalDateTime.of(begin, LocalTime.MIN);
+        LocalDateTime endTime = LocalDateTime.of(end.plusDays(1), LocalTime.MIN);
+        Map<LocalDate, OrderDailyStats> orderMap = new HashMap<>();
+        for (OrderDailyStats stats : dailyStatsMapper.aggregateOrders(beginTime, endTime)) {
+            orderMap.put(stats.getStatDate(), stats);
+        }
+        Map<LocalDate, UserDailyStats> userMap = new HashMap<>();
+        for (UserDailyStats stats : dailyStatsMapper.aggregateUsers(beginTime, endTime)) {
+            userMap.put(stats.getStatDate(), stats);
+        }
+        // 没有数据的日期也写入0，分批写入避免单条SQL过长
+        List<OrderDailyStats> orderList = new ArrayList<>();
+        List<UserDailyStats> userList = new ArrayList<>();
+        for (LocalDate date = begin; !date.isAfter(end); date = date.plusDays(1)) {
+            OrderDailyStats orderStats = orderMap.get(date);
+            orderList.add(orderStats != null ? orderStats : new OrderDailyStats(date, 0, 0, BigDecimal.ZERO));
+            UserDailyStats userStats = userMap.get(date);
+            userList.add(userStats != null ? userStats : new UserDailyStats(date, 0));
+            if (orderList.size() >= 500) {
+                dailyStatsMapper.upsertOrderStats(orderList);
+                dailyStatsMapper.upsertUserStats(userList);
+                orderList.clear();
+                userList.clear();
+            }
+        }
+        if (!orderList.isEmpty()) {
+            dailyStatsMapper.upsertOrderStats(orderList);
+            dailyStatsMapper.upsertUserStats(userList);
+        }
+        // 汇总数据已变化，删除涉及这些日期的报表缓存
+        reportCache.invalidate(begin, end);
+        log.info("报表日汇总完成，{} 至 {}", begin, end);
+    }
+
+    /**
+     * 历史日期的订单汇总，汇总表没覆盖到的日期从订单表统计
+     */
+    private Map<LocalDate, OrderDailyStats> loadOrderHistory(LocalDate begin, LocalDate historyEnd) {
+        Map<LocalDate, OrderDailyStats> statsMap = new HashMap<>();
+        for (OrderDailyStats stats : dailyStatsMapper.listOrderStats(begin, historyEnd)) {
+            statsMap.put(stats.getStatDate(), stats);
+        }
+        // 还没汇总的日期（如刚过零点定时任务还没执行）直接从订单表查一次
+        LocalDate missingBegin = missingBegin(dailyStatsMapper.getLastOrderStatDate(), begin);
+        if (!missingBegin.isAfter(historyEnd)) {
+            for (OrderDailyStats stats : dailyStatsMapper.aggregateOrders(
+                    LocalDateTime.of(missingBegin, LocalTime.MIN),
+                    LocalDateTime.of(historyEnd.plusDays(1), LocalTime.MIN))) {
+                statsMap.putIfAbsent(stats.getStatDate(), stats);
+            }
+        }
+        return statsMap;
+    }
+
+    /**
+     * 历史日期的用户汇总，汇总表没覆盖到的日期从用户表统计
+     */
+    private Map<LocalDate, UserDailyStats> loadUserHistory(LocalDate begin, LocalDate historyEnd) {
+        Map<LocalDate, UserDailyStats> statsMap = new HashMap<>();
+        for (UserDailyStats stats : dailyStatsMapper.listUserStats(begin, historyEnd)) {
+            statsMap.put(stats.getStatDate(), stats);
+        }
+        LocalDate missingBegin = missingBegin(dailyStatsMapper.getLastUserStatDate(), begin);
+        if (!missingBegin.isAfter(historyEnd)) {
+            for (UserDailyStats stats : dailyStatsMapper.aggregateUsers(
+                    LocalDateTime.of(missingBegin, LocalTime.MIN),
+                    LocalDateTime.of(historyEnd.plusDays(1), LocalTime.MIN))) {
+                statsMap.putIfAbsent(stats.getStatDate(), stats);
+            }
+        }
+        return statsMap;
+    }
+
+    /**
+     * 指定日期之前的用户总数，汇总表没覆盖到的日期从用户表统计
+     */
+    private int loadUsersBefore(LocalDate rolledEnd) {
+        int total = dailyStatsMapper.sumNewUsersBefore(rolledEnd);
+        // 汇总表还没覆盖到的日期补上
+        LocalDate missingBegin = missingBegin(dailyStatsMapper.getLastUserStatDate(), LocalDate.of(1970, 1, 1));
+        if (missingBegin.isBefore(rolledEnd)) {
+            for (UserDailyStats stats : dailyStatsMapper.aggregateUsers(
+                    LocalDateTime.of(missingBegin, LocalTime.MIN),
+                    LocalDateTime.of(rolledEnd, LocalTime.MIN))) {
+                total += stats.getNewUserCount();
+            }
+        }
+        return total;
+    }
+
+    /**
+     * 需要直接从业务表统计的第一天：汇总表最后一天的下一天，汇总表为空时从begin开始
+     * 汇总表覆盖范围内缺行的日期没有订单或用户，按0处理
+     */
+    private LocalDate missingBegin(LocalDate lastStatDate, LocalDate begin) {
+        if (lastStatDate == null) {
+            return begin;
+        }
+        LocalDate next = lastStatDate.plusDays(1);
+        return next.isAfter(begin) ? next : begin;
+    }
+}
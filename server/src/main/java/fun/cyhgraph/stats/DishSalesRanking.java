@@ -0,0 +1,177 @@
+package fun.cyhgraph.stats;
+
+import fun.cyhgraph.entity.DishSalesDaily;
+import fun.cyhgraph.mapper.DailyStatsMapper;
+import fun.cyhgraph.mapper.DishSalesMapper;
+import fun.cyhgraph.report.ReportCache;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * 菜品、套餐销量排行
+ * 历史日期按商品合并dish_sales_daily中的日销量，还没汇总的日期和今天直接从订单明细统计，
+ * 合并后用大小为N的小顶堆取前N，不再对区间内的全部订单明细排序
+ */
+@Component
+@Slf4j
+public class DishSalesRanking {
+
+    // 汇总时每次统计的天数，首次补齐历史数据时分段执行
+    private static final int ROLLUP_WINDOW_DAYS = 31;
+    private static final int INSERT_BATCH_SIZE = 500;
+
+    // 销量升序，销量相同时名称大的在前，堆顶是当前前N中排名最后的商品
+    private static final Comparator<DishSalesDaily> RANK_ASC = Comparator
+            .comparing(DishSalesDaily::getNumber)
+            .thenComparing(DishSalesDaily::getName, Comparator.nullsFirst(Comparator.<String>reverseOrder()));
+
+    @Autowired
+    private DishSalesMapper dishSalesMapper;
+    @Autowired
+    private DailyStatsMapper dailyStatsMapper;
+    @Autowired
+    private ReportCache reportCache;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    /**
+     * 区间内销量前N的商品，可按分类、就餐方式过滤
+     * @param begin
+     * @param end
+     * @param n
+     * @param categoryId
+     * @param diningType
+     * @return 按销量从高到低排列
+     */
+    public List<DishSalesDaily> top(LocalDate begin, LocalDate end, int n, Integer categoryId, Integer diningType) {
+        return topN(sumByItem(begin, end, categoryId, diningType).values(), n);
+    }
+
+    /**
+     * 区间内每个分类销量前N的商品，可按就餐方式过滤
+     * @param begin
+     * @param end
+     * @param n
+     * @param diningType
+     * @return 分类id -> 按销量从高到低排列的商品
+     */
+    public Map<Integer, List<DishSalesDaily>> topByCategory(LocalDate begin, LocalDate end, int n, Integer diningType) {
+        Map<Integer, List<DishSalesDaily>> categoryItems = new LinkedHashMap<>();
+        for (DishSalesDaily sales : sumByItem(begin, end, null, diningType).values()) {
+            categoryItems.computeIfAbsent(sales.getCategoryId(), k -> new ArrayList<>()).add(sales);
+        }
+        Map<Integer, List<DishSalesDaily>> result = new LinkedHashMap<>();
+        categoryItems.forEach((categoryId, items) -> result.put(categoryId, topN(items, n)));
+        return result;
+    }
+
+    /**
+     * 重新汇总区间内每一天的销量，首尾都包含，由DailyStatsRollup在订单日汇总之前调用
+     * 每段单独一个事务，首次补齐大量历史数据时不会形成一个大事务
+     * @param begin
+     * @param end
+     */
+    public void rollup(LocalDate begin, LocalDate end) {
+        for (LocalDate windowBegin = begin; !windowBegin.isAfter(end); windowBegin = windowBegin.plusDays(ROLLUP_WINDOW_DAYS)) {
+            LocalDate windowEnd = windowBegin.plusDays(ROLLUP_WINDOW_DAYS - 1);
+            if (windowEnd.isAfter(end)) {
+                windowEnd = end;
+            }
+            LocalDate from = windowBegin;
+            LocalDate to = windowEnd;
+            transactionTemplate.executeWithoutResult(status -> rollupWindow(from, to));
+        }
+    }
+
+    /**
+     * 重新汇总一段日期：删除后重新写入
+     */
+    private void rollupWindow(LocalDate begin, LocalDate end) {
+        List<DishSalesDaily> salesList = dishSalesMapper.aggregateFromOrders(
+                begin.atStartOfDay(), end.plusDays(1).atStartOfDay());
+        dishSalesMapper.deleteByDateRange(begin, end);
+        for (int i = 0; i < salesList.size(); i += INSERT_BATCH_SIZE) {
+            dishSalesMapper.insertBatch(salesList.subList(i, Math.min(i + INSERT_BATCH_SIZE, salesList.size())));
+        }
+    }
+
+    /**
+     * 区间内按商品合并销量
+     * 已汇总的日期查dish_sales_daily，之后的日期（含今天）从订单明细统计
+     */
+    private Map<String, DishSalesDaily> sumByItem(LocalDate begin, LocalDate end, Integer categoryId, Integer diningType) {
+        LocalDate today = LocalDate.now();
+        LocalDate lastStatDate = dailyStatsMapper.getLastOrderStatDate();
+        Map<String, DishSalesDaily> merged = new HashMap<>();
+        LocalDate historyEnd = lastStatDate == null || lastStatDate.isAfter(end) ? end : lastStatDate;
+        if (lastStatDate != null && !begin.isAfter(historyEnd)) {
+            // 已汇总的部分不再变化，放入报表缓存，重新汇总时失效
+            List<DishSalesDaily> history = reportCache.get("dishSales", begin, historyEnd, categoryId + "-" + diningType,
+                    () -> dishSalesMapper.sumByItem(begin, historyEnd, categoryId, diningType));
+            for (DishSalesDaily sales : history) {
+                merge(merged, sales);
+            }
+        }
+        LocalDate liveBegin = lastStatDate == null || lastStatDate.isBefore(begin) ? begin : lastStatDate.plusDays(1);
+        LocalDate liveEnd = end.isAfter(today) ? today : end;
+        if (!liveBegin.isAfter(liveEnd)) {
+            for (DishSalesDaily sales : dishSalesMapper.aggregateFromOrders(
+                    liveBegin.atStartOfDay(), liveEnd.plusDays(1).atStartOfDay())) {
+                if ((categoryId == null || categoryId.equals(sales.getCategoryId()))
+                        && (diningType == null || diningType.equals(sales.getDiningType()))) {
+                    merge(merged, sales);
+                }
+            }
+        }
+        return merged;
+    }
+
+    private void merge(Map<String, DishSalesDaily> merged, DishSalesDaily sales) {
+        String key = sales.getItemType() + ":" + sales.getItemId();
+        DishSalesDaily current = merged.get(key);
+        if (current == null) {
+            // 复制一份再累加，不修改查询结果
+            merged.put(key, DishSalesDaily.builder()
+                    .itemType(sales.getItemType())
+                    .itemId(sales.getItemId())
+                    .categoryId(sales.getCategoryId())
+                    .name(sales.getName())
+                    .number(sales.getNumber())
+                    .amount(sales.getAmount())
+                    .build());
+            return;
+        }
+        current.setNumber(current.getNumber() + sales.getNumber());
+        current.setAmount(current.getAmount().add(sales.getAmount()));
+    }
+
+    /**
+     * 小顶堆取销量前N，按销量从高到低返回
+     */
+    private List<DishSalesDaily> topN(Collection<DishSalesDaily> items, int n) {
+        PriorityQueue<DishSalesDaily> heap = new PriorityQueue<>(n + 1, RANK_ASC);
+        for (DishSalesDaily item : items) {
+            if (heap.size() < n) {
+                heap.offer(item);
+            } else if (RANK_ASC.compare(item, heap.peek()) > 0) {
+                heap.poll();
+                heap.offer(item);
+            }
+        }
+        List<DishSalesDaily> result = new ArrayList<>(heap);
+        result.sort(RANK_ASC.reversed());
+        return result;
+    }
+}
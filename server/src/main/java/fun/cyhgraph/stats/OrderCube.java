@@ -0,0 +1,371 @@
+package fun.cyhgraph.stats;
+
+import fun.cyhgraph.constant.MessageConstant;
+import fun.cyhgraph.entity.Order;
+import fun.cyhgraph.event.OrderStatusChangedEvent;
+import fun.cyhgraph.exception.ReportBusinessException;
+import fun.cyhgraph.mapper.OrderMapper;
+import fun.cyhgraph.properties.OrderCubeProperties;
+import fun.cyhgraph.vo.OrderCubeCellVO;
+import fun.cyhgraph.vo.OrderCubeVO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 内存订单分析，按列存放最近一段时间的订单：id、下单时间、金额（分）、状态、就餐方式、用户id、餐桌id
+ * 启动时从数据库加载，之后由订单状态变化事件维护，每天凌晨重新加载一次丢掉超出保留天数的订单；
+ * 按时段、星期、日期、就餐方式、状态分组统计时只扫描基本类型数组，不查询MySQL
+ * 写入在锁内进行，查询不加锁：追加的行在size更新后才可见，状态是单字节原地修改，查询最多读到稍旧的状态
+ */
+@Component
+@Slf4j
+public class OrderCube {
+
+    private static final long SECONDS_PER_DAY = 86400;
+    private static final int MAX_DIMENSIONS = 2;
+
+    @Autowired
+    private OrderMapper orderMapper;
+    @Autowired
+    private OrderCubeProperties orderCubeProperties;
+
+    private volatile Columns columns = new Columns(1024);
+    // 重新加载期间收到的事件，加载完成后在新数据上重放
+    private List<OrderStatusChangedEvent> pending;
+
+    /**
+     * 分组维度
+     */
+    public enum Dimension {
+        HOUR("hour"), WEEKDAY("weekday"), DAY("day"), DINING_TYPE("diningType"), STATUS("status");
+
+        private final String name;
+
+        Dimension(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public static Dimension parse(String name) {
+            for (Dimension dimension : values()) {
+                if (dimension.name.equals(name)) {
+                    return dimension;
+                }
+            }
+            throw new ReportBusinessException(MessageConstant.REPORT_CUBE_DIMENSION_INVALID);
+        }
+    }
+
+    /**
+     * 分组统计订单数和金额，日期范围超出保留天数的部分不统计
+     * @param begin
+     * @param end
+     * @param dimensions 最多2个维度，为空时只统计总数
+     * @param status 订单状态过滤，null表示不过滤
+     * @param diningType 就餐方式过滤，null表示不过滤
+     * @return
+     */
+    public OrderCubeVO query(LocalDate begin, LocalDate end, List<Dimension> dimensions, Integer status, Integer diningType) {
+        if (dimensions.size() > MAX_DIMENSIONS || dimensions.stream().distinct().count() != dimensions.size()) {
+            throw new ReportBusinessException(MessageConstant.REPORT_CUBE_DIMENSION_INVALID);
+        }
+        long start = System.currentTimeMillis();
+        // 内存里只有保留天数内的订单，日期范围先截到这段时间内，按日期分组的数组大小不会超过保留天数
+        LocalDate today = LocalDate.now();
+        LocalDate windowBegin = today.minusDays(orderCubeProperties.getDays() - 1);
+        if (begin.isBefore(windowBegin)) {
+            begin = windowBegin;
+        }
+        if (end.isAfter(today)) {
+            end = today;
+        }
+        if (begin.isAfter(end)) {
+            return OrderCubeVO.builder()
+                    .dimensions(dimensions.stream().map(Dimension::getName).toList())
+                    .cells(new ArrayList<>())
+                    .scannedRows(0)
+                    .costMillis(System.currentTimeMillis() - start)
+                    .build();
+        }
+        long from = toSeconds(begin.atStartOfDay());
+        long to = toSeconds(end.plusDays(1).atStartOfDay());
+        int days = (int) ((to - from) / SECONDS_PER_DAY);
+        int[] sizes = new int[dimensions.size()];
+        int cellCount = 1;
+        for (int d = 0; d < sizes.length; d++) {
+            sizes[d] = size(dimensions.get(d), days);
+            cellCount *= sizes[d];
+        }
+        long[] counts = new long[cellCount];
+        long[] amounts = new long[cellCount];
+
+        Columns c = columns;
+        int n = c.size;
+        for (int i = 0; i < n; i++) {
+            long time = c.orderTime[i];
+            if (time < from || time >= to
+                    || (status != null && c.status[i] != status)
+                    || (diningType != null && c.diningType[i] != diningType)) {
+                continue;
+            }
+            int cell = 0;
+            for (int d = 0; d < sizes.length; d++) {
+                cell = cell * sizes[d] + code(dimensions.get(d), c, i, from);
+            }
+            counts[cell]++;
+            amounts[cell] += c.amount[i];
+        }
+
+        List<OrderCubeCellVO> cells = new ArrayList<>();
+        for (int cell = 0; cell < cellCount; cell++) {
+            if (counts[cell] == 0) {
+                continue;
+            }
+            // 按维度从后往前拆出每个维度的取值
+            String[] keys = new String[sizes.length];
+            int rest = cell;
+            for (int d = sizes.length - 1; d >= 0; d--) {
+                keys[d] = key(dimensions.get(d), rest % sizes[d], begin);
+                rest /= sizes[d];
+            }
+            cells.add(OrderCubeCellVO.builder()
+                    .keys(Arrays.asList(keys))
+                    .orderCount(counts[cell])
+                    .amount(BigDecimal.valueOf(amounts[cell], 2))
+                    .build());
+        }
+        return OrderCubeVO.builder()
+                .dimensions(dimensions.stream().map(Dimension::getName).toList())
+                .cells(cells)
+                .scannedRows(n)
+                .costMillis(System.currentTimeMillis() - start)
+                .build();
+    }
+
+    /**
+     * 新订单追加一行，状态变化更新对应行
+     * @param event
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public synchronized void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        if (pending != null) {
+            pending.add(event);
+        }
+        apply(event);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        reload();
+    }
+
+    /**
+     * 从数据库重新加载保留天数内的订单，加载期间不阻塞事件，加载完成后重放这段时间的事件
+     */
+    @Scheduled(cron = "0 30 3 * * ?")
+    public void reload() {
+        synchronized (this) {
+            pending = new ArrayList<>();
+        }
+        Columns loaded = new Columns(Math.max(1024, columns.size));
+        try {
+            LocalDateTime begin = LocalDate.now().minusDays(orderCubeProperties.getDays() - 1).atStartOfDay();
+            int lastId = 0;
+            while (true) {
+                List<Order> orders = orderMapper.getCubeRowsAfterId(lastId, begin, orderCubeProperties.getLoadPageSize());
+                for (Order order : orders) {
+                    if (loaded.size == loaded.id.length) {
+                        loaded = loaded.copy(loaded.size * 2);
+                    }
+                    loaded.set(loaded.size, order);
+                    loaded.size++;
+                }
+                if (orders.size() < orderCubeProperties.getLoadPageSize()) {
+                    break;
+                }
+                lastId = orders.get(orders.size() - 1).getId();
+            }
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                pending = null;
+            }
+            throw e;
+        }
+        synchronized (this) {
+            columns = loaded;
+            List<OrderStatusChangedEvent> events = pending;
+            pending = null;
+            events.forEach(this::apply);
+        }
+        log.info("内存订单分析数据已加载，订单数: {}", loaded.size);
+    }
+
+    /**
+     * 按订单id找到对应行更新状态，找不到时按id顺序插入新行
+     */
+    private void apply(OrderStatusChangedEvent event) {
+        Order order = event.getOrder();
+        if (order.getId() == null) {
+            return;
+        }
+        Columns c = columns;
+        int n = c.size;
+        int pos = Arrays.binarySearch(c.id, 0, n, order.getId());
+        if (pos >= 0) {
+            c.status[pos] = event.getToStatus().byteValue();
+            return;
+        }
+        // 事件中没有下单时间的订单无法放入，等下次重新加载
+        if (order.getOrderTime() == null) {
+            return;
+        }
+        Order row = new Order();
+        row.setId(order.getId());
+        row.setOrderTime(order.getOrderTime());
+        row.setAmount(order.getAmount());
+        row.setStatus(event.getToStatus());
+        row.setDiningType(order.getDiningType());
+        row.setUserId(order.getUserId());
+        row.setTableId(order.getTableId());
+        int insert = -pos - 1;
+        if (insert == n && n < c.id.length) {
+            // 绝大多数新订单id最大，直接追加，写完数据再更新size让查询可见
+            c.set(n, row);
+            c.size = n + 1;
+            return;
+        }
+        // 数组已满或事务提交顺序与id顺序不一致时，复制一份插入后整体替换，查询不会看到移动中的数据
+        Columns next = new Columns(n == c.id.length ? n * 2 : c.id.length);
+        next.copyFrom(c, 0, 0, insert);
+        next.set(insert, row);
+        next.copyFrom(c, insert, insert + 1, n - insert);
+        next.size = n + 1;
+        columns = next;
+    }
+
+    private int size(Dimension dimension, int days) {
+        switch (dimension) {
+            case HOUR:
+                return 24;
+            case WEEKDAY:
+                return 7;
+            case DAY:
+                return days;
+            case DINING_TYPE:
+                return 3;
+            default:
+                return 8;
+        }
+    }
+
+    /**
+     * 第i行在维度上的下标
+     */
+    private int code(Dimension dimension, Columns c, int i, long from) {
+        long time = c.orderTime[i];
+        switch (dimension) {
+            case HOUR:
+                return (int) (time % SECONDS_PER_DAY / 3600);
+            case WEEKDAY:
+                // 1970-01-01是星期四，下标0表示星期一
+                return (int) Math.floorMod(time / SECONDS_PER_DAY + 3, 7);
+            case DAY:
+                return (int) ((time - from) / SECONDS_PER_DAY);
+            case DINING_TYPE:
+                return c.diningType[i];
+            default:
+                return c.status[i];
+        }
+    }
+
+    /**
+     * 维度下标转成返回给前端的取值
+     */
+    private String key(Dimension dimension, int code, LocalDate begin) {
+        switch (dimension) {
+            case WEEKDAY:
+                return String.valueOf(code + 1);
+            case DAY:
+                return begin.plusDays(code).toString();
+            default:
+                return String.valueOf(code);
+        }
+    }
+
+    /**
+     * 下单时间按本地时间换算成秒，时段、星期、日期直接由秒数计算
+     */
+    private static long toSeconds(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    /**
+     * 订单列，下标相同的元素属于同一个订单，按订单id升序排列
+     */
+    private static class Columns {
+        private final int[] id;
+        private final long[] orderTime;
+        private final long[] amount;
+        private final byte[] status;
+        private final byte[] diningType;
+        private final int[] userId;
+        private final int[] tableId;
+        private volatile int size;
+
+        private Columns(int capacity) {
+            id = new int[capacity];
+            orderTime = new long[capacity];
+            amount = new long[capacity];
+            status = new byte[capacity];
+            diningType = new byte[capacity];
+            userId = new int[capacity];
+            tableId = new int[capacity];
+        }
+
+        private Columns copy(int capacity) {
+            Columns copy = new Columns(capacity);
+            copy.copyFrom(this, 0, 0, size);
+            copy.size = size;
+            return copy;
+        }
+
+        private void copyFrom(Columns src, int srcPos, int destPos, int length) {
+            System.arraycopy(src.id, srcPos, id, destPos, length);
+            System.arraycopy(src.orderTime, srcPos, orderTime, destPos, length);
+            System.arraycopy(src.amount, srcPos, amount, destPos, length);
+            System.arraycopy(src.status, srcPos, status, destPos, length);
+            System.arraycopy(src.diningType, srcPos, diningType, destPos, length);
+            System.arraycopy(src.userId, srcPos, userId, destPos, length);
+            System.arraycopy(src.tableId, srcPos, tableId, destPos, length);
+        }
+
+        private void set(int i, Order order) {
+            id[i] = order.getId();
+            orderTime[i] = toSeconds(order.getOrderTime());
+            amount[i] = order.getAmount() == null ? 0 : order.getAmount().movePointRight(2).longValue();
+            // 状态1~7、就餐方式1~2以外的取值记为0，分组下标不会越界
+            status[i] = (byte) (order.getStatus() != null && order.getStatus() >= 1 && order.getStatus() <= 7 ? order.getStatus() : 0);
+            diningType[i] = (byte) (Order.DELIVERY.equals(order.getDiningType()) || Order.DINE_IN.equals(order.getDiningType())
+                    ? order.getDiningType() : 0);
+            userId[i] = order.getUserId() == null ? 0 : order.getUserId();
+            tableId[i] = order.getTableId() == null ? 0 : order.getTableId().intValue();
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package fun.cyhgraph.stats;
+
+import fun.cyhgraph.dto.OrderStatusCountDTO;
+import fun.cyhgraph.entity.Order;
+import fun.cyhgraph.event.OrderStatusChangedEvent;
+import fun.cyhgraph.mapper.OrderMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 订单状态计数器，工作台和订单管理的状态统计直接读取，不再每次count
+ * 分两组：全部订单按状态计数、今日下单的订单按状态计数；订单状态变化事务提交后更新，
+ * 定时和数据库对账纠正偏差（其他节点的变化、集合更新的变化）
+ */
+@Component
+@Slf4j
+public class OrderStatusCounters {
+
+    // 订单状态 1待付款 2待接单 3已接单 4派送中 5已完成 6已取消
+    private static final int STATUS_COUNT = 7;
+
+    @Autowired
+    private OrderMapper orderMapper;
+
+    private final LongAdder[] total = newCounters();
+    private volatile Day today = new Day(LocalDate.now());
+
+    /**
+     * 全部订单中某个状态的订单数
+     * @param status
+     * @return
+     */
+    public int count(Integer status) {
+        return (int) total[status].sum();
+    }
+
+    /**
+     * 今日下单的订单中某个状态的订单数
+     * @param status
+     * @return
+     */
+    public int countToday(Integer status) {
+        return (int) currentDay().counters[status].sum();
+    }
+
+    /**
+     * 今日下单的订单数
+     * @return
+     */
+    public int countToday() {
+        long sum = 0;
+        for (LongAdder counter : currentDay().counters) {
+            sum += counter.sum();
+        }
+        return (int) sum;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onStatusChanged(OrderStatusChangedEvent event) {
+        Integer from = event.getFromStatus();
+        Integer to = event.getToStatus();
+        if (from != null && from.equals(to)) {
+            return;
+        }
+        move(total, from, to);
+        Order order = event.getOrder();
+        Day day = currentDay();
+        if (order.getOrderTime() != null && day.date.equals(order.getOrderTime().toLocalDate())) {
+            move(day.counters, from, to);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        reconcile();
+    }
+
+    /**
+     * 定时对账，用数据库中按状态分组的订单数覆盖计数器
+     */
+    @Scheduled(fixedDelay = 300000, initialDelay = 300000)
+    public void reconcile() {
+        LocalDate date = LocalDate.now();
+        List<OrderStatusCountDTO> totalCounts = orderMapper.countGroupByStatus(null);
+        List<OrderStatusCountDTO> todayCounts = orderMapper.countGroupByStatus(date.atStartOfDay());
+        reset(total, totalCounts);
+        Day day = new Day(date);
+        reset(day.counters, todayCounts);
+        today = day;
+        log.info("订单状态计数器对账完成");
+    }
+
+    private Day currentDay() {
+        Day day = today;
+        LocalDate date = LocalDate.now();
+        if (!day.date.equals(date)) {
+            // 跨天后今日计数从0开始
+            synchronized (this) {
+                day = today;
+                if (!day.date.equals(date)) {
+                    day = new Day(date);
+                    today = day;
+                }
+            }
+        }
+        return day;
+    }
+
+    private void move(LongAdder[] counters, Integer from, Integer to) {
+        if (from != null && from > 0 && from < STATUS_COUNT) {
+            counters[from].decrement();
+        }
+        if (to != null && to > 0 && to < STATUS_COUNT) {
+            counters[to].increment();
+        }
+    }
+
+    private void reset(LongAdder[] counters, List<OrderStatusCountDTO> counts) {
+        long[] values = new long[STATUS_COUNT];
+        for (OrderStatusCountDTO count : counts) {
+            if (count.getStatus() != null && count.getStatus() > 0 && count.getStatus() < STATUS_COUNT) {
+                values[count.getStatus()] = count.getCount();
+            }
+        }
+        for (int i = 0; i < STATUS_COUNT; i++) {
+            counters[i].reset();
+            counters[i].add(values[i]);
+        }
+    }
+
+    private static LongAdder[] newCounters() {
+        LongAdder[] counters = new LongAdder[STATUS_COUNT];
+        for (int i = 0; i < STATUS_COUNT; i++) {
+            counters[i] = new LongAdder();
+        }
+        return counters;
+    }
+
+    private static class Day {
+        private final LocalDate date;
+        private final LongAdder[] counters = newCounters();
+
+        private Day(LocalDate date) {
+            this.date = date;
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package fun.cyhgraph.stats;
+
+import fun.cyhgraph.entity.Order;
+import fun.cyhgraph.entity.OrderDailyStats;
+import fun.cyhgraph.entity.UserDailyStats;
+import fun.cyhgraph.event.OrderStatusChangedEvent;
+import fun.cyhgraph.event.UserRegisteredEvent;
+import fun.cyhgraph.mapper.OrderMapper;
+import fun.cyhgraph.mapper.UserMapper;
+import fun.cyhgraph.vo.BusinessDataVO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 今日营业数据，工作台直接读取，不再每次刷新执行4条聚合查询
+ * 下单、完成、取消已完成订单、新用户注册时在事务提交后更新，跨天后从0开始；
+ * 启动时和之后定时从数据库重建，纠正其他节点和集合更新带来的偏差
+ * 所有数据放在一个不可变的快照中整体替换，读取到的营业额、订单数、用户数总是一致的
+ */
+@Component
+@Slf4j
+public class TodayBusinessData {
+
+    @Autowired
+    private OrderMapper orderMapper;
+    @Autowired
+    private UserMapper userMapper;
+
+    private volatile Snapshot snapshot = new Snapshot(LocalDate.now(), 0, 0, BigDecimal.ZERO, 0);
+
+    /**
+     * 今日营业数据
+     * @return
+     */
+    public BusinessDataVO get() {
+        Snapshot current = current();
+        /**
+         * 营业额：当日已完成订单的总金额
+         * 有效订单：当日已完成订单的数量
+         * 订单完成率：有效订单数 / 总订单数
+         * 平均客单价：营业额 / 有效订单数
+         * 新增用户：当日新增用户的数量
+         */
+        double turnover = current.turnover.doubleValue();
+        double orderCompletionRate = 0.0;
+        double unitPrice = 0.0;
+        if (current.totalOrders != 0 && current.validOrders != 0) {
+            orderCompletionRate = (double) current.validOrders / current.totalOrders;
+            unitPrice = turnover / current.validOrders;
+        }
+        return BusinessDataVO.builder()
+                .turnover(turnover)
+                .validOrderCount(current.validOrders)
+                .orderCompletionRate(orderCompletionRate)
+                .unitPrice(unitPrice)
+                .newUsers(current.newUsers)
+                .build();
+    }
+
+    /**
+     * 今日订单汇总，报表中当天的数据
+     * @return
+     */
+    public OrderDailyStats orderStats() {
+        Snapshot current = current();
+        return new OrderDailyStats(current.date, current.totalOrders, current.validOrders, current.turnover);
+    }
+
+    /**
+     * 今日用户汇总，报表中当天的数据
+     * @return
+     */
+    public UserDailyStats userStats() {
+        Snapshot current = current();
+        return new UserDailyStats(current.date, current.newUsers);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public synchronized void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        Order order = event.getOrder();
+        Snapshot current = current();
+        if (order.getOrderTime() == null || !current.date.equals(order.getOrderTime().toLocalDate())) {
+            return;
+        }
+        int totalOrders = current.totalOrders;
+        int validOrders = current.validOrders;
+        BigDecimal turnover = current.turnover;
+        BigDecimal amount = order.getAmount() != null ? order.getAmount() : BigDecimal.ZERO;
+        if (event.getFromStatus() == null) {
+            totalOrders++;
+        }
+        if (Order.COMPLETED.equals(event.getFromStatus())) {
+            validOrders--;
+            turnover = turnover.subtract(amount);
+        }
+        if (Order.COMPLETED.equals(event.getToStatus())) {
+            validOrders++;
+            turnover = turnover.add(amount);
+        }
+        snapshot = new Snapshot(current.date, totalOrders, validOrders, turnover, current.newUsers);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public synchronized void onUserRegistered(UserRegisteredEvent event) {
+        Snapshot current = current();
+        LocalDateTime createTime = event.getUser().getCreateTime();
+        if (createTime == null || !current.date.equals(createTime.toLocalDate())) {
+            return;
+        }
+        snapshot = new Snapshot(current.date, current.totalOrders, current.validOrders, current.turnover,
+                current.newUsers + 1);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        rebuild();
+    }
+
+    /**
+     * 从数据库重建今日数据
+     */
+    @Scheduled(fixedDelay = 300000, initialDelay = 300000)
+    public synchronized void rebuild() {
+        LocalDate date = LocalDate.now();
+        Map map = new HashMap();
+        map.put("begin", LocalDateTime.of(date, LocalTime.MIN));
+        map.put("end", LocalDateTime.of(date, LocalTime.MAX));
+        Integer totalOrders = orderMapper.countByMap(map);
+        Integer newUsers = userMapper.countByMap(map);
+        map.put("status", Order.COMPLETED);
+        Double turnover = orderMapper.sumByMap(map);
+        Integer validOrders = orderMapper.countByMap(map);
+        snapshot = new Snapshot(date, totalOrders, validOrders,
+                turnover == null ? BigDecimal.ZERO : BigDecimal.valueOf(turnover), newUsers);
+        log.info("今日营业数据已重建，订单: {}, 有效订单: {}, 营业额: {}, 新增用户: {}",
+                totalOrders, validOrders, turnover, newUsers);
+    }
+
+    /**
+     * 当前快照，跨天后换成全0的快照
+     */
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        LocalDate date = LocalDate.now();
+        if (!current.date.equals(date)) {
+            synchronized (this) {
+                current = snapshot;
+                if (!current.date.equals(date)) {
+                    current = new Snapshot(date, 0, 0, BigDecimal.ZERO, 0);
+                    snapshot = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    private static class Snapshot {
+        private final LocalDate date;
+        private final int totalOrders;
+        private final int validOrders;
+        private final BigDecimal turnover;
+        private final int newUsers;
+
+        private Snapshot(LocalDate date, int totalOrders, int validOrders, BigDecimal turnover, int newUsers) {
+            this.date = date;
+            this.totalOrders = totalOrders;
+            this.validOrders = validOrders;
+            this.turnover = turnover;
+            this.newUsers = newUsers;
+        }
+    }
+}
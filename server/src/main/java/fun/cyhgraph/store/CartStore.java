@@ -0,0 +1,62 @@
+package fun.cyhgraph.store;
+
+import fun.cyhgraph.entity.Cart;
+
+import java.util.List;
+
+/**
+ * 购物车存储，通过 hanye.cart.store 选择 redis 或 mysql 实现
+ * 同一用户下，dishId + dishFlavor 或 setmealId 唯一确定一条购物车商品
+ */
+public interface CartStore {
+
+    /**
+     * 购物车中已有该商品时数量+1并返回true，没有则不做修改返回false
+     * @param userId
+     * @param cart
+     * @return
+     */
+    boolean increment(Integer userId, Cart cart);
+
+    /**
+     * 新增一条购物车商品，已有该商品时累加数量，cart中需要带上名称、图片、单价和数量
+     * @param userId
+     * @param cart
+     */
+    void insert(Integer userId, Cart cart);
+
+    /**
+     * 批量新增购物车商品，已有的商品累加数量
+     * @param userId
+     * @param cartList
+     */
+    void insertBatch(Integer userId, List<Cart> cartList);
+
+    /**
+     * 批量修改购物车，cart.number为数量变化（可以为负数），数量减到0及以下的商品会被删除
+     * 新增的商品需要带上名称、图片、单价
+     * @param userId
+     * @param cartList
+     */
+    void applyBatch(Integer userId, List<Cart> cartList);
+
+    /**
+     * 购物车商品数量-1，减到0时删除该商品
+     * @param userId
+     * @param cart
+     */
+    void decrement(Integer userId, Cart cart);
+
+    /**
+     * 查询用户的购物车，按加入时间倒序
+     * @param userId
+     * @return
+     */
+    List<Cart> list(Integer userId);
+
+    /**
+     * 清空用户的购物车
+     * @param userId
+     */
+    void clear(Integer userId);
+}
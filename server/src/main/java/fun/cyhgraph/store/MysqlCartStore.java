@@ -0,0 +1,89 @@
+package fun.cyhgraph.store;
+
+import fun.cyhgraph.entity.Cart;
+import fun.cyhgraph.mapper.CartMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 基于mysql cart表的购物车存储，hanye.cart.store=mysql 时启用
+ */
+@Component
+@ConditionalOnProperty(name = "hanye.cart.store", havingValue = "mysql")
+public class MysqlCartStore implements CartStore {
+
+    @Autowired
+    private CartMapper cartMapper;
+
+    @Override
+    public boolean increment(Integer userId, Cart cart) {
+        List<Cart> cartList = cartMapper.list(query(userId, cart));
+        if (cartList == null || cartList.size() != 1) {
+            return false;
+        }
+        Cart cartDB = cartList.get(0);
+        cartDB.setNumber(cartDB.getNumber() + 1);
+        cartMapper.updateNumberById(cartDB);
+        return true;
+    }
+
+    @Override
+    public void insert(Integer userId, Cart cart) {
+        cart.setUserId(userId);
+        // 并发加入同一商品时唯一索引冲突，按数量累加
+        cartMapper.upsertBatch(List.of(cart));
+    }
+
+    @Override
+    public void insertBatch(Integer userId, List<Cart> cartList) {
+        cartList.forEach(cart -> cart.setUserId(userId));
+        // 再来一单时购物车中可能已有相同商品，按数量累加
+        cartMapper.upsertBatch(cartList);
+    }
+
+    @Override
+    public void applyBatch(Integer userId, List<Cart> cartList) {
+        cartList.forEach(cart -> cart.setUserId(userId));
+        // 一条 insert ... on duplicate key update 完成所有商品的新增和数量变化，再删除数量不大于0的商品
+        cartMapper.upsertBatch(cartList);
+        cartMapper.deleteEmpty(userId);
+    }
+
+    @Override
+    public void decrement(Integer userId, Cart cart) {
+        List<Cart> cartList = cartMapper.list(query(userId, cart));
+        if (cartList == null || cartList.isEmpty()) {
+            return;
+        }
+        Cart cartDB = cartList.get(0);
+        // 数量-1后为0，直接把这条记录删除
+        if (cartDB.getNumber() <= 1) {
+            cartMapper.deleteById(cartDB.getId());
+        } else {
+            cartDB.setNumber(cartDB.getNumber() - 1);
+            cartMapper.updateNumberById(cartDB);
+        }
+    }
+
+    @Override
+    public List<Cart> list(Integer userId) {
+        return cartMapper.list(Cart.builder().userId(userId).build());
+    }
+
+    @Override
+    public void clear(Integer userId) {
+        cartMapper.delete(userId);
+    }
+
+    private Cart query(Integer userId, Cart cart) {
+        return Cart.builder()
+                .userId(userId)
+                .dishId(cart.getDishId())
+                .setmealId(cart.getSetmealId())
+                .dishFlavor(cart.getDishFlavor())
+                .build();
+    }
+}
@@ -0,0 +1,174 @@
+package fun.cyhgraph.store;
+
+import com.alibaba.fastjson.JSON;
+import fun.cyhgraph.entity.Cart;
+import fun.cyhgraph.properties.CartProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 基于redis hash的购物车存储，默认启用
+ * 每个用户一个hash：cart_用户id，每件商品两个field：
+ * n:商品key 存数量（HINCRBY原子增减），i:商品key 存名称、图片、单价等信息的json
+ * 商品key：菜品为 d菜品id:口味，套餐为 s套餐id
+ */
+@Component
+@ConditionalOnProperty(name = "hanye.cart.store", havingValue = "redis", matchIfMissing = true)
+public class RedisCartStore implements CartStore {
+
+    private static final String KEY_PREFIX = "cart_";
+    private static final String NUMBER_PREFIX = "n:";
+    private static final String INFO_PREFIX = "i:";
+
+    // 商品已存在才+1，返回新数量，不存在返回0
+    private static final RedisScript<Long> INCREMENT_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('HEXISTS', KEYS[1], ARGV[2]) == 0 then return 0 end " +
+            "local n = redis.call('HINCRBY', KEYS[1], ARGV[1], 1) " +
+            "redis.call('PEXPIRE', KEYS[1], ARGV[3]) " +
+            "return n", Long.class);
+
+    // 写入商品信息并增加数量
+    private static final RedisScript<Long> INSERT_SCRIPT = new DefaultRedisScript<>(
+            "redis.call('HSET', KEYS[1], ARGV[2], ARGV[3]) " +
+            "local n = redis.call('HINCRBY', KEYS[1], ARGV[1], ARGV[4]) " +
+            "redis.call('PEXPIRE', KEYS[1], ARGV[5]) " +
+            "return n", Long.class);
+
+    // 数量-1，减到0时删除商品的两个field
+    private static final RedisScript<Long> DECREMENT_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('HEXISTS', KEYS[1], ARGV[1]) == 0 then return 0 end " +
+            "local n = redis.call('HINCRBY', KEYS[1], ARGV[1], -1) " +
+            "if n <= 0 then redis.call('HDEL', KEYS[1], ARGV[1], ARGV[2]) end " +
+            "redis.call('PEXPIRE', KEYS[1], ARGV[3]) " +
+            "return n", Long.class);
+
+    // 批量修改数量：ARGV[1]为过期时间，之后每4个参数为一件商品（数量field、信息field、信息json、数量变化）
+    private static final RedisScript<Long> BATCH_SCRIPT = new DefaultRedisScript<>(
+            "for i = 2, #ARGV, 4 do " +
+            "  local n = redis.call('HINCRBY', KEYS[1], ARGV[i], ARGV[i + 3]) " +
+            "  if n <= 0 then redis.call('HDEL', KEYS[1], ARGV[i], ARGV[i + 1]) " +
+            "  else redis.call('HSETNX', KEYS[1], ARGV[i + 1], ARGV[i + 2]) end " +
+            "end " +
+            "redis.call('PEXPIRE', KEYS[1], ARGV[1]) " +
+            "return 1", Long.class);
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+    @Autowired
+    private CartProperties cartProperties;
+
+    @Override
+    public boolean increment(Integer userId, Cart cart) {
+        String itemKey = itemKey(cart);
+        Long number = stringRedisTemplate.execute(INCREMENT_SCRIPT, List.of(key(userId)),
+                NUMBER_PREFIX + itemKey, INFO_PREFIX + itemKey, ttlMillis());
+        return number != null && number > 0;
+    }
+
+    @Override
+    public void insert(Integer userId, Cart cart) {
+        String itemKey = itemKey(cart);
+        stringRedisTemplate.execute(INSERT_SCRIPT, List.of(key(userId)),
+                NUMBER_PREFIX + itemKey, INFO_PREFIX + itemKey, infoJson(cart),
+                String.valueOf(cart.getNumber()), ttlMillis());
+    }
+
+    @Override
+    public void insertBatch(Integer userId, List<Cart> cartList) {
+        cartList.forEach(cart -> insert(userId, cart));
+    }
+
+    @Override
+    public void applyBatch(Integer userId, List<Cart> cartList) {
+        List<String> args = new ArrayList<>();
+        args.add(ttlMillis());
+        for (Cart cart : cartList) {
+            String itemKey = itemKey(cart);
+            args.add(NUMBER_PREFIX + itemKey);
+            args.add(INFO_PREFIX + itemKey);
+            args.add(infoJson(cart));
+            args.add(String.valueOf(cart.getNumber()));
+        }
+        stringRedisTemplate.execute(BATCH_SCRIPT, List.of(key(userId)), args.toArray());
+    }
+
+    @Override
+    public void decrement(Integer userId, Cart cart) {
+        String itemKey = itemKey(cart);
+        stringRedisTemplate.execute(DECREMENT_SCRIPT, List.of(key(userId)),
+                NUMBER_PREFIX + itemKey, INFO_PREFIX + itemKey, ttlMillis());
+    }
+
+    @Override
+    public List<Cart> list(Integer userId) {
+        Map<Object, Object> entries = stringRedisTemplate.opsForHash().entries(key(userId));
+        Map<String, Integer> numbers = new HashMap<>();
+        Map<String, String> infos = new HashMap<>();
+        entries.forEach((field, value) -> {
+            String f = (String) field;
+            if (f.startsWith(NUMBER_PREFIX)) {
+                numbers.put(f.substring(NUMBER_PREFIX.length()), Integer.valueOf((String) value));
+            } else if (f.startsWith(INFO_PREFIX)) {
+                infos.put(f.substring(INFO_PREFIX.length()), (String) value);
+            }
+        });
+
+        List<Cart> cartList = new ArrayList<>();
+        numbers.forEach((itemKey, number) -> {
+            String info = infos.get(itemKey);
+            if (info == null || number <= 0) {
+                return;
+            }
+            Cart cart = JSON.parseObject(info, Cart.class);
+            cart.setUserId(userId);
+            cart.setNumber(number);
+            cartList.add(cart);
+        });
+        cartList.sort(Comparator.comparing(Cart::getCreateTime,
+                Comparator.nullsLast(Comparator.reverseOrder())));
+        return cartList;
+    }
+
+    @Override
+    public void clear(Integer userId) {
+        stringRedisTemplate.delete(key(userId));
+    }
+
+    private String key(Integer userId) {
+        return KEY_PREFIX + userId;
+    }
+
+    private String itemKey(Cart cart) {
+        if (cart.getDishId() != null) {
+            return "d" + cart.getDishId() + ":" + (cart.getDishFlavor() == null ? "" : cart.getDishFlavor());
+        }
+        return "s" + cart.getSetmealId();
+    }
+
+    private String infoJson(Cart cart) {
+        Cart info = Cart.builder()
+                .name(cart.getName())
+                .dishId(cart.getDishId())
+                .setmealId(cart.getSetmealId())
+                .dishFlavor(cart.getDishFlavor())
+                .amount(cart.getAmount())
+                .pic(cart.getPic())
+                .createTime(cart.getCreateTime())
+                .build();
+        return JSON.toJSONString(info);
+    }
+
+    private String ttlMillis() {
+        return String.valueOf(cartProperties.getTtl().toMillis());
+    }
+}
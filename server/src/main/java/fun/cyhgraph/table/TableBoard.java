@@ -0,0 +1,264 @@
+package fun.cyhgraph.table;
+
+import com.alibaba.fastjson.JSON;
+import fun.cyhgraph.constant.TableStatusConstant;
+import fun.cyhgraph.entity.TableInfo;
+import fun.cyhgraph.mapper.UtableInfoMapper;
+import fun.cyhgraph.websocket.TableBoardWebSocket;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * 餐桌看板，内存中保存所有餐桌的当前状态，用户端查询空闲餐桌不再访问数据库
+ * 启动时全量加载，之后每次状态机状态变化、管理端增删改餐桌都在事务提交后更新看板并递增版本号，
+ * 变化内容通过 /ws/table/{sid} 推送给订阅的客户端；多节点部署时其他节点的变化靠定时对账同步
+ */
+@Component
+@Slf4j
+public class TableBoard {
+
+    @Autowired
+    private UtableInfoMapper utableInfoMapper;
+    @Autowired
+    private TableBoardWebSocket tableBoardWebSocket;
+    @Autowired
+    @Qualifier("tableBoardPushExecutor")
+    private TaskExecutor tableBoardPushExecutor;
+
+    // 看板快照，写时复制，读取时无锁
+    private volatile Snapshot snapshot;
+
+    /**
+     * 应用启动完成后全量加载
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        reload();
+    }
+
+    /**
+     * 当前版本号，客户端用它和推送消息中的版本号对比，丢弃过期的变化、发现遗漏后重新拉取
+     * @return
+     */
+    public long getVersion() {
+        return current().version;
+    }
+
+    /**
+     * 根据ID获取餐桌
+     * @param tableId
+     * @return
+     */
+    public TableInfo get(Long tableId) {
+        return tableId == null ? null : current().tables.get(tableId);
+    }
+
+    /**
+     * 获取所有空闲餐桌，按排序、编号排列
+     * @return
+     */
+    public List<TableInfo> listAvailable() {
+        List<TableInfo> list = new ArrayList<>();
+        for (TableInfo table : current().tables.values()) {
+            if (TableStatusConstant.FREE.equals(table.getStatus())) {
+                list.add(table);
+            }
+        }
+        list.sort(Comparator.comparing(TableInfo::getSort, Comparator.nullsLast(Comparator.naturalOrder()))
+                .thenComparing(TableInfo::getTableNumber, Comparator.nullsLast(Comparator.naturalOrder())));
+        return list;
+    }
+
+    /**
+     * 餐桌是否空闲
+     * @param tableId
+     * @return
+     */
+    public boolean isAvailable(Long tableId) {
+        TableInfo table = get(tableId);
+        return table != null && TableStatusConstant.FREE.equals(table.getStatus());
+    }
+
+    /**
+     * 状态机状态变化成功后调用，在事务中则等提交后再更新看板，事务回滚时看板不变
+     * @param tableId
+     * @param fromStatus
+     * @param toStatus
+     */
+    public void onStatusChanged(Long tableId, Integer fromStatus, Integer toStatus) {
+        afterCommit(() -> applyStatus(tableId, fromStatus, toStatus));
+    }
+
+    /**
+     * 管理端增删改餐桌后调用，提交后从数据库重新读取这一行
+     * @param tableId
+     */
+    public void onTableChanged(Long tableId) {
+        afterCommit(() -> reload(tableId));
+    }
+
+    /**
+     * 定时和数据库对账，同步其他节点产生的变化
+     */
+    @Scheduled(fixedDelay = 30000, initialDelay = 30000)
+    public void scheduledReload() {
+        reload();
+    }
+
+    /**
+     * 全量加载，和当前看板对比，有变化的餐桌推送给客户端
+     */
+    public synchronized void reload() {
+        Map<Long, TableInfo> tables = new HashMap<>();
+        for (TableInfo table : utableInfoMapper.selectAll()) {
+            tables.put(table.getId(), table);
+        }
+        Snapshot old = snapshot;
+        if (old == null) {
+            snapshot = new Snapshot(1, tables);
+            log.info("餐桌看板加载完成，版本: 1, 餐桌数: {}", tables.size());
+            return;
+        }
+
+        long version = old.version;
+        Map<Long, TableInfo> next = new HashMap<>(old.tables);
+        for (TableInfo table : tables.values()) {
+            TableInfo previous = old.tables.get(table.getId());
+            if (previous == null || !sameState(previous, table)) {
+                next.put(table.getId(), table);
+                push(changedMessage(++version, table));
+            }
+        }
+        for (Long tableId : old.tables.keySet()) {
+            if (!tables.containsKey(tableId)) {
+                next.remove(tableId);
+                push(removedMessage(++version, tableId));
+            }
+        }
+        if (version != old.version) {
+            snapshot = new Snapshot(version, next);
+            log.info("餐桌看板对账完成，版本: {} -> {}", old.version, version);
+        }
+    }
+
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            reload();
+            current = snapshot;
+        }
+        return current;
+    }
+
+    private synchronized void applyStatus(Long tableId, Integer fromStatus, Integer toStatus) {
+        Snapshot old = current();
+        TableInfo previous = old.tables.get(tableId);
+        // 看板中的状态和数据库变化前的状态不一致，说明有变化乱序或遗漏，以数据库为准
+        if (previous == null || !Objects.equals(previous.getStatus(), fromStatus)) {
+            reload(tableId);
+            return;
+        }
+        TableInfo table = new TableInfo();
+        BeanUtils.copyProperties(previous, table);
+        table.setStatus(toStatus);
+        table.setUpdateTime(LocalDateTime.now());
+        replace(old, tableId, table);
+    }
+
+    private synchronized void reload(Long tableId) {
+        Snapshot old = current();
+        replace(old, tableId, utableInfoMapper.selectById(tableId));
+    }
+
+    /**
+     * 替换一张餐桌（table为null表示已删除），版本号加一并推送变化
+     */
+    private void replace(Snapshot old, Long tableId, TableInfo table) {
+        Map<Long, TableInfo> next = new HashMap<>(old.tables);
+        long version = old.version + 1;
+        if (table == null) {
+            if (next.remove(tableId) == null) {
+                return;
+            }
+            push(removedMessage(version, tableId));
+        } else {
+            next.put(tableId, table);
+            push(changedMessage(version, table));
+        }
+        snapshot = new Snapshot(version, next);
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * 推送在单线程线程池中按版本号顺序发送，不阻塞状态变化的调用方
+     */
+    private void push(String message) {
+        try {
+            tableBoardPushExecutor.execute(() -> tableBoardWebSocket.sendToAllClient(message));
+        } catch (Exception e) {
+            log.error("餐桌看板变化推送失败", e);
+        }
+    }
+
+    private String changedMessage(long version, TableInfo table) {
+        Map<String, Object> map = new HashMap<>();
+        map.put("type", "tableChanged");
+        map.put("version", version);
+        map.put("tableId", table.getId());
+        map.put("tableNumber", table.getTableNumber());
+        map.put("tableName", table.getTableName());
+        map.put("capacity", table.getCapacity());
+        map.put("status", table.getStatus());
+        return JSON.toJSONString(map);
+    }
+
+    private String removedMessage(long version, Long tableId) {
+        Map<String, Object> map = new HashMap<>();
+        map.put("type", "tableRemoved");
+        map.put("version", version);
+        map.put("tableId", tableId);
+        return JSON.toJSONString(map);
+    }
+
+    private boolean sameState(TableInfo a, TableInfo b) {
+        return Objects.equals(a.getStatus(), b.getStatus())
+                && Objects.equals(a.getTableNumber(), b.getTableNumber())
+                && Objects.equals(a.getTableName(), b.getTableName())
+                && Objects.equals(a.getCapacity(), b.getCapacity())
+                && Objects.equals(a.getSort(), b.getSort());
+    }
+
+    private static class Snapshot {
+        private final long version;
+        private final Map<Long, TableInfo> tables;
+
+        private Snapshot(long version, Map<Long, TableInfo> tables) {
+            this.version = version;
+            this.tables = Collections.unmodifiableMap(tables);
+        }
+    }
+}
@@ -1,17 +1,25 @@
 package fun.cyhgraph.task;
 
-import fun.cyhgraph.entity.Order;
 import fun.cyhgraph.mapper.OrderMapper;
+import fun.cyhgraph.properties.OrderTaskProperties;
+import fun.cyhgraph.stats.DailyStatsRollup;
+import fun.cyhgraph.stats.OrderCube;
+import fun.cyhgraph.stats.OrderStatusCounters;
+import fun.cyhgraph.stats.TodayBusinessData;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 import java.time.LocalDateTime;
 import java.util.Date;
-import java.util.List;
 
 /**
  * 自定义定时任务，实现订单状态定时处理
+ * 支付超时订单由 PaymentTimeoutScheduler 在下单时登记截止时间，到期批量取消，不再每分钟扫描
  */
 @Component
 @Slf4j
@@ -19,45 +27,71 @@ public class OrderTask {
 
     @Autowired
     private OrderMapper orderMapper;
+    @Autowired
+    private OrderTaskProperties orderTaskProperties;
+    @Autowired
+    private OrderStatusCounters orderStatusCounters;
+    @Autowired
+    private TodayBusinessData todayBusinessData;
+    @Autowired
+    private DailyStatsRollup dailyStatsRollup;
+    @Autowired
+    private OrderCube orderCube;
+    @Autowired
+    private MeterRegistry meterRegistry;
 
-    /**
-     * 处理支付超时订单
-     */
-    @Scheduled(cron = "0 * * * * ?") // 表示每分钟第0秒触发
-    public void processTimeoutOrder(){
-        log.info("处理支付超时订单：{}", new Date());
-        LocalDateTime time = LocalDateTime.now().plusMinutes(-15);
-        // 每分钟，查询待支付并且超过15分钟的所有订单
-        // select * from orders where status = 1 and order_time < 当前时间-15分钟
-        List<Order> ordersList = orderMapper.getByStatusAndOrderTimeLT(Order.PENDING_PAYMENT, time);
-        // 超时的订单要改为取消，并设置取消原因和取消时间
-        if(ordersList != null && !ordersList.isEmpty()){
-            ordersList.forEach(order -> {
-                order.setStatus(Order.CANCELLED);
-                order.setCancelReason("支付超时，自动取消");
-                order.setCancelTime(LocalDateTime.now());
-                orderMapper.update(order);
-            });
-        }
+    // 自动完成的订单数、每块update耗时
+    private Counter deliveryRowsCounter;
+    private Timer deliveryChunkTimer;
+
+    @PostConstruct
+    public void init() {
+        this.deliveryRowsCounter = Counter.builder("order.delivery.autocomplete.rows")
+                .description("派送中订单自动完成的订单数")
+                .register(meterRegistry);
+        this.deliveryChunkTimer = Timer.builder("order.delivery.autocomplete.chunk")
+                .description("派送中订单自动完成每块update的耗时")
+                .register(meterRegistry);
     }
 
     /**
      * 处理“派送中”状态的订单
+     * 按块集合更新，每块之间停顿，避免一次加载所有订单和逐条update
      */
     @Scheduled(cron = "0 0 1 * * ?") // 表示每次1:00:00触发
     public void processDeliveryOrder(){
         log.info("处理派送中订单：{}", new Date());
-        // 每日凌晨1点，查询正在派送中并且下单时间超过1小时的所有订单
-        // select * from orders where status = 4 and order_time < 当前时间-1小时
+        // 每日凌晨1点，把正在派送中并且下单时间超过1小时的所有订单改为已完成
+        // update orders set status = 5 where status = 4 and order_time < 当前时间-1小时 order by id limit 块大小
         LocalDateTime time = LocalDateTime.now().plusMinutes(-60);
-        List<Order> ordersList = orderMapper.getByStatusAndOrderTimeLT(Order.DELIVERY_IN_PROGRESS, time);
-        // 将其状态都改为已完成
-        if(ordersList != null && !ordersList.isEmpty()){
-            ordersList.forEach(order -> {
-                order.setStatus(Order.COMPLETED);
-                orderMapper.update(order);
-            });
+        int chunkSize = Math.max(1, orderTaskProperties.getDeliveryChunkSize());
+        long pauseMs = orderTaskProperties.getDeliveryChunkPause().toMillis();
+        int total = 0;
+        while (true) {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            int rows = orderMapper.completeDeliveryBefore(time, chunkSize);
+            sample.stop(deliveryChunkTimer);
+            deliveryRowsCounter.increment(rows);
+            total += rows;
+            if (rows < chunkSize) {
+                break;
+            }
+            try {
+                Thread.sleep(pauseMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.warn("处理派送中订单被中断，已完成: {}", total);
+                return;
+            }
+        }
+        log.info("处理派送中订单完成，共完成: {}", total);
+        if (total > 0) {
+            // 集合更新没有逐条的状态变化事件，完成后对账订单状态计数器
+            orderStatusCounters.reconcile();
+            todayBusinessData.rebuild();
+            dailyStatsRollup.rollupRecent();
+            orderCube.reload();
         }
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,123 @@
+package fun.cyhgraph.timeout;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 分层时间轮，非线程安全，由调用方加锁
+ * 第0层每格tickMs，第i层每格为第i-1层一圈的时长，超出最高层范围时自动增加一层；
+ * 时间推进到高层某格时，把该格中的任务重新放入低层，直到在第0层到期
+ * @param <T>
+ */
+public class HierarchicalTimingWheel<T> {
+
+    private final long tickMs;
+    private final int wheelSize;
+    private final List<Level<T>> levels = new ArrayList<>();
+    // 已推进到的时间，按tickMs对齐
+    private long currentTime;
+    private int size;
+
+    public HierarchicalTimingWheel(long tickMs, int wheelSize, long startMs) {
+        if (tickMs <= 0 || wheelSize <= 1) {
+            throw new IllegalArgumentException("tickMs must be positive and wheelSize must be greater than 1");
+        }
+        this.tickMs = tickMs;
+        this.wheelSize = wheelSize;
+        this.currentTime = startMs - startMs % tickMs;
+        levels.add(new Level<>(tickMs, wheelSize));
+    }
+
+    /**
+     * 添加任务
+     * @param item
+     * @param deadlineMs 到期时间
+     * @return false表示已经到期，没有放入时间轮，由调用方立即处理
+     */
+    public boolean add(T item, long deadlineMs) {
+        if (deadlineMs < currentTime + tickMs) {
+            return false;
+        }
+        int i = 0;
+        while (true) {
+            if (i == levels.size()) {
+                Level<T> top = levels.get(i - 1);
+                levels.add(new Level<>(top.tickMs * wheelSize, wheelSize));
+            }
+            Level<T> level = levels.get(i);
+            long levelTime = currentTime - currentTime % level.tickMs;
+            if (deadlineMs < levelTime + level.tickMs * wheelSize) {
+                level.bucket(deadlineMs).add(new Entry<>(item, deadlineMs));
+                size++;
+                return true;
+            }
+            i++;
+        }
+    }
+
+    /**
+     * 推进到now，到期的任务交给expired处理
+     * @param now
+     * @param expired
+     */
+    public void advance(long now, Consumer<T> expired) {
+        while (currentTime + tickMs <= now) {
+            currentTime += tickMs;
+            // 先处理高层，降级的任务可能落入第0层当前格
+            for (int i = levels.size() - 1; i >= 0; i--) {
+                Level<T> level = levels.get(i);
+                if (currentTime % level.tickMs != 0) {
+                    continue;
+                }
+                List<Entry<T>> bucket = level.bucket(currentTime);
+                if (bucket.isEmpty()) {
+                    continue;
+                }
+                List<Entry<T>> entries = new ArrayList<>(bucket);
+                bucket.clear();
+                size -= entries.size();
+                for (Entry<T> entry : entries) {
+                    if (!add(entry.item, entry.deadlineMs)) {
+                        expired.accept(entry.item);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * 时间轮中的任务数
+     */
+    public int size() {
+        return size;
+    }
+
+    private static class Level<T> {
+        private final long tickMs;
+        private final List<Entry<T>>[] buckets;
+
+        @SuppressWarnings("unchecked")
+        private Level(long tickMs, int wheelSize) {
+            this.tickMs = tickMs;
+            this.buckets = new List[wheelSize];
+            for (int i = 0; i < wheelSize; i++) {
+                buckets[i] = new ArrayList<>();
+            }
+        }
+
+        private List<Entry<T>> bucket(long timeMs) {
+            return buckets[(int) ((timeMs / tickMs) % buckets.length)];
+        }
+    }
+
+    private static class Entry<T> {
+        private final T item;
+        private final long deadlineMs;
+
+        private Entry(T item, long deadlineMs) {
+            this.item = item;
+            this.deadlineMs = deadlineMs;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package fun.cyhgraph.timeout;
+
+import fun.cyhgraph.properties.OrderTimeoutProperties;
+import fun.cyhgraph.service.OrderService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 到期订单处理，按批次调用一次集合取消，避免逐条update
+ */
+@Component
+@Slf4j
+public class PaymentTimeoutHandler {
+
+    private static final String CANCEL_REASON = "支付超时，自动取消";
+
+    @Autowired
+    private OrderService orderService;
+    @Autowired
+    private OrderTimeoutProperties orderTimeoutProperties;
+
+    /**
+     * 取消到期的订单，已支付或已取消的订单不受影响
+     * @param orderIds
+     * @return 处理失败的订单ID，由调用方稍后重试
+     */
+    public List<Integer> expire(List<Integer> orderIds) {
+        List<Integer> failed = new ArrayList<>();
+        int batchSize = Math.max(1, orderTimeoutProperties.getBatchSize());
+        for (int from = 0; from < orderIds.size(); from += batchSize) {
+            List<Integer> batch = orderIds.subList(from, Math.min(from + batchSize, orderIds.size()));
+            try {
+                List<Integer> cancelled = orderService.cancelUnpaidOrders(batch, CANCEL_REASON);
+                log.info("支付超时订单处理完成，到期: {}, 取消: {}", batch.size(), cancelled.size());
+            } catch (Exception e) {
+                log.error("支付超时订单处理失败，订单数: {}", batch.size(), e);
+                failed.addAll(batch);
+            }
+        }
+        return failed;
+    }
+}
@@ -0,0 +1,55 @@
+package fun.cyhgraph.timeout;
+
+import fun.cyhgraph.entity.Order;
+import fun.cyhgraph.mapper.OrderMapper;
+import fun.cyhgraph.properties.OrderTimeoutProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.ZoneId;
+import java.util.List;
+
+/**
+ * 启动对账：节点停机期间下单的订单没有登记超时，启动后按ID分页查询待付款订单重新登记
+ * 每页、总数都有上限，已经超时的订单在下一格统一批量取消
+ */
+@Component
+@Slf4j
+public class PaymentTimeoutReconciler {
+
+    @Autowired
+    private OrderMapper orderMapper;
+    @Autowired
+    private PaymentTimeoutScheduler paymentTimeoutScheduler;
+    @Autowired
+    private OrderTimeoutProperties orderTimeoutProperties;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcile() {
+        long timeoutMs = orderTimeoutProperties.getTimeout().toMillis();
+        int pageSize = Math.max(1, orderTimeoutProperties.getReconcilePageSize());
+        int max = orderTimeoutProperties.getReconcileMaxOrders();
+        int count = 0;
+        Integer lastId = 0;
+        while (count < max) {
+            List<Order> orders = orderMapper.getPendingPaymentAfterId(lastId, Math.min(pageSize, max - count));
+            for (Order order : orders) {
+                long orderTime = order.getOrderTime().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+                paymentTimeoutScheduler.schedule(order.getId(), orderTime + timeoutMs);
+                lastId = order.getId();
+            }
+            count += orders.size();
+            if (orders.size() < pageSize) {
+                break;
+            }
+        }
+        if (count >= max) {
+            log.warn("支付超时启动对账达到上限，已登记: {}，剩余订单将在下次启动时处理", count);
+        } else {
+            log.info("支付超时启动对账完成，已登记: {}", count);
+        }
+    }
+}
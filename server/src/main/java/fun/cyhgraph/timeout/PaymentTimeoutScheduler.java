@@ -0,0 +1,20 @@
+package fun.cyhgraph.timeout;
+
+/**
+ * 支付超时登记，下单时登记订单的支付截止时间，到期后批量取消仍未支付的订单
+ */
+public interface PaymentTimeoutScheduler {
+
+    /**
+     * 登记订单的支付截止时间，重复登记以最后一次为准
+     * @param orderId
+     * @param deadlineMs 截止时间（毫秒时间戳）
+     */
+    void schedule(Integer orderId, long deadlineMs);
+
+    /**
+     * 订单已支付或已取消，移除登记
+     * @param orderId
+     */
+    void cancel(Integer orderId);
+}
@@ -0,0 +1,86 @@
+package fun.cyhgraph.timeout;
+
+import fun.cyhgraph.properties.OrderTimeoutProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 基于redis zset的支付超时登记，多节点部署时使用：hanye.order-timeout.store=redis
+ * member为订单ID，score为截止时间；各节点定时用脚本原子领取到期的订单，同一订单只会被一个节点处理
+ */
+@Component
+@ConditionalOnProperty(name = "hanye.order-timeout.store", havingValue = "redis")
+@Slf4j
+public class RedisPaymentTimeoutScheduler implements PaymentTimeoutScheduler, SchedulingConfigurer {
+
+    private static final String KEY = "order_payment_timeout";
+
+    // 领取最多ARGV[2]个截止时间不晚于ARGV[1]的订单，并从zset中删除
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> CLAIM_SCRIPT = new DefaultRedisScript<>(
+            "local ids = redis.call('ZRANGEBYSCORE', KEYS[1], '-inf', ARGV[1], 'LIMIT', 0, ARGV[2]) " +
+            "if #ids > 0 then redis.call('ZREM', KEYS[1], unpack(ids)) end " +
+            "return ids", List.class);
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+    @Autowired
+    private OrderTimeoutProperties orderTimeoutProperties;
+    @Autowired
+    private PaymentTimeoutHandler paymentTimeoutHandler;
+
+    @Override
+    public void schedule(Integer orderId, long deadlineMs) {
+        stringRedisTemplate.opsForZSet().add(KEY, orderId.toString(), deadlineMs);
+    }
+
+    @Override
+    public void cancel(Integer orderId) {
+        stringRedisTemplate.opsForZSet().remove(KEY, orderId.toString());
+    }
+
+    /**
+     * 按hanye.order-timeout.tick的间隔轮询，间隔直接取Duration配置，支持1s这样的写法
+     * @param taskRegistrar
+     */
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar taskRegistrar) {
+        taskRegistrar.addFixedDelayTask(this::poll, orderTimeoutProperties.getTick());
+    }
+
+    /**
+     * 领取到期的订单并批量取消，一次领取满一批说明可能还有，继续领取
+     */
+    public void poll() {
+        int batchSize = Math.max(1, orderTimeoutProperties.getBatchSize());
+        while (true) {
+            List<?> claimed = stringRedisTemplate.execute(CLAIM_SCRIPT, List.of(KEY),
+                    String.valueOf(System.currentTimeMillis()), String.valueOf(batchSize));
+            if (claimed == null || claimed.isEmpty()) {
+                return;
+            }
+            List<Integer> orderIds = new ArrayList<>(claimed.size());
+            for (Object id : claimed) {
+                orderIds.add(Integer.valueOf(id.toString()));
+            }
+            // 处理失败的订单放回zset，下次轮询重试
+            long retryAt = System.currentTimeMillis() + orderTimeoutProperties.getTick().toMillis();
+            for (Integer orderId : paymentTimeoutHandler.expire(orderIds)) {
+                schedule(orderId, retryAt);
+            }
+            if (claimed.size() < batchSize) {
+                return;
+            }
+        }
+    }
+}
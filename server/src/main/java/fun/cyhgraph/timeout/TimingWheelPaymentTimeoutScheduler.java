@@ -0,0 +1,99 @@
+package fun.cyhgraph.timeout;
+
+import fun.cyhgraph.properties.OrderTimeoutProperties;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 基于本地分层时间轮的支付超时登记，默认启用
+ * 单线程每格推进一次，到期的订单收集后按批次取消，处理失败的订单延后一格重新登记
+ */
+@Component
+@ConditionalOnProperty(name = "hanye.order-timeout.store", havingValue = "local", matchIfMissing = true)
+@Slf4j
+public class TimingWheelPaymentTimeoutScheduler implements PaymentTimeoutScheduler {
+
+    @Autowired
+    private OrderTimeoutProperties orderTimeoutProperties;
+    @Autowired
+    private PaymentTimeoutHandler paymentTimeoutHandler;
+
+    private HierarchicalTimingWheel<Timeout> wheel;
+    // 订单ID -> 当前有效的登记，取消或重新登记后旧的登记到期时跳过
+    private final Map<Integer, Timeout> pending = new ConcurrentHashMap<>();
+    private long tickMs;
+    private Thread worker;
+
+    @PostConstruct
+    public void start() {
+        tickMs = orderTimeoutProperties.getTick().toMillis();
+        wheel = new HierarchicalTimingWheel<>(tickMs, orderTimeoutProperties.getWheelSize(), System.currentTimeMillis());
+        worker = new Thread(this::run, "payment-timeout-wheel");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        worker.interrupt();
+    }
+
+    @Override
+    public void schedule(Integer orderId, long deadlineMs) {
+        Timeout timeout = new Timeout(orderId, deadlineMs);
+        pending.put(orderId, timeout);
+        synchronized (wheel) {
+            // 已经到期的放到下一格处理，统一由推进线程批量取消
+            wheel.add(timeout, Math.max(deadlineMs, System.currentTimeMillis() + tickMs));
+        }
+    }
+
+    @Override
+    public void cancel(Integer orderId) {
+        pending.remove(orderId);
+    }
+
+    private void run() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                Thread.sleep(tickMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            List<Integer> expired = new ArrayList<>();
+            synchronized (wheel) {
+                wheel.advance(System.currentTimeMillis(), timeout -> {
+                    if (pending.remove(timeout.orderId, timeout)) {
+                        expired.add(timeout.orderId);
+                    }
+                });
+            }
+            if (expired.isEmpty()) {
+                continue;
+            }
+            for (Integer orderId : paymentTimeoutHandler.expire(expired)) {
+                schedule(orderId, System.currentTimeMillis() + tickMs);
+            }
+        }
+    }
+
+    private static class Timeout {
+        private final Integer orderId;
+        private final long deadlineMs;
+
+        private Timeout(Integer orderId, long deadlineMs) {
+            this.orderId = orderId;
+            this.deadlineMs = deadlineMs;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package fun.cyhgraph.websocket;
+
+import jakarta.websocket.OnClose;
+import jakarta.websocket.OnError;
+import jakarta.websocket.OnOpen;
+import jakarta.websocket.Session;
+import jakarta.websocket.server.PathParam;
+import jakarta.websocket.server.ServerEndpoint;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 餐桌看板WebSocket，用户端订阅后接收餐桌状态变化，不再轮询空闲餐桌接口
+ */
+@Component
+@ServerEndpoint("/ws/table/{sid}")
+@Slf4j
+public class TableBoardWebSocket {
+
+    // 存放订阅看板的会话对象
+    private static Map<String, Session> sessionMap = new ConcurrentHashMap<>();
+
+    @OnOpen
+    public void onOpen(Session session, @PathParam("sid") String sid) {
+        log.info("餐桌看板客户端：{}建立连接", sid);
+        sessionMap.put(sid, session);
+    }
+
+    @OnClose
+    public void onClose(@PathParam("sid") String sid) {
+        log.info("餐桌看板客户端：{}断开连接", sid);
+        sessionMap.remove(sid);
+    }
+
+    @OnError
+    public void onError(@PathParam("sid") String sid, Throwable error) {
+        log.warn("餐桌看板客户端：{}连接异常，{}", sid, error.getMessage());
+        sessionMap.remove(sid);
+    }
+
+    /**
+     * 群发
+     *
+     * @param message
+     */
+    public void sendToAllClient(String message) {
+        for (Session session : sessionMap.values()) {
+            if (!session.isOpen()) {
+                continue;
+            }
+            try {
+                session.getBasicRemote().sendText(message);
+            } catch (Exception e) {
+                log.warn("餐桌看板推送失败，sessionId: {}", session.getId());
+            }
+        }
+    }
+}
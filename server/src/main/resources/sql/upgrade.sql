@@ -0,0 +1,126 @@
+-- 数据库结构升级脚本，按顺序执行
+
+-- 订单支付按订单号查询订单
+create index idx_orders_number on orders (number);
+
+-- 购物车批量修改使用 insert ... on duplicate key update
+-- dish_id、setmeal_id、dish_flavor 可能为null，唯一索引中null互不相等，因此用生成列拼成商品key
+-- 先合并同一用户下重复的购物车商品（再来一单以前会插入重复数据）：数量累加到id最小的一条，再删除其余的
+update cart c
+    join (select min(id) as id, sum(number) as number
+          from cart
+          group by user_id, ifnull(dish_id, 0), ifnull(setmeal_id, 0), ifnull(dish_flavor, '')
+          having count(*) > 1) d on c.id = d.id
+set c.number = d.number;
+delete c
+from cart c
+         join cart k on k.user_id = c.user_id
+    and ifnull(k.dish_id, 0) = ifnull(c.dish_id, 0)
+    and ifnull(k.setmeal_id, 0) = ifnull(c.setmeal_id, 0)
+    and ifnull(k.dish_flavor, '') = ifnull(c.dish_flavor, '')
+    and k.id < c.id;
+alter table cart
+    add column item_key varchar(128) generated always as
+        (concat(ifnull(dish_id, 0), '-', ifnull(setmeal_id, 0), '-', ifnull(dish_flavor, ''))) stored,
+    add unique key uk_cart_user_item (user_id, item_key);
+
+-- 支付超时启动对账、派送中订单定时完成按状态和下单时间查询
+create index idx_orders_status_order_time on orders (status, order_time);
+
+-- 订单游标分页按(下单时间, id)倒序，用户端历史订单按用户过滤
+create index idx_orders_order_time on orders (order_time);
+create index idx_orders_user_order_time on orders (user_id, order_time);
+
+-- 订单号、手机号子串搜索的三元组索引，field：1订单号 2手机号
+create table order_search_gram
+(
+    field    tinyint not null,
+    gram     char(3) not null,
+    order_id int     not null,
+    primary key (field, gram, order_id)
+);
+
+-- 为已有订单生成三元组（订单号、手机号都不超过32位）
+insert ignore into order_search_gram (field, gram, order_id)
+select 1, substring(o.number, n.i, 3), o.id
+from orders o
+         join (select a.i + b.i * 8 + 1 as i
+               from (select 0 i union all select 1 union all select 2 union all select 3
+                     union all select 4 union all select 5 union all select 6 union all select 7) a,
+                    (select 0 i union all select 1 union all select 2 union all select 3) b) n
+              on n.i <= char_length(o.number) - 2;
+
+insert ignore into order_search_gram (field, gram, order_id)
+select 2, substring(o.phone, n.i, 3), o.id
+from orders o
+         join (select a.i + b.i * 8 + 1 as i
+               from (select 0 i union all select 1 union all select 2 union all select 3
+                     union all select 4 union all select 5 union all select 6 union all select 7) a,
+                    (select 0 i union all select 1 union all select 2 union all select 3) b) n
+              on n.i <= char_length(o.phone) - 2;
+
+-- 报表日汇总：历史日期由定时任务按天写入，当天数据取内存中的今日营业数据
+-- 没有订单、没有新用户的日期也写入0；首次启动时从最早的订单、用户开始补齐
+create table order_daily_stats
+(
+    stat_date         date           not null primary key,
+    order_count       int            not null default 0,
+    valid_order_count int            not null default 0,
+    turnover          decimal(12, 2) not null default 0,
+    update_time       datetime       null
+);
+
+create table user_daily_stats
+(
+    stat_date      date     not null primary key,
+    new_user_count int      not null default 0,
+    update_time    datetime null
+);
+
+create index idx_user_create_time on user (create_time);
+
+-- 菜品、套餐日销量汇总，与订单日汇总一起由定时任务写入，排行榜按区间合并后取前N
+-- item_type：1菜品 2套餐；category_id、name取汇总时菜品/套餐的分类和订单明细中的名称
+create table dish_sales_daily
+(
+    stat_date   date           not null,
+    item_type   tinyint        not null,
+    item_id     int            not null,
+    dining_type tinyint        not null,
+    category_id int            null,
+    name        varchar(32)    null,
+    number      int            not null default 0,
+    amount      decimal(12, 2) not null default 0,
+    primary key (stat_date, item_type, item_id, dining_type)
+);
+-- 补齐今天以前的历史日销量：排行榜把订单日汇总已覆盖的日期都当作已汇总，启动时只会重新汇总最近几天
+-- 与DishSalesMapper.aggregateFromOrders的统计口径一致
+insert into dish_sales_daily (stat_date, item_type, item_id, dining_type, category_id, name, number, amount)
+select date(o.order_time),
+       if(od.dish_id is not null, 1, 2),
+       ifnull(od.dish_id, od.setmeal_id),
+       ifnull(o.dining_type, 1),
+       max(ifnull(d.category_id, s.category_id)),
+       max(od.name),
+       sum(od.number),
+       sum(od.amount * od.number)
+from orders o
+         join order_detail od on od.order_id = o.id
+         left join dish d on od.dish_id = d.id
+         left join setmeal s on od.setmeal_id = s.id
+where o.status = 5
+  and o.order_time < curdate()
+group by date(o.order_time), if(od.dish_id is not null, 1, 2), ifnull(od.dish_id, od.setmeal_id),
+         ifnull(o.dining_type, 1);
+
+-- 已预订、占用中的餐桌记录持有它的订单，订单只能占用、释放自己预订或占用的餐桌
+alter table table_info
+    add column order_id int null comment '预订或占用餐桌的订单id';
+-- 已有的已预订、占用中餐桌按进行中的堂食订单补上订单id
+update table_info t
+    join (select table_id, max(id) as order_id
+          from orders
+          where dining_type = 2 and status in (1, 2, 3, 4) and table_id is not null
+          group by table_id) o on o.table_id = t.id
+set t.order_id = o.order_id
+where t.status in (2, 3);
@@ -0,0 +1,80 @@
+package fun.cyhgraph.cache;
+
+import fun.cyhgraph.entity.DishFlavor;
+import fun.cyhgraph.vo.DishVO;
+import lombok.extern.slf4j.Slf4j;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * redis缓存值各编码方式的序列化、反序列化耗时基准测试，数据为一个分类下的菜品列表，直接运行main方法
+ * setup时在日志中输出每种编码的字节数
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+@Slf4j
+public class RedisValueCodecBenchmark {
+
+    private static final int DISH_COUNT = 20;
+
+    @Param({"JDK", "JSON", "SMILE", "CBOR"})
+    private String codec;
+
+    private RedisSerializer<Object> serializer;
+    private List<DishVO> dishes;
+    private byte[] bytes;
+
+    @Setup
+    public void setup() {
+        serializer = RedisValueCodec.valueOf(codec).rawSerializer();
+        dishes = sampleDishes();
+        bytes = serializer.serialize(dishes);
+        log.info("{} 编码后字节数: {}", codec, bytes.length);
+    }
+
+    /**
+     * 一个分类下的菜品列表，每个菜品带两种口味
+     */
+    static List<DishVO> sampleDishes() {
+        List<DishVO> dishes = new ArrayList<>();
+        for (int i = 1; i <= DISH_COUNT; i++) {
+            List<DishFlavor> flavors = new ArrayList<>();
+            flavors.add(new DishFlavor(i * 10 + 1, "辣度", "[\"不辣\",\"微辣\",\"中辣\",\"重辣\"]", i));
+            flavors.add(new DishFlavor(i * 10 + 2, "忌口", "[\"不要葱\",\"不要蒜\",\"不要香菜\"]", i));
+            dishes.add(new DishVO(i, "招牌菜品" + i, "https://hanye-take-out.oss-cn-beijing.aliyuncs.com/dish/" + i + ".png",
+                    "精选食材现做，默认中份", new BigDecimal("28.50").add(BigDecimal.valueOf(i)), "1", 1,
+                    LocalDateTime.of(2024, 5, 1, 12, 0).plusMinutes(i), flavors));
+        }
+        return dishes;
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return serializer.serialize(dishes);
+    }
+
+    @Benchmark
+    public Object deserialize() {
+        return serializer.deserialize(bytes);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .include(RedisValueCodecBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
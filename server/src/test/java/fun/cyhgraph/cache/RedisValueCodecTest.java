@@ -0,0 +1,90 @@
+package fun.cyhgraph.cache;
+
+import fun.cyhgraph.vo.DishVO;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.support.NullValue;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * redis缓存值编码：每种编码写入的菜品列表都能原样读回，非jdk编码能读取切换前jdk写入的旧值
+ */
+public class RedisValueCodecTest {
+
+    private final List<DishVO> dishes = RedisValueCodecBenchmark.sampleDishes();
+
+    @Test
+    public void testRoundTrip() {
+        for (RedisValueCodec codec : RedisValueCodec.values()) {
+            RedisSerializer<Object> serializer = codec.rawSerializer();
+            byte[] bytes = serializer.serialize(dishes);
+
+            Object value = serializer.deserialize(bytes);
+            assertEquals(dishes, value, codec + " 读回的菜品列表不一致");
+            assertInstanceOf(DishVO.class, ((List<?>) value).get(0), codec.name());
+
+            DishVO dish = dishes.get(0);
+            assertEquals(dish, serializer.deserialize(serializer.serialize(dish)), codec.name());
+            assertEquals("招牌菜品", serializer.deserialize(serializer.serialize("招牌菜品")), codec.name());
+        }
+    }
+
+    /**
+     * 缓存注解缓存的null读回后仍是NullValue.INSTANCE
+     */
+    @Test
+    public void testNullValue() {
+        for (RedisValueCodec codec : RedisValueCodec.values()) {
+            RedisSerializer<Object> serializer = codec.serializer();
+            assertSame(NullValue.INSTANCE, serializer.deserialize(serializer.serialize(NullValue.INSTANCE)), codec.name());
+        }
+    }
+
+    /**
+     * 带兼容读取的序列化器按当前编码写入，读回结果与原编码一致
+     */
+    @Test
+    public void testSerializerWritesCurrentCodec() {
+        for (RedisValueCodec codec : RedisValueCodec.values()) {
+            RedisSerializer<Object> serializer = codec.serializer();
+            byte[] bytes = serializer.serialize(dishes);
+
+            assertArrayEquals(codec.rawSerializer().serialize(dishes), bytes, codec.name());
+            assertEquals(dishes, serializer.deserialize(bytes), codec.name());
+        }
+    }
+
+    /**
+     * 切换编码后，jdk写入的旧值按jdk再读一次
+     */
+    @Test
+    public void testFallbackReadsJdkValue() {
+        byte[] legacy = RedisValueCodec.JDK.rawSerializer().serialize(dishes);
+        assertThrows(SerializationException.class, () -> RedisValueCodec.JSON.rawSerializer().deserialize(legacy));
+        for (RedisValueCodec codec : RedisValueCodec.values()) {
+            assertEquals(dishes, codec.serializer().deserialize(legacy), codec + " 没有读出jdk写入的旧值");
+        }
+    }
+
+    /**
+     * 当前编码和jdk都读不出时抛出当前编码的异常
+     */
+    @Test
+    public void testFallbackFailure() {
+        byte[] garbage = "not a cached value".getBytes(StandardCharsets.UTF_8);
+        SerializationException e = assertThrows(SerializationException.class,
+                () -> RedisValueCodec.JSON.serializer().deserialize(garbage));
+        assertEquals(1, e.getSuppressed().length);
+    }
+
+    @Test
+    public void testOf() {
+        assertEquals(RedisValueCodec.SMILE, RedisValueCodec.of(" smile "));
+        assertThrows(IllegalArgumentException.class, () -> RedisValueCodec.of("xml"));
+    }
+}
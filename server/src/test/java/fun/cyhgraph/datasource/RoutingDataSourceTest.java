@@ -0,0 +1,62 @@
+package fun.cyhgraph.datasource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 读写分离路由：只有只读方法且从库可用时才取从库连接
+ */
+public class RoutingDataSourceTest {
+
+    private DataSource primary;
+    private DataSource replica;
+    private Connection primaryConnection;
+    private Connection replicaConnection;
+    private ReplicaLagMonitor replicaLagMonitor;
+    private RoutingDataSource routingDataSource;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        primary = mock(DataSource.class);
+        replica = mock(DataSource.class);
+        primaryConnection = mock(Connection.class);
+        replicaConnection = mock(Connection.class);
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        when(replica.getConnection()).thenReturn(replicaConnection);
+        replicaLagMonitor = mock(ReplicaLagMonitor.class);
+        routingDataSource = new RoutingDataSource(primary, replica, replicaLagMonitor);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        DataSourceRoute.set(null);
+    }
+
+    @Test
+    public void writeUsesPrimary() throws Exception {
+        when(replicaLagMonitor.isAvailable()).thenReturn(true);
+        assertSame(primaryConnection, routingDataSource.getConnection());
+    }
+
+    @Test
+    public void readOnlyUsesReplicaWhenAvailable() throws Exception {
+        when(replicaLagMonitor.isAvailable()).thenReturn(true);
+        DataSourceRoute.set(DataSourceRoute.REPLICA);
+        assertSame(replicaConnection, routingDataSource.getConnection());
+    }
+
+    @Test
+    public void readOnlyFallsBackToPrimaryWhenReplicaLags() throws Exception {
+        when(replicaLagMonitor.isAvailable()).thenReturn(false);
+        DataSourceRoute.set(DataSourceRoute.REPLICA);
+        assertSame(primaryConnection, routingDataSource.getConnection());
+        verifyNoInteractions(replica);
+    }
+}
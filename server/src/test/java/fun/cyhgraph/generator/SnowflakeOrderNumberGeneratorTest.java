@@ -0,0 +1,81 @@
+package fun.cyhgraph.generator;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SnowflakeOrderNumberGeneratorTest {
+
+    private static final long EPOCH = 1704067200000L;
+
+    /**
+     * 多线程并发生成数百万个id，不能有重复，且每个线程内单调递增
+     */
+    @Test
+    public void testUniqueAcrossThreads() throws Exception {
+        int threads = 8;
+        int perThread = 500_000;
+        SnowflakeOrderNumberGenerator generator = new SnowflakeOrderNumberGenerator(7, EPOCH);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<long[]>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(pool.submit(() -> {
+                long[] ids = new long[perThread];
+                start.await();
+                for (int i = 0; i < perThread; i++) {
+                    ids[i] = generator.nextId();
+                }
+                return ids;
+            }));
+        }
+        start.countDown();
+
+        long[] all = new long[threads * perThread];
+        int offset = 0;
+        for (Future<long[]> future : futures) {
+            long[] ids = future.get();
+            for (int i = 1; i < ids.length; i++) {
+                assertTrue(ids[i] > ids[i - 1], "同一线程内id必须单调递增");
+            }
+            System.arraycopy(ids, 0, all, offset, ids.length);
+            offset += ids.length;
+        }
+        pool.shutdown();
+
+        Arrays.sort(all);
+        for (int i = 1; i < all.length; i++) {
+            assertNotEquals(all[i - 1], all[i], "出现重复id：" + all[i]);
+        }
+    }
+
+    /**
+     * 不同节点同时生成的id不会重复，且id中带有节点号
+     */
+    @Test
+    public void testNodeIdEncoded() {
+        SnowflakeOrderNumberGenerator node1 = new SnowflakeOrderNumberGenerator(1, EPOCH);
+        SnowflakeOrderNumberGenerator node2 = new SnowflakeOrderNumberGenerator(2, EPOCH);
+        long id1 = node1.nextId();
+        long id2 = node2.nextId();
+        assertNotEquals(id1, id2);
+        assertEquals(1, (id1 >>> 12) & SnowflakeOrderNumberGenerator.MAX_NODE_ID);
+        assertEquals(2, (id2 >>> 12) & SnowflakeOrderNumberGenerator.MAX_NODE_ID);
+        assertEquals(String.valueOf(node1.nextId() + 1).length(), node1.nextNumber().length());
+    }
+
+    @Test
+    public void testInvalidNodeId() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new SnowflakeOrderNumberGenerator(SnowflakeOrderNumberGenerator.MAX_NODE_ID + 1, EPOCH));
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeOrderNumberGenerator(-1, EPOCH));
+    }
+}
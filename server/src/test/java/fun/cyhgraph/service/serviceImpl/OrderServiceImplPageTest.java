@@ -0,0 +1,128 @@
+package fun.cyhgraph.service.serviceImpl;
+
+import com.github.pagehelper.Page;
+import com.github.pagehelper.PageHelper;
+import fun.cyhgraph.assembler.OrderAssembler;
+import fun.cyhgraph.context.BaseContext;
+import fun.cyhgraph.dto.OrderPageDTO;
+import fun.cyhgraph.entity.Order;
+import fun.cyhgraph.entity.OrderDetail;
+import fun.cyhgraph.mapper.OrderDetailMapper;
+import fun.cyhgraph.mapper.OrderMapper;
+import fun.cyhgraph.mapper.OrderSearchMapper;
+import fun.cyhgraph.result.PageResult;
+import fun.cyhgraph.search.OrderSearchIndex;
+import fun.cyhgraph.vo.OrderVO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * 订单分页查询的SQL条数：每页固定为订单分页查询 + 一条明细批量查询，和每页订单数无关
+ */
+public class OrderServiceImplPageTest {
+
+    private static final int PAGE_SIZE = 50;
+
+    private OrderMapper orderMapper;
+    private OrderDetailMapper orderDetailMapper;
+    private OrderSearchMapper orderSearchMapper;
+    private OrderServiceImpl orderService;
+
+    @BeforeEach
+    public void setUp() {
+        orderMapper = mock(OrderMapper.class);
+        orderDetailMapper = mock(OrderDetailMapper.class);
+        OrderAssembler orderAssembler = new OrderAssembler();
+        ReflectionTestUtils.setField(orderAssembler, "orderDetailMapper", orderDetailMapper);
+        orderService = new OrderServiceImpl();
+        ReflectionTestUtils.setField(orderService, "orderMapper", orderMapper);
+        ReflectionTestUtils.setField(orderService, "orderDetailMapper", orderDetailMapper);
+        ReflectionTestUtils.setField(orderService, "orderAssembler", orderAssembler);
+        orderSearchMapper = mock(OrderSearchMapper.class);
+        OrderSearchIndex orderSearchIndex = new OrderSearchIndex();
+        ReflectionTestUtils.setField(orderSearchIndex, "orderSearchMapper", orderSearchMapper);
+        ReflectionTestUtils.setField(orderService, "orderSearchIndex", orderSearchIndex);
+
+        when(orderMapper.page(any(OrderPageDTO.class))).thenReturn(page(PAGE_SIZE));
+        when(orderDetailMapper.getByOrderIds(anyList())).thenAnswer(invocation -> {
+            List<Integer> orderIds = invocation.getArgument(0);
+            List<OrderDetail> details = new ArrayList<>();
+            for (Integer orderId : orderIds) {
+                details.add(OrderDetail.builder().orderId(orderId).name("菜品" + orderId).number(2).build());
+                details.add(OrderDetail.builder().orderId(orderId).name("套餐" + orderId).number(1).build());
+            }
+            return details;
+        });
+    }
+
+    @AfterEach
+    public void tearDown() {
+        PageHelper.clearPage();
+        BaseContext.removeCurrentId();
+    }
+
+    @Test
+    public void testConditionSearchStatementCount() {
+        OrderPageDTO dto = new OrderPageDTO();
+        dto.setPage(1);
+        dto.setPageSize(PAGE_SIZE);
+        PageResult result = orderService.conditionSearch(dto);
+
+        verify(orderMapper, times(1)).page(any(OrderPageDTO.class));
+        verify(orderDetailMapper, times(1)).getByOrderIds(anyList());
+        verify(orderDetailMapper, never()).getById(anyInt());
+        verifyNoMoreInteractions(orderMapper, orderDetailMapper, orderSearchMapper);
+
+        List<OrderVO> records = (List<OrderVO>) result.getRecords();
+        assertEquals(PAGE_SIZE, records.size());
+        assertEquals("菜品1*2;套餐1*1;", records.get(0).getOrderDishes());
+    }
+
+    @Test
+    public void testUserPageStatementCount() {
+        BaseContext.setCurrentId(1);
+        PageResult result = orderService.userPage(1, PAGE_SIZE, null);
+
+        verify(orderMapper, times(1)).page(any(OrderPageDTO.class));
+        verify(orderDetailMapper, times(1)).getByOrderIds(anyList());
+        verify(orderDetailMapper, never()).getById(anyInt());
+        verifyNoMoreInteractions(orderMapper, orderDetailMapper);
+
+        List<OrderVO> records = (List<OrderVO>) result.getRecords();
+        assertEquals(PAGE_SIZE, records.size());
+        assertEquals(2, records.get(PAGE_SIZE - 1).getOrderDetailList().size());
+    }
+
+    @Test
+    public void testCursorPageSizeLimited() {
+        BaseContext.setCurrentId(1);
+        orderService.userPageByCursor("", 100000, null);
+
+        ArgumentCaptor<OrderPageDTO> captor = ArgumentCaptor.forClass(OrderPageDTO.class);
+        verify(orderMapper).pageByCursor(captor.capture());
+        assertEquals(100, captor.getValue().getPageSize());
+    }
+
+    private Page<Order> page(int size) {
+        Page<Order> page = new Page<>(1, size);
+        for (int i = 1; i <= size; i++) {
+            Order order = new Order();
+            order.setId(i);
+            page.add(order);
+        }
+        page.setTotal(size * 3L);
+        return page;
+    }
+}
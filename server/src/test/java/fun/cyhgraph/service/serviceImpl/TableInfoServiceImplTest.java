@@ -0,0 +1,87 @@
+package fun.cyhgraph.service.serviceImpl;
+
+import fun.cyhgraph.constant.TableStatusConstant;
+import fun.cyhgraph.dto.TableInfoDTO;
+import fun.cyhgraph.entity.TableInfo;
+import fun.cyhgraph.mapper.TableInfoMapper;
+import fun.cyhgraph.service.TableStateMachine;
+import fun.cyhgraph.table.TableBoard;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 编辑餐桌：名称等字段直接更新，状态以读取时的状态和订单为条件通过状态机修改
+ */
+public class TableInfoServiceImplTest {
+
+    private static final Long TABLE_ID = 8L;
+    private static final Integer ORDER_ID = 100;
+
+    private TableInfoMapper tableInfoMapper;
+    private TableStateMachine tableStateMachine;
+    private TableInfoServiceImpl tableInfoService;
+
+    @BeforeEach
+    public void setUp() {
+        tableInfoMapper = mock(TableInfoMapper.class);
+        tableStateMachine = mock(TableStateMachine.class);
+        tableInfoService = new TableInfoServiceImpl();
+        ReflectionTestUtils.setField(tableInfoService, "tableInfoMapper", tableInfoMapper);
+        ReflectionTestUtils.setField(tableInfoService, "tableStateMachine", tableStateMachine);
+        ReflectionTestUtils.setField(tableInfoService, "tableBoard", mock(TableBoard.class));
+
+        TableInfo tableInfo = new TableInfo();
+        tableInfo.setId(TABLE_ID);
+        tableInfo.setTableNumber("A1");
+        tableInfo.setStatus(TableStatusConstant.RESERVED);
+        tableInfo.setOrderId(ORDER_ID);
+        when(tableInfoMapper.selectById(TABLE_ID)).thenReturn(tableInfo);
+    }
+
+    @Test
+    public void testStatusChangeUsesStateMachine() {
+        when(tableStateMachine.changeStatus(TABLE_ID, TableStatusConstant.RESERVED, ORDER_ID, TableStatusConstant.FREE))
+                .thenReturn(true);
+
+        tableInfoService.updateTable(dto(TableStatusConstant.FREE));
+
+        verify(tableStateMachine).changeStatus(TABLE_ID, TableStatusConstant.RESERVED, ORDER_ID, TableStatusConstant.FREE);
+        verify(tableInfoMapper).update(any(TableInfo.class));
+    }
+
+    /**
+     * 读取后餐桌状态或订单被修改，编辑失败且不更新其他字段
+     */
+    @Test
+    public void testStatusChangedConcurrently() {
+        RuntimeException e = assertThrows(RuntimeException.class,
+                () -> tableInfoService.updateTable(dto(TableStatusConstant.FREE)));
+
+        assertEquals("餐桌状态已变化，请刷新后重试", e.getMessage());
+        verify(tableInfoMapper, never()).update(any());
+    }
+
+    /**
+     * 不传状态时只更新其他字段
+     */
+    @Test
+    public void testUpdateWithoutStatus() {
+        tableInfoService.updateTable(dto(null));
+
+        verifyNoInteractions(tableStateMachine);
+        verify(tableInfoMapper).update(any(TableInfo.class));
+    }
+
+    private static TableInfoDTO dto(Integer status) {
+        TableInfoDTO dto = new TableInfoDTO();
+        dto.setId(TABLE_ID);
+        dto.setTableNumber("A1");
+        dto.setTableName("窗边");
+        dto.setStatus(status);
+        return dto;
+    }
+}
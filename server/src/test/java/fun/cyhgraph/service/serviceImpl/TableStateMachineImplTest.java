@@ -0,0 +1,157 @@
+package fun.cyhgraph.service.serviceImpl;
+
+import fun.cyhgraph.constant.TableStatusConstant;
+import fun.cyhgraph.mapper.UtableInfoMapper;
+import fun.cyhgraph.table.TableBoard;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 餐桌状态机：每次变化是一条带当前状态和订单条件的update，受影响行数为1才算成功并通知餐桌看板
+ */
+public class TableStateMachineImplTest {
+
+    private static final Long TABLE_ID = 8L;
+    private static final Integer ORDER_ID = 100;
+
+    private UtableInfoMapper utableInfoMapper;
+    private TableBoard tableBoard;
+    private TableStateMachineImpl tableStateMachine;
+
+    @BeforeEach
+    public void setUp() {
+        utableInfoMapper = mock(UtableInfoMapper.class);
+        tableBoard = mock(TableBoard.class);
+        tableStateMachine = new TableStateMachineImpl();
+        ReflectionTestUtils.setField(tableStateMachine, "utableInfoMapper", utableInfoMapper);
+        ReflectionTestUtils.setField(tableStateMachine, "tableBoard", tableBoard);
+    }
+
+    @Test
+    public void testReserveFreeTable() {
+        when(utableInfoMapper.compareAndSetStatusAndOrder(TABLE_ID, TableStatusConstant.FREE, null,
+                TableStatusConstant.RESERVED, ORDER_ID)).thenReturn(1);
+
+        assertTrue(tableStateMachine.reserve(TABLE_ID, ORDER_ID));
+        verify(tableBoard).onStatusChanged(TABLE_ID, TableStatusConstant.FREE, TableStatusConstant.RESERVED);
+    }
+
+    /**
+     * 条件不满足（餐桌已被其他订单预留或占用）时不修改，也不通知看板
+     */
+    @Test
+    public void testReserveLosesRace() {
+        assertFalse(tableStateMachine.reserve(TABLE_ID, ORDER_ID));
+        verify(utableInfoMapper).compareAndSetStatusAndOrder(TABLE_ID, TableStatusConstant.FREE, null,
+                TableStatusConstant.RESERVED, ORDER_ID);
+        verifyNoInteractions(tableBoard);
+    }
+
+    /**
+     * 先尝试占用本订单预留的餐桌，失败再尝试占用空闲餐桌
+     */
+    @Test
+    public void testOccupyOwnReservation() {
+        when(utableInfoMapper.compareAndSetStatusAndOrder(TABLE_ID, TableStatusConstant.RESERVED, ORDER_ID,
+                TableStatusConstant.OCCUPIED, ORDER_ID)).thenReturn(1);
+
+        assertTrue(tableStateMachine.occupy(TABLE_ID, ORDER_ID));
+        verify(utableInfoMapper, never()).compareAndSetStatusAndOrder(TABLE_ID, TableStatusConstant.FREE, null,
+                TableStatusConstant.OCCUPIED, ORDER_ID);
+        verify(tableBoard).onStatusChanged(TABLE_ID, TableStatusConstant.RESERVED, TableStatusConstant.OCCUPIED);
+    }
+
+    @Test
+    public void testOccupyFreeTable() {
+        when(utableInfoMapper.compareAndSetStatusAndOrder(TABLE_ID, TableStatusConstant.FREE, null,
+                TableStatusConstant.OCCUPIED, ORDER_ID)).thenReturn(1);
+
+        assertTrue(tableStateMachine.occupy(TABLE_ID, ORDER_ID));
+        verify(tableBoard).onStatusChanged(TABLE_ID, TableStatusConstant.FREE, TableStatusConstant.OCCUPIED);
+    }
+
+    /**
+     * 释放只认当前订单，其他订单占用的餐桌不会被释放
+     */
+    @Test
+    public void testReleaseRequiresOwner() {
+        when(utableInfoMapper.compareAndSetStatusAndOrder(TABLE_ID, TableStatusConstant.OCCUPIED, ORDER_ID,
+                TableStatusConstant.FREE, null)).thenReturn(1);
+
+        assertFalse(tableStateMachine.release(TABLE_ID, ORDER_ID + 1));
+        verifyNoInteractions(tableBoard);
+        assertTrue(tableStateMachine.release(TABLE_ID, ORDER_ID));
+        verify(tableBoard).onStatusChanged(TABLE_ID, TableStatusConstant.OCCUPIED, TableStatusConstant.FREE);
+    }
+
+    /**
+     * 支付前超时的订单只释放自己的预留
+     */
+    @Test
+    public void testCancelReservation() {
+        when(utableInfoMapper.compareAndSetStatusAndOrder(TABLE_ID, TableStatusConstant.RESERVED, ORDER_ID,
+                TableStatusConstant.FREE, null)).thenReturn(1);
+
+        assertTrue(tableStateMachine.cancelReservation(TABLE_ID, ORDER_ID));
+        verify(utableInfoMapper, never()).compareAndSetStatusAndOrder(eq(TABLE_ID), eq(TableStatusConstant.OCCUPIED),
+                any(), any(), any());
+        verify(tableBoard).onStatusChanged(TABLE_ID, TableStatusConstant.RESERVED, TableStatusConstant.FREE);
+    }
+
+    @Test
+    public void testNullTableId() {
+        assertFalse(tableStateMachine.reserve(null, ORDER_ID));
+        assertFalse(tableStateMachine.disable(null));
+        verifyNoInteractions(utableInfoMapper, tableBoard);
+    }
+
+    @Test
+    public void testDisableAndEnable() {
+        when(utableInfoMapper.compareAndSetStatus(TABLE_ID, TableStatusConstant.FREE, TableStatusConstant.DISABLED))
+                .thenReturn(1);
+
+        assertTrue(tableStateMachine.disable(TABLE_ID));
+        assertFalse(tableStateMachine.enable(TABLE_ID));
+        verify(tableBoard).onStatusChanged(TABLE_ID, TableStatusConstant.FREE, TableStatusConstant.DISABLED);
+        verify(tableBoard, never()).onStatusChanged(TABLE_ID, TableStatusConstant.DISABLED, TableStatusConstant.FREE);
+    }
+
+    /**
+     * 管理端改状态：先读当前状态，再以读到的状态为条件修改；状态相同直接成功，非法状态拒绝
+     */
+    @Test
+    public void testChangeStatus() {
+        when(utableInfoMapper.selectStatusById(TABLE_ID)).thenReturn(TableStatusConstant.OCCUPIED);
+        when(utableInfoMapper.compareAndSetStatus(TABLE_ID, TableStatusConstant.OCCUPIED, TableStatusConstant.FREE))
+                .thenReturn(1);
+
+        assertTrue(tableStateMachine.changeStatus(TABLE_ID, TableStatusConstant.OCCUPIED));
+        assertFalse(tableStateMachine.changeStatus(TABLE_ID, TableStatusConstant.DISABLED + 1));
+        assertFalse(tableStateMachine.changeStatus(TABLE_ID, null));
+        assertTrue(tableStateMachine.changeStatus(TABLE_ID, TableStatusConstant.FREE));
+        verify(utableInfoMapper, times(1)).compareAndSetStatus(anyLong(), anyInt(), anyInt());
+        verify(tableBoard).onStatusChanged(TABLE_ID, TableStatusConstant.OCCUPIED, TableStatusConstant.FREE);
+    }
+
+    /**
+     * 编辑餐桌改状态：以读取到的状态和订单为条件，改为空闲时清除订单，改为占用时保留订单
+     */
+    @Test
+    public void testChangeStatusWithExpectedOrder() {
+        when(utableInfoMapper.compareAndSetStatusAndOrder(TABLE_ID, TableStatusConstant.RESERVED, ORDER_ID,
+                TableStatusConstant.FREE, null)).thenReturn(1);
+
+        assertTrue(tableStateMachine.changeStatus(TABLE_ID, TableStatusConstant.RESERVED, ORDER_ID, TableStatusConstant.FREE));
+        assertFalse(tableStateMachine.changeStatus(TABLE_ID, TableStatusConstant.RESERVED, ORDER_ID, TableStatusConstant.OCCUPIED));
+        verify(utableInfoMapper).compareAndSetStatusAndOrder(TABLE_ID, TableStatusConstant.RESERVED, ORDER_ID,
+                TableStatusConstant.OCCUPIED, ORDER_ID);
+        assertTrue(tableStateMachine.changeStatus(TABLE_ID, TableStatusConstant.FREE, null, TableStatusConstant.FREE));
+        assertFalse(tableStateMachine.changeStatus(TABLE_ID, TableStatusConstant.FREE, null, 0));
+        verify(utableInfoMapper, times(2)).compareAndSetStatusAndOrder(any(), any(), any(), any(), any());
+        verify(tableBoard).onStatusChanged(TABLE_ID, TableStatusConstant.RESERVED, TableStatusConstant.FREE);
+    }
+}
@@ -0,0 +1,231 @@
+package fun.cyhgraph.stats;
+
+import fun.cyhgraph.entity.Order;
+import fun.cyhgraph.event.OrderStatusChangedEvent;
+import fun.cyhgraph.exception.ReportBusinessException;
+import fun.cyhgraph.mapper.OrderMapper;
+import fun.cyhgraph.properties.OrderCubeProperties;
+import fun.cyhgraph.vo.OrderCubeCellVO;
+import fun.cyhgraph.vo.OrderCubeVO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 内存订单分析：事件追加和更新行，重新加载期间的事件在新数据上重放，查询范围截到保留天数内
+ */
+public class OrderCubeTest {
+
+    private static final LocalDate TODAY = LocalDate.now();
+    private static final List<OrderCube.Dimension> BY_STATUS = List.of(OrderCube.Dimension.STATUS);
+
+    private OrderMapper orderMapper;
+    private OrderCubeProperties orderCubeProperties;
+    private OrderCube orderCube;
+
+    @BeforeEach
+    public void setUp() {
+        orderMapper = mock(OrderMapper.class);
+        orderCubeProperties = new OrderCubeProperties();
+        orderCubeProperties.setDays(30);
+        orderCubeProperties.setLoadPageSize(2);
+        orderCube = new OrderCube();
+        ReflectionTestUtils.setField(orderCube, "orderMapper", orderMapper);
+        ReflectionTestUtils.setField(orderCube, "orderCubeProperties", orderCubeProperties);
+    }
+
+    /**
+     * 新订单追加一行，状态变化原地更新，金额按分累加
+     */
+    @Test
+    public void testApplyAppendAndUpdate() {
+        orderCube.onOrderStatusChanged(created(1, "10.50"));
+        orderCube.onOrderStatusChanged(created(2, "20.00"));
+        orderCube.onOrderStatusChanged(created(3, "5.25"));
+        orderCube.onOrderStatusChanged(changed(2, Order.PENDING_PAYMENT, Order.TO_BE_CONFIRMED));
+
+        OrderCubeVO vo = query(BY_STATUS);
+        assertEquals(3, vo.getScannedRows());
+        assertEquals(Map.of("1", 2L, "2", 1L), counts(vo));
+        assertEquals(new BigDecimal("15.75"), cell(vo, "1").getAmount());
+    }
+
+    /**
+     * 提交顺序与id顺序不一致、超过初始容量时，行仍按id有序，状态更新能找到对应行
+     */
+    @Test
+    public void testApplyOutOfOrderAndGrow() {
+        List<Integer> ids = new ArrayList<>();
+        for (int id = 1; id <= 3000; id++) {
+            ids.add(id);
+        }
+        Collections.shuffle(ids, new Random(42));
+        ids.forEach(id -> orderCube.onOrderStatusChanged(created(id, "1.00")));
+        for (int id = 1; id <= 3000; id += 3) {
+            orderCube.onOrderStatusChanged(changed(id, Order.PENDING_PAYMENT, Order.CANCELLED));
+        }
+
+        OrderCubeVO vo = query(BY_STATUS);
+        assertEquals(3000, vo.getScannedRows());
+        assertEquals(Map.of("1", 2000L, "6", 1000L), counts(vo));
+    }
+
+    /**
+     * 事件中没有订单id或下单时间的新订单不放入
+     */
+    @Test
+    public void testApplySkipsIncompleteOrder() {
+        Order order = new Order();
+        order.setId(1);
+        orderCube.onOrderStatusChanged(new OrderStatusChangedEvent(order, null, Order.PENDING_PAYMENT));
+        orderCube.onOrderStatusChanged(new OrderStatusChangedEvent(new Order(), null, Order.PENDING_PAYMENT));
+
+        assertEquals(0, query(BY_STATUS).getScannedRows());
+    }
+
+    /**
+     * 重新加载按id分页读取保留天数内的订单，替换旧数据，加载期间收到的事件在新数据上重放
+     */
+    @Test
+    public void testReloadReplaysPendingEvents() {
+        orderCube.onOrderStatusChanged(created(99, "1.00"));
+        LocalDateTime begin = TODAY.minusDays(29).atStartOfDay();
+        when(orderMapper.getCubeRowsAfterId(0, begin, 2)).thenAnswer(invocation -> {
+            // 第一页读出后、替换前，订单1被取消，订单5新下单
+            List<Order> page = List.of(row(1, Order.PENDING_PAYMENT), row(2, Order.TO_BE_CONFIRMED));
+            orderCube.onOrderStatusChanged(changed(1, Order.PENDING_PAYMENT, Order.CANCELLED));
+            orderCube.onOrderStatusChanged(created(5, "8.00"));
+            return page;
+        });
+        when(orderMapper.getCubeRowsAfterId(2, begin, 2)).thenReturn(List.of(row(3, Order.COMPLETED)));
+
+        orderCube.reload();
+
+        OrderCubeVO vo = query(BY_STATUS);
+        assertEquals(4, vo.getScannedRows());
+        assertEquals(Map.of("1", 1L, "2", 1L, "5", 1L, "6", 1L), counts(vo));
+        verify(orderMapper).getCubeRowsAfterId(0, begin, 2);
+        verify(orderMapper).getCubeRowsAfterId(2, begin, 2);
+
+        // 重放结束后不再记录事件
+        orderCube.onOrderStatusChanged(changed(5, Order.PENDING_PAYMENT, Order.TO_BE_CONFIRMED));
+        assertNull(ReflectionTestUtils.getField(orderCube, "pending"));
+    }
+
+    /**
+     * 加载失败时保留旧数据，之后的事件照常更新
+     */
+    @Test
+    public void testReloadFailureKeepsData() {
+        orderCube.onOrderStatusChanged(created(1, "1.00"));
+        when(orderMapper.getCubeRowsAfterId(anyInt(), any(), anyInt())).thenThrow(new RuntimeException("db down"));
+
+        assertThrows(RuntimeException.class, () -> orderCube.reload());
+        orderCube.onOrderStatusChanged(changed(1, Order.PENDING_PAYMENT, Order.CANCELLED));
+
+        assertEquals(Map.of("6", 1L), counts(query(BY_STATUS)));
+        assertNull(ReflectionTestUtils.getField(orderCube, "pending"));
+    }
+
+    /**
+     * 查询范围截到保留天数内，按日期分组的格数不超过保留天数，完全在范围外时返回空结果
+     */
+    @Test
+    public void testQueryClampsToWindow() {
+        orderCubeProperties.setDays(3);
+        orderCube.onOrderStatusChanged(created(1, TODAY.minusDays(10).atTime(12, 0), "1.00"));
+        orderCube.onOrderStatusChanged(created(2, TODAY.minusDays(1).atTime(12, 0), "2.00"));
+        orderCube.onOrderStatusChanged(created(3, TODAY.atTime(12, 0), "3.00"));
+
+        OrderCubeVO vo = orderCube.query(LocalDate.of(1970, 1, 1), LocalDate.of(9999, 12, 31),
+                List.of(OrderCube.Dimension.DAY), null, null);
+        assertEquals(Map.of(TODAY.minusDays(1).toString(), 1L, TODAY.toString(), 1L), counts(vo));
+
+        OrderCubeVO outside = orderCube.query(TODAY.minusDays(20), TODAY.minusDays(10),
+                List.of(OrderCube.Dimension.DAY), null, null);
+        assertTrue(outside.getCells().isEmpty());
+        assertEquals(List.of("day"), outside.getDimensions());
+    }
+
+    /**
+     * 两个维度组合分组，并按状态和就餐方式过滤
+     */
+    @Test
+    public void testTwoDimensionsWithFilter() {
+        orderCube.onOrderStatusChanged(created(1, TODAY.atTime(9, 30), "1.00"));
+        orderCube.onOrderStatusChanged(created(2, TODAY.atTime(9, 45), "1.00"));
+        orderCube.onOrderStatusChanged(created(3, TODAY.atTime(18, 0), "1.00"));
+        orderCube.onOrderStatusChanged(changed(3, Order.PENDING_PAYMENT, Order.COMPLETED));
+
+        OrderCubeVO vo = orderCube.query(TODAY, TODAY,
+                List.of(OrderCube.Dimension.HOUR, OrderCube.Dimension.DINING_TYPE), Order.PENDING_PAYMENT, Order.DINE_IN);
+        assertEquals(1, vo.getCells().size());
+        assertEquals(List.of("9", "2"), vo.getCells().get(0).getKeys());
+        assertEquals(2L, vo.getCells().get(0).getOrderCount());
+    }
+
+    @Test
+    public void testInvalidDimensions() {
+        assertThrows(ReportBusinessException.class, () -> orderCube.query(TODAY, TODAY,
+                List.of(OrderCube.Dimension.HOUR, OrderCube.Dimension.DAY, OrderCube.Dimension.STATUS), null, null));
+        assertThrows(ReportBusinessException.class, () -> orderCube.query(TODAY, TODAY,
+                List.of(OrderCube.Dimension.HOUR, OrderCube.Dimension.HOUR), null, null));
+        assertThrows(ReportBusinessException.class, () -> OrderCube.Dimension.parse("month"));
+    }
+
+    private OrderCubeVO query(List<OrderCube.Dimension> dimensions) {
+        return orderCube.query(TODAY.minusDays(1), TODAY, dimensions, null, null);
+    }
+
+    private static Map<String, Long> counts(OrderCubeVO vo) {
+        Map<String, Long> counts = new HashMap<>();
+        vo.getCells().forEach(cell -> counts.put(String.join(",", cell.getKeys()), cell.getOrderCount()));
+        return counts;
+    }
+
+    private static OrderCubeCellVO cell(OrderCubeVO vo, String key) {
+        return vo.getCells().stream().filter(cell -> cell.getKeys().equals(List.of(key))).findFirst().orElseThrow();
+    }
+
+    private static OrderStatusChangedEvent created(Integer id, String amount) {
+        return created(id, TODAY.atTime(12, 0), amount);
+    }
+
+    private static OrderStatusChangedEvent created(Integer id, LocalDateTime orderTime, String amount) {
+        Order order = new Order();
+        order.setId(id);
+        order.setOrderTime(orderTime);
+        order.setAmount(new BigDecimal(amount));
+        order.setDiningType(Order.DINE_IN);
+        return new OrderStatusChangedEvent(order, null, Order.PENDING_PAYMENT);
+    }
+
+    private static OrderStatusChangedEvent changed(Integer id, Integer from, Integer to) {
+        Order order = new Order();
+        order.setId(id);
+        return new OrderStatusChangedEvent(order, from, to);
+    }
+
+    private static Order row(Integer id, Integer status) {
+        Order order = new Order();
+        order.setId(id);
+        order.setOrderTime(TODAY.atTime(12, 0));
+        order.setAmount(BigDecimal.ONE);
+        order.setStatus(status);
+        order.setDiningType(Order.DELIVERY);
+        return order;
+    }
+}
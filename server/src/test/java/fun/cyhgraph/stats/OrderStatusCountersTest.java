@@ -0,0 +1,148 @@
+package fun.cyhgraph.stats;
+
+import fun.cyhgraph.dto.OrderStatusCountDTO;
+import fun.cyhgraph.entity.Order;
+import fun.cyhgraph.event.OrderStatusChangedEvent;
+import fun.cyhgraph.mapper.OrderMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Constructor;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 订单状态计数器：对账覆盖计数，状态变化事件在全部和今日两组计数之间移动
+ */
+public class OrderStatusCountersTest {
+
+    private OrderMapper orderMapper;
+    private OrderStatusCounters counters;
+
+    @BeforeEach
+    public void setUp() {
+        orderMapper = mock(OrderMapper.class);
+        counters = new OrderStatusCounters();
+        ReflectionTestUtils.setField(counters, "orderMapper", orderMapper);
+    }
+
+    /**
+     * 对账用数据库分组结果覆盖计数器，超出范围的状态忽略
+     */
+    @Test
+    public void testReconcile() {
+        when(orderMapper.countGroupByStatus(null)).thenReturn(List.of(count(1, 5), count(5, 100), count(9, 3)));
+        when(orderMapper.countGroupByStatus(LocalDate.now().atStartOfDay())).thenReturn(List.of(count(1, 2), count(5, 7)));
+        counters.onStatusChanged(event(LocalDateTime.now(), null, Order.PENDING_PAYMENT));
+
+        counters.reconcile();
+
+        assertEquals(5, counters.count(Order.PENDING_PAYMENT));
+        assertEquals(100, counters.count(Order.COMPLETED));
+        assertEquals(0, counters.count(Order.CANCELLED));
+        assertEquals(2, counters.countToday(Order.PENDING_PAYMENT));
+        assertEquals(9, counters.countToday());
+    }
+
+    /**
+     * 新下单只增加，状态变化从原状态移到新状态，状态不变不计数
+     */
+    @Test
+    public void testStatusChanges() {
+        LocalDateTime now = LocalDateTime.now();
+        counters.onStatusChanged(event(now, null, Order.PENDING_PAYMENT));
+        counters.onStatusChanged(event(now, null, Order.PENDING_PAYMENT));
+        counters.onStatusChanged(event(now, Order.PENDING_PAYMENT, Order.TO_BE_CONFIRMED));
+        counters.onStatusChanged(event(now, Order.TO_BE_CONFIRMED, Order.TO_BE_CONFIRMED));
+
+        assertEquals(1, counters.count(Order.PENDING_PAYMENT));
+        assertEquals(1, counters.count(Order.TO_BE_CONFIRMED));
+        assertEquals(1, counters.countToday(Order.TO_BE_CONFIRMED));
+        assertEquals(2, counters.countToday());
+    }
+
+    /**
+     * 昨天下单的订单状态变化只影响全部订单的计数
+     */
+    @Test
+    public void testOlderOrderOnlyAffectsTotal() {
+        counters.onStatusChanged(event(LocalDateTime.now().minusDays(1), Order.DELIVERY_IN_PROGRESS, Order.COMPLETED));
+
+        assertEquals(-1, counters.count(Order.DELIVERY_IN_PROGRESS));
+        assertEquals(1, counters.count(Order.COMPLETED));
+        assertEquals(0, counters.countToday());
+    }
+
+    /**
+     * 跨天后今日计数从0开始，全部订单的计数不受影响
+     */
+    @Test
+    public void testDayRollover() throws Exception {
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        Constructor<?> constructor = Class.forName(OrderStatusCounters.class.getName() + "$Day")
+                .getDeclaredConstructor(LocalDate.class);
+        constructor.setAccessible(true);
+        ReflectionTestUtils.setField(counters, "today", constructor.newInstance(yesterday));
+        counters.onStatusChanged(event(yesterday.atTime(23, 59), null, Order.PENDING_PAYMENT));
+
+        assertEquals(0, counters.countToday());
+        assertEquals(1, counters.count(Order.PENDING_PAYMENT));
+        counters.onStatusChanged(event(LocalDateTime.now(), null, Order.PENDING_PAYMENT));
+        assertEquals(1, counters.countToday());
+    }
+
+    /**
+     * 多线程同时更新，计数不丢失
+     */
+    @Test
+    public void testConcurrentUpdates() throws Exception {
+        int threads = 8;
+        int perThread = 10_000;
+        LocalDateTime now = LocalDateTime.now();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < perThread; i++) {
+                    counters.onStatusChanged(event(now, null, Order.PENDING_PAYMENT));
+                    counters.onStatusChanged(event(now, Order.PENDING_PAYMENT, Order.TO_BE_CONFIRMED));
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        pool.shutdown();
+
+        assertEquals(0, counters.count(Order.PENDING_PAYMENT));
+        assertEquals(threads * perThread, counters.count(Order.TO_BE_CONFIRMED));
+        assertEquals(threads * perThread, counters.countToday());
+    }
+
+    private static OrderStatusChangedEvent event(LocalDateTime orderTime, Integer from, Integer to) {
+        Order order = new Order();
+        order.setOrderTime(orderTime);
+        return new OrderStatusChangedEvent(order, from, to);
+    }
+
+    private static OrderStatusCountDTO count(Integer status, long count) {
+        OrderStatusCountDTO dto = new OrderStatusCountDTO();
+        dto.setStatus(status);
+        dto.setCount(count);
+        return dto;
+    }
+}
@@ -0,0 +1,200 @@
+package fun.cyhgraph.store;
+
+import fun.cyhgraph.entity.Cart;
+import fun.cyhgraph.properties.CartProperties;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import redis.embedded.RedisServer;
+
+import java.math.BigDecimal;
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * redis购物车：在内嵌redis上执行真实的lua脚本，检查数量增减、减到0删除、批量修改和过期时间
+ */
+public class RedisCartStoreTest {
+
+    private static final Integer USER_ID = 7;
+    private static final String KEY = "cart_7";
+
+    private static RedisServer redisServer;
+    private static LettuceConnectionFactory connectionFactory;
+    private static StringRedisTemplate stringRedisTemplate;
+
+    private RedisCartStore cartStore;
+
+    @BeforeAll
+    public static void startRedis() throws Exception {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        redisServer = new RedisServer(port);
+        redisServer.start();
+        connectionFactory = new LettuceConnectionFactory("localhost", port);
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        stringRedisTemplate = new StringRedisTemplate(connectionFactory);
+    }
+
+    @AfterAll
+    public static void stopRedis() throws Exception {
+        if (connectionFactory != null) {
+            connectionFactory.destroy();
+        }
+        if (redisServer != null) {
+            redisServer.stop();
+        }
+    }
+
+    @BeforeEach
+    public void setUp() {
+        stringRedisTemplate.delete(KEY);
+        CartProperties cartProperties = new CartProperties();
+        cartProperties.setTtl(Duration.ofDays(7));
+        cartStore = new RedisCartStore();
+        ReflectionTestUtils.setField(cartStore, "stringRedisTemplate", stringRedisTemplate);
+        ReflectionTestUtils.setField(cartStore, "cartProperties", cartProperties);
+    }
+
+    /**
+     * 购物车中没有的商品不能+1，由调用方走新增
+     */
+    @Test
+    public void testIncrementMissingItem() {
+        assertFalse(cartStore.increment(USER_ID, dish(1, "微辣", 1)));
+        assertFalse(stringRedisTemplate.hasKey(KEY));
+    }
+
+    @Test
+    public void testInsertThenIncrement() {
+        cartStore.insert(USER_ID, dish(1, "微辣", 2));
+        assertTrue(cartStore.increment(USER_ID, dish(1, "微辣", 1)));
+        // 口味不同是另一件商品
+        assertFalse(cartStore.increment(USER_ID, dish(1, "不辣", 1)));
+
+        assertEquals("3", field("n:d1:微辣"));
+        long ttl = stringRedisTemplate.getExpire(KEY, TimeUnit.SECONDS);
+        assertTrue(ttl > Duration.ofDays(7).toSeconds() - 60, "过期时间没有按配置设置：" + ttl);
+        List<Cart> cartList = cartStore.list(USER_ID);
+        assertEquals(1, cartList.size());
+        assertEquals(3, cartList.get(0).getNumber());
+        assertEquals(USER_ID, cartList.get(0).getUserId());
+        assertEquals("微辣", cartList.get(0).getDishFlavor());
+        assertEquals(new BigDecimal("12.50"), cartList.get(0).getAmount());
+    }
+
+    /**
+     * 重复新增同一件商品数量累加
+     */
+    @Test
+    public void testInsertAccumulates() {
+        cartStore.insertBatch(USER_ID, List.of(setmeal(5, 1), setmeal(5, 2)));
+        assertEquals("3", field("n:s5"));
+    }
+
+    /**
+     * 减到0时数量和信息两个field都删除
+     */
+    @Test
+    public void testDecrementRemovesItem() {
+        cartStore.insert(USER_ID, dish(1, null, 2));
+        cartStore.decrement(USER_ID, dish(1, null, 1));
+        assertEquals("1", field("n:d1:"));
+
+        cartStore.decrement(USER_ID, dish(1, null, 1));
+        assertFalse(stringRedisTemplate.hasKey(KEY));
+        assertTrue(cartStore.list(USER_ID).isEmpty());
+
+        // 已删除的商品再减不会出现负数
+        cartStore.decrement(USER_ID, dish(1, null, 1));
+        assertFalse(stringRedisTemplate.hasKey(KEY));
+    }
+
+    /**
+     * 一次脚本修改多件商品：新商品写入信息，已有商品只改数量，减到0的删除
+     */
+    @Test
+    public void testApplyBatch() {
+        cartStore.insert(USER_ID, dish(1, null, 2));
+        cartStore.insert(USER_ID, setmeal(5, 1));
+        stringRedisTemplate.persist(KEY);
+        Cart renamed = dish(1, null, 1);
+        renamed.setName("改名后的菜");
+
+        cartStore.applyBatch(USER_ID, List.of(renamed, setmeal(5, -1), dish(2, "微辣", 4)));
+
+        assertEquals("3", field("n:d1:"));
+        assertNull(field("n:s5"));
+        assertNull(field("i:s5"));
+        assertEquals("4", field("n:d2:微辣"));
+        assertTrue(stringRedisTemplate.getExpire(KEY, TimeUnit.SECONDS) > 0);
+        Map<Integer, Cart> byDish = new HashMap<>();
+        cartStore.list(USER_ID).forEach(cart -> byDish.put(cart.getDishId(), cart));
+        assertEquals(2, byDish.size());
+        assertEquals("菜品1", byDish.get(1).getName());
+        assertEquals(4, byDish.get(2).getNumber());
+    }
+
+    /**
+     * 列表按加入时间倒序，没有信息field的数量field忽略
+     */
+    @Test
+    public void testListOrderAndOrphans() {
+        Cart older = dish(1, null, 1);
+        older.setCreateTime(LocalDateTime.of(2024, 1, 1, 12, 0));
+        Cart newer = setmeal(5, 1);
+        newer.setCreateTime(LocalDateTime.of(2024, 1, 1, 12, 5));
+        cartStore.insert(USER_ID, older);
+        cartStore.insert(USER_ID, newer);
+        stringRedisTemplate.opsForHash().put(KEY, "n:d9:", "2");
+
+        List<Cart> cartList = cartStore.list(USER_ID);
+        assertEquals(2, cartList.size());
+        assertEquals(5, cartList.get(0).getSetmealId());
+        assertEquals(1, cartList.get(1).getDishId());
+    }
+
+    @Test
+    public void testClear() {
+        cartStore.insert(USER_ID, dish(1, null, 1));
+        cartStore.clear(USER_ID);
+        assertTrue(cartStore.list(USER_ID).isEmpty());
+    }
+
+    private String field(String field) {
+        return (String) stringRedisTemplate.opsForHash().get(KEY, field);
+    }
+
+    private static Cart dish(Integer dishId, String flavor, Integer number) {
+        return Cart.builder()
+                .dishId(dishId)
+                .dishFlavor(flavor)
+                .name("菜品" + dishId)
+                .amount(new BigDecimal("12.50"))
+                .number(number)
+                .build();
+    }
+
+    private static Cart setmeal(Integer setmealId, Integer number) {
+        return Cart.builder()
+                .setmealId(setmealId)
+                .name("套餐" + setmealId)
+                .amount(new BigDecimal("30.00"))
+                .number(number)
+                .build();
+    }
+}
@@ -0,0 +1,134 @@
+package fun.cyhgraph.timeout;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 分层时间轮：任务在到期时间所在格开始时到期，跨层任务逐层降级后到期时间不变
+ */
+public class HierarchicalTimingWheelTest {
+
+    private static final long TICK = 10;
+    private static final int WHEEL_SIZE = 4;
+
+    @Test
+    public void testInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new HierarchicalTimingWheel<String>(0, WHEEL_SIZE, 0));
+        assertThrows(IllegalArgumentException.class, () -> new HierarchicalTimingWheel<String>(TICK, 1, 0));
+    }
+
+    /**
+     * 到期时间在当前格内的任务不放入时间轮，由调用方立即处理
+     */
+    @Test
+    public void testAddAlreadyExpired() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(TICK, WHEEL_SIZE, 5);
+        assertFalse(wheel.add("a", 0));
+        assertFalse(wheel.add("b", 9));
+        assertTrue(wheel.add("c", 10));
+        assertEquals(1, wheel.size());
+    }
+
+    /**
+     * 第0层的任务在所在格开始时到期，早一毫秒都不会到期
+     */
+    @Test
+    public void testTickBoundary() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(TICK, WHEEL_SIZE, 0);
+        wheel.add("a", 10);
+        wheel.add("b", 39);
+        List<String> expired = new ArrayList<>();
+
+        wheel.advance(9, expired::add);
+        assertTrue(expired.isEmpty());
+        wheel.advance(10, expired::add);
+        assertEquals(List.of("a"), expired);
+        wheel.advance(29, expired::add);
+        assertEquals(List.of("a"), expired);
+        wheel.advance(30, expired::add);
+        assertEquals(List.of("a", "b"), expired);
+        assertEquals(0, wheel.size());
+    }
+
+    /**
+     * 超出第0层范围的任务放入高层，推进到高层格时降级，最终在到期时间所在格到期
+     */
+    @Test
+    public void testCascade() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(TICK, WHEEL_SIZE, 0);
+        // 40落在第1层格的起点，55需要从第1层降到第0层，1000需要从第3层逐层降级
+        wheel.add("a", 40);
+        wheel.add("b", 55);
+        wheel.add("c", 1000);
+        assertEquals(3, wheel.size());
+        List<String> expired = new ArrayList<>();
+
+        wheel.advance(39, expired::add);
+        assertTrue(expired.isEmpty());
+        wheel.advance(40, expired::add);
+        assertEquals(List.of("a"), expired);
+        wheel.advance(49, expired::add);
+        assertEquals(List.of("a"), expired);
+        wheel.advance(50, expired::add);
+        assertEquals(List.of("a", "b"), expired);
+        wheel.advance(999, expired::add);
+        assertEquals(List.of("a", "b"), expired);
+        assertEquals(1, wheel.size());
+        wheel.advance(1000, expired::add);
+        assertEquals(List.of("a", "b", "c"), expired);
+        assertEquals(0, wheel.size());
+    }
+
+    /**
+     * 一次推进多格时按到期先后处理，推进后再添加的任务以新的当前时间为准
+     */
+    @Test
+    public void testAdvanceManyTicks() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(TICK, WHEEL_SIZE, 0);
+        wheel.add("c", 300);
+        wheel.add("a", 20);
+        wheel.add("b", 170);
+        List<String> expired = new ArrayList<>();
+        wheel.advance(500, expired::add);
+        assertEquals(List.of("a", "b", "c"), expired);
+
+        assertFalse(wheel.add("d", 505));
+        assertTrue(wheel.add("e", 510));
+        wheel.advance(509, expired::add);
+        assertEquals(3, expired.size());
+        wheel.advance(510, expired::add);
+        assertEquals(List.of("a", "b", "c", "e"), expired);
+    }
+
+    /**
+     * 随机时间的任务逐格推进，每个任务都恰好在到期时间所在格到期
+     */
+    @Test
+    public void testRandomDeadlines() {
+        long start = 12345;
+        HierarchicalTimingWheel<Integer> wheel = new HierarchicalTimingWheel<>(TICK, WHEEL_SIZE, start);
+        Random random = new Random(42);
+        Map<Integer, Long> deadlines = new HashMap<>();
+        for (int i = 0; i < 2000; i++) {
+            long deadline = start + TICK + random.nextInt(20000);
+            deadlines.put(i, deadline);
+            assertTrue(wheel.add(i, deadline));
+        }
+        Map<Integer, Long> expiredAt = new HashMap<>();
+        for (long now = start - start % TICK; now <= start + 21000; now += TICK) {
+            long time = now;
+            wheel.advance(now, item -> assertNull(expiredAt.put(item, time), "任务重复到期：" + item));
+        }
+        assertEquals(0, wheel.size());
+        assertEquals(deadlines.size(), expiredAt.size());
+        deadlines.forEach((item, deadline) ->
+                assertEquals(deadline - deadline % TICK, expiredAt.get(item), "任务到期时间不对：" + item));
+    }
+}
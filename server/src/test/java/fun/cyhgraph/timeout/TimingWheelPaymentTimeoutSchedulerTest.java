@@ -0,0 +1,93 @@
+package fun.cyhgraph.timeout;
+
+import fun.cyhgraph.properties.OrderTimeoutProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.mockito.Mockito.*;
+
+/**
+ * 本地时间轮超时登记：到期批量取消，已取消的登记跳过，处理失败的订单下一格重试
+ */
+public class TimingWheelPaymentTimeoutSchedulerTest {
+
+    private static final long TICK_MS = 10;
+
+    private PaymentTimeoutHandler paymentTimeoutHandler;
+    private TimingWheelPaymentTimeoutScheduler scheduler;
+
+    @BeforeEach
+    public void setUp() {
+        OrderTimeoutProperties properties = new OrderTimeoutProperties();
+        properties.setTick(Duration.ofMillis(TICK_MS));
+        properties.setWheelSize(8);
+        paymentTimeoutHandler = mock(PaymentTimeoutHandler.class);
+        when(paymentTimeoutHandler.expire(anyList())).thenReturn(List.of());
+        scheduler = new TimingWheelPaymentTimeoutScheduler();
+        ReflectionTestUtils.setField(scheduler, "orderTimeoutProperties", properties);
+        ReflectionTestUtils.setField(scheduler, "paymentTimeoutHandler", paymentTimeoutHandler);
+        scheduler.start();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        scheduler.stop();
+    }
+
+    /**
+     * 同一格到期的订单一次交给处理器，取消登记的订单不会到期
+     */
+    @Test
+    public void testExpireInBatch() {
+        long deadline = System.currentTimeMillis() + 5 * TICK_MS;
+        scheduler.schedule(1, deadline);
+        scheduler.schedule(2, deadline);
+        scheduler.schedule(3, deadline);
+        scheduler.cancel(2);
+
+        verify(paymentTimeoutHandler, timeout(2000)).expire(List.of(1, 3));
+        verify(paymentTimeoutHandler, after(10 * TICK_MS).never()).expire(argThat(ids -> ids.contains(2)));
+    }
+
+    /**
+     * 到期前不处理，已经过了到期时间的订单在下一格处理
+     */
+    @Test
+    public void testDeadlineBoundary() {
+        scheduler.schedule(1, System.currentTimeMillis() + 300);
+        scheduler.schedule(2, System.currentTimeMillis() - 1000);
+
+        verify(paymentTimeoutHandler, timeout(2000)).expire(List.of(2));
+        verify(paymentTimeoutHandler, after(150).never()).expire(List.of(1));
+        verify(paymentTimeoutHandler, timeout(2000)).expire(List.of(1));
+    }
+
+    /**
+     * 重新登记后以最后一次登记的到期时间为准，旧的登记到期时跳过
+     */
+    @Test
+    public void testRescheduleReplacesPrevious() {
+        scheduler.schedule(1, System.currentTimeMillis() + 2 * TICK_MS);
+        scheduler.schedule(1, System.currentTimeMillis() + 300);
+
+        verify(paymentTimeoutHandler, after(150).never()).expire(anyList());
+        verify(paymentTimeoutHandler, timeout(2000)).expire(List.of(1));
+    }
+
+    /**
+     * 处理失败的订单延后一格重新登记，直到处理成功
+     */
+    @Test
+    public void testRetryFailed() {
+        when(paymentTimeoutHandler.expire(List.of(1))).thenReturn(List.of(1)).thenReturn(List.of());
+        scheduler.schedule(1, System.currentTimeMillis() + TICK_MS);
+
+        verify(paymentTimeoutHandler, timeout(2000).times(2)).expire(List.of(1));
+        verify(paymentTimeoutHandler, after(10 * TICK_MS).times(2)).expire(anyList());
+    }
+}